@@ -62,9 +62,13 @@ import com.android.launcher3.views.ActivityContext;
 import com.saggitt.omega.OmegaLauncher;
 import com.saggitt.omega.search.SearchProvider;
 import com.saggitt.omega.search.SearchProviderController;
+import com.saggitt.omega.theme.ThemeManager;
+import com.saggitt.omega.theme.ThemeManager.ThemeColors;
+import com.saggitt.omega.theme.ThemeManager.ThemeableView;
 
 public abstract class AbstractQsbLayout extends FrameLayout implements OnSharedPreferenceChangeListener,
-        OnClickListener, OnLongClickListener, Insettable, SearchProviderController.OnProviderChangeListener, WallpaperColorInfo.OnChangeListener {
+        OnClickListener, OnLongClickListener, Insettable, SearchProviderController.OnProviderChangeListener, WallpaperColorInfo.OnChangeListener,
+        ThemeableView {
     private static final Rect mSrcRect = new Rect();
     public static FloatProperty HOTSEAT_PROGRESS = new FloatProperty<AbstractQsbLayout>("hotseatProgress") {
         @Override
@@ -173,6 +177,7 @@ public abstract class AbstractQsbLayout extends FrameLayout implements OnSharedP
         getDevicePreferences().registerOnSharedPreferenceChangeListener(this);
         mTouchDelegate.setDelegateView(mMicFrame);
         SearchProviderController.Companion.getInstance(getContext()).addOnProviderChangeListener(this);
+        ThemeManager.Companion.getInstance(getContext()).addThemeableView(this);
         WallpaperColorInfo instance = WallpaperColorInfo.getInstance(getContext());
         instance.addOnChangeListener(this);
         onExtractedColorsChanged(instance);
@@ -236,6 +241,7 @@ public abstract class AbstractQsbLayout extends FrameLayout implements OnSharedP
     protected void onDetachedFromWindow() {
         Utilities.getPrefs(getContext()).unregisterOnSharedPreferenceChangeListener(this);
         SearchProviderController.Companion.getInstance(getContext()).removeOnProviderChangeListener(this);
+        ThemeManager.Companion.getInstance(getContext()).removeThemeableView(this);
         WallpaperColorInfo.getInstance(getContext()).removeOnChangeListener(this);
         super.onDetachedFromWindow();
     }
@@ -632,6 +638,17 @@ public abstract class AbstractQsbLayout extends FrameLayout implements OnSharedP
         loadPreferences(Utilities.getPrefs(getContext()));
     }
 
+    @Override
+    public int[] getThemeAttrs() {
+        return new int[0];
+    }
+
+    @Override
+    public void onThemeChanged(ThemeColors colors) {
+        // The provider icons are tinted with the accent color
+        loadPreferences(Utilities.getPrefs(getContext()));
+    }
+
     protected void loadPreferences(SharedPreferences sharedPreferences) {
         post(() -> {
             searchProvider = SearchProviderController.Companion.getInstance(getContext()).getSearchProvider();
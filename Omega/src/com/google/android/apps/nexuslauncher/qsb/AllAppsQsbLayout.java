@@ -1,6 +1,7 @@
 package com.google.android.apps.nexuslauncher.qsb;
 
 import static com.android.launcher3.InvariantDeviceProfile.CHANGE_FLAG_ICON_PARAMS;
+import static com.android.launcher3.InvariantDeviceProfile.CHANGE_FLAG_ICON_SIZES;
 import static com.android.launcher3.LauncherState.ALL_APPS_CONTENT;
 import static com.android.launcher3.LauncherState.ALL_APPS_HEADER;
 import static com.android.launcher3.LauncherState.HOTSEAT_SEARCH_BOX;
@@ -126,7 +127,7 @@ public class AllAppsQsbLayout extends AbstractQsbLayout implements SearchUiManag
 
     @Override
     public void onIdpChanged(int changeFlags, InvariantDeviceProfile profile) {
-        if ((changeFlags & CHANGE_FLAG_ICON_PARAMS) != 0) {
+        if ((changeFlags & (CHANGE_FLAG_ICON_PARAMS | CHANGE_FLAG_ICON_SIZES)) != 0) {
             mAllAppsShadowBitmap = mHotseatShadowBitmap = mBubbleShadowBitmap = mClearBitmap = null;
             addOrUpdateSearchRipple();
         }
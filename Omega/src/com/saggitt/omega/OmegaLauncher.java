@@ -58,6 +58,7 @@ import com.saggitt.omega.iconpack.IconPackManager;
 import com.saggitt.omega.override.CustomInfoProvider;
 import com.saggitt.omega.settings.SettingsActivity;
 import com.saggitt.omega.smartspace.FeedBridge;
+import com.saggitt.omega.smartspace.SmartspaceRefreshScheduler;
 import com.saggitt.omega.util.Config;
 import com.saggitt.omega.util.DbHelper;
 import com.saggitt.omega.views.OmegaBackgroundView;
@@ -151,6 +152,18 @@ public class OmegaLauncher extends QuickstepLauncher implements OmegaPreferences
         return mGestureController;
     }
 
+    @Override
+    protected void onStart() {
+        super.onStart();
+        SmartspaceRefreshScheduler.Companion.getInstance(this).setLauncherStarted(true);
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        SmartspaceRefreshScheduler.Companion.getInstance(this).setLauncherStarted(false);
+    }
+
     @Override
     public void onResume() {
         super.onResume();
@@ -73,6 +73,8 @@ class OmegaPreferences(val context: Context) : SharedPreferences.OnSharedPrefere
     val reloadIcons = { reloadIcons() }
     private val reloadIconPacks = { IconPackManager.getInstance(context).packList.reloadPacks() }
     val recreate = { recreate() }
+    private val updateThemeColors = { ThemeManager.getInstance(context).applyThemeInPlace() }
+    private val updateIconScale = { LauncherAppState.getIDP(context).onIconAppearanceChanged(context) }
     val omegaConfig = Config(context)
 
     private val onChangeMap: MutableMap<String, () -> Unit> = HashMap()
@@ -86,7 +88,7 @@ class OmegaPreferences(val context: Context) : SharedPreferences.OnSharedPrefere
     val showAllAppsLabel by BooleanPref("pref_showAllAppsLabel", false)
     var hiddenAppSet by StringSetPref("hidden-app-set", Collections.emptySet(), reloadApps)
     var hiddenPredictionAppSet by StringSetPref("pref_hidden_prediction_set", Collections.emptySet(), doNothing)
-    var allAppsIconScale by FloatPref("allAppsIconSize", 1f, reloadApps)
+    var allAppsIconScale by FloatPref("allAppsIconSize", 1f, updateIconScale)
     val drawerLabelColor by IntPref("pref_drawer_label_color", R.color.textColorPrimary, reloadApps)
     var allAppsGlobalSearch by BooleanPref("pref_allAppsGoogleSearch", true, doNothing)
     val allAppsSearch by BooleanPref("pref_allAppsSearch", true, recreate)
@@ -100,9 +102,9 @@ class OmegaPreferences(val context: Context) : SharedPreferences.OnSharedPrefere
     val drawerTabs get() = appGroupsManager.drawerTabs
     val appGroupsManager by lazy { AppGroupsManager(this) }
     val separateWorkApps by BooleanPref("pref_separateWorkApps", true, recreate)
-    val drawerBackgroundColor by IntPref("pref_drawer_background_color", R.color.white, recreate)
+    val drawerBackgroundColor by IntPref("pref_drawer_background_color", R.color.white, doNothing)
     val customBackground by BooleanPref("pref_enable_custom_background", false, doNothing)
-    val allAppsOpacity by AlphaPref("pref_allAppsOpacitySB", -1, recreate)
+    val allAppsOpacity by AlphaPref("pref_allAppsOpacitySB", -1, doNothing)
     private val drawerGridSizeDelegate = ResettableLazy { GridSize(this, "numColsDrawer", LauncherAppState.getIDP(context), recreate) }
     val drawerGridSize by drawerGridSizeDelegate
     private val predictionGridSizeDelegate = ResettableLazy { GridSize(this, "numPredictions", LauncherAppState.getIDP(context), recreate) }
@@ -112,7 +114,7 @@ class OmegaPreferences(val context: Context) : SharedPreferences.OnSharedPrefere
 
     /* --DESKTOP-- */
     var autoAddInstalled by BooleanPref("pref_add_icon_to_home", true, doNothing)
-    val desktopIconScale by FloatPref("pref_iconSize", 1f, recreate)
+    val desktopIconScale by FloatPref("pref_iconSize", 1f, updateIconScale)
     val desktopTextScale by FloatPref("pref_iconTextScale", 1f, reloadApps)
     private var gridSizeDelegate = ResettableLazy {
         GridSize2D(this, "numRows", "numColumns",
@@ -139,22 +141,22 @@ class OmegaPreferences(val context: Context) : SharedPreferences.OnSharedPrefere
 
     /* --DOCK-- */
     var dockHide by BooleanPref("pref_hideHotseat", false, restart)
-    val dockIconScale by FloatPref("hotseatIconSize", 1f, recreate)
+    val dockIconScale by FloatPref("hotseatIconSize", 1f, updateIconScale)
     var dockSearchBarPref by BooleanPref("pref_dock_search", true, restart)
     inline val dockSearchBar get() = !dockHide && dockSearchBarPref
     var dockScale by FloatPref("pref_dockScale", 1f, recreate)
-    val dockBackground by BooleanPref("pref_dockBackground", false, recreate)
+    val dockBackground by BooleanPref("pref_dockBackground", false, doNothing)
     inline val dockGradientStyle get() = !dockBackground
-    var dockOpacity by AlphaPref("pref_hotseatCustomOpacity", -1, recreate)
-    val dockBackgroundColor by IntPref("pref_dock_background_color", R.color.transparentish, recreate)
+    var dockOpacity by AlphaPref("pref_hotseatCustomOpacity", -1, doNothing)
+    val dockBackgroundColor by IntPref("pref_dock_background_color", R.color.transparentish, doNothing)
     private val dockGridSizeDelegate = ResettableLazy {
         GridSize(this, "numHotseatIcons", LauncherAppState.getIDP(context), recreate)
     }
     val dockGridSize by dockGridSizeDelegate
     val twoRowDock by BooleanPref("pref_twoRowDock", false, restart)
     val dockRowsCount get() = if (twoRowDock) 2 else 1
-    var dockRadius by FloatPref("pref_dockRadius", 16f, recreate)
-    var dockShadow by BooleanPref("pref_dockShadow", false, recreate)
+    var dockRadius by FloatPref("pref_dockRadius", 16f, doNothing)
+    var dockShadow by BooleanPref("pref_dockShadow", false, doNothing)
     var dockShowArrow by BooleanPref("pref_hotseatShowArrow", false, recreate)
     val dockShowPageIndicator by BooleanPref("pref_hotseatShowPageIndicator",
             true, { onChangeCallback?.updatePageIndicator() })
@@ -164,7 +166,7 @@ class OmegaPreferences(val context: Context) : SharedPreferences.OnSharedPrefere
 
     /* --THEME-- */
     var launcherTheme by StringIntPref("pref_launcherTheme", ThemeManager.getDefaultTheme()) { ThemeManager.getInstance(context).updateTheme() }
-    val accentColor by IntPref("pref_key__accent_color", R.color.colorAccent, recreate)
+    val accentColor by IntPref("pref_key__accent_color", R.color.colorAccent, updateThemeColors)
     var iconShape by StringPref("pref_iconShape", "", doNothing)
     val iconPackMasking by BooleanPref("pref_iconPackMasking", true, reloadIcons)
     private var iconPack by StringPref("pref_icon_pack", "", reloadIconPacks)
@@ -25,7 +25,7 @@ import com.saggitt.omega.blur.BlurWallpaperProvider
 
 class OmegaPreferencesChangeCallback(val launcher: OmegaLauncher) {
     fun recreate() {
-        if (launcher.shouldRecreate()) launcher.recreate()
+        if (launcher.shouldRecreate()) launcher.recreateWhenResumed()
     }
 
     fun reloadApps() {
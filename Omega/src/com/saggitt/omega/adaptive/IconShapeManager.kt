@@ -38,7 +38,7 @@ class IconShapeManager(private val context: Context) {
 
     private val systemIconShape = getSystemShape()
     var iconShape by context.omegaPrefs.StringBasedPref(
-            "pref_iconShape", systemIconShape, AdaptiveIconCompat::onShapeChanged,
+            "pref_iconShape", systemIconShape, ::onShapeChanged,
             {
                 IconShape.fromString(it) ?: systemIconShape
             }, IconShape::toString) { /* no dispose */ }
@@ -47,6 +47,12 @@ class IconShapeManager(private val context: Context) {
         migratePref()
     }
 
+    private fun onShapeChanged() {
+        AdaptiveIconCompat.onShapeChanged()
+        // A device profile created later already picks up the new shape
+        InvariantDeviceProfile.INSTANCE.noCreate?.onIconAppearanceChanged(context)
+    }
+
     @SuppressLint("RestrictedApi")
     private fun migratePref() {
         // Migrate from old path-based override
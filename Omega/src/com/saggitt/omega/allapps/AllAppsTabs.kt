@@ -17,15 +17,15 @@
 
 package com.saggitt.omega.allapps
 
-import android.content.ComponentName
 import android.content.Context
 import android.os.Process
-import com.android.launcher3.model.data.ItemInfo
 import com.android.launcher3.util.ComponentKey
+import com.android.launcher3.util.ComponentKeyMatcher
 import com.android.launcher3.util.ItemInfoMatcher
 import com.saggitt.omega.groups.DrawerTabs
 import com.saggitt.omega.groups.FlowerpotTabs
 import com.saggitt.omega.util.omegaPrefs
+import java.util.WeakHashMap
 
 class AllAppsTabs(private val context: Context) : Iterable<AllAppsTabs.Tab> {
 
@@ -40,44 +40,54 @@ class AllAppsTabs(private val context: Context) : Iterable<AllAppsTabs.Tab> {
             }
         }
 
-    private val addedApps = ArrayList<ComponentKey>()
+    // The matcher of each tab along with its apps, kept for as long as the apps don't change so
+    // that the lists don't need to match all the apps again
+    private val matchers = WeakHashMap<DrawerTabs.Tab, Pair<Set<ComponentKey>, ItemInfoMatcher>>()
 
     init {
         reloadTabs()
     }
 
     fun reloadTabs() {
-        addedApps.clear()
         tabs.clear()
-        context.omegaPrefs.currentTabsModel.getGroups().mapNotNullTo(tabs) {
+        val groups = context.omegaPrefs.currentTabsModel.getGroups()
+
+        // The apps shown in their own tabs, hidden from the profile tabs
+        val addedApps = HashSet<ComponentKey>()
+        groups.forEach {
+            when {
+                it is DrawerTabs.CustomTab && it.hideFromAllApps.value() ->
+                    addedApps.addAll(it.contents.value())
+                it is FlowerpotTabs.FlowerpotTab -> addedApps.addAll(it.getMatches())
+            }
+        }
+
+        groups.mapNotNullTo(tabs) {
             when {
                 it is DrawerTabs.ProfileTab -> {
                     if (hasWorkApps != it.profile.matchesAll) {
-                        ProfileTab(createMatcher(addedApps, it.profile.matcher), it)
+                        ProfileTab(getMatcher(it, addedApps, true, it.profile.matcher), it)
                     } else null
                 }
                 it is DrawerTabs.CustomTab -> {
-                    if (it.hideFromAllApps.value()) {
-                        addedApps.addAll(it.contents.value())
-                    }
-                    Tab(it.getTitle(), it.getFilter(context).matcher, drawerTab = it)
+                    Tab(it.getTitle(), getMatcher(it, it.contents.value(), false), drawerTab = it)
                 }
                 it is FlowerpotTabs.FlowerpotTab && it.getMatches().isNotEmpty() -> {
-                    addedApps.addAll(it.getMatches())
-                    Tab(it.getTitle(), it.getFilter(context).matcher, drawerTab = it)
+                    Tab(it.getTitle(), getMatcher(it, it.getMatches(), false), drawerTab = it)
                 }
                 else -> null
             }
         }
     }
 
-    private fun createMatcher(components: List<ComponentKey>, base: ItemInfoMatcher? = null): ItemInfoMatcher {
-        return object : ItemInfoMatcher {
-            override fun matches(info: ItemInfo, cn: ComponentName?): Boolean {
-                if (base?.matches(info, cn) == false) return false
-                return !components.contains(ComponentKey(info.targetComponent, info.user))
-            }
+    private fun getMatcher(tab: DrawerTabs.Tab, components: Set<ComponentKey>, exclude: Boolean,
+                           base: ItemInfoMatcher? = null): ItemInfoMatcher {
+        val cached = matchers[tab]
+        if (cached != null && cached.first == components) {
+            return cached.second
         }
+        val keys = HashSet(components)
+        return ComponentKeyMatcher(keys, exclude, base).also { matchers[tab] = keys to it }
     }
 
     override fun iterator(): Iterator<Tab> {
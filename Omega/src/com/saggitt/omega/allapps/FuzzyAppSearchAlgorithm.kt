@@ -92,7 +92,7 @@ class FuzzyAppSearchAlgorithm(private val context: Context, private val apps: Li
                     ToStringFunction<AppInfo> { item ->
                         item?.title.toString()
                     }, WinklerWeightedRatio(), MIN_SCORE)
-                    .sortedBy { it.referent.title.toString() }
+                    .sortedBy { it.referent.labelKey }
                     .sortedByDescending { it.score }
                     .map { it.referent }
         }
@@ -0,0 +1,122 @@
+/*
+ *  This file is part of Omega Launcher.
+ *  Copyright (c) 2021   Saul Henriquez
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.saggitt.omega.backup
+
+import org.json.JSONArray
+import org.json.JSONObject
+
+/**
+ * Index of a backup, written as its first entry so that the meta and previews can be read
+ * without going through the whole archive.
+ *
+ * Every backed up file is stored under [DATA_DIR], along with its size and checksum before
+ * compression, which are checked when restoring and used to skip unchanged files.
+ */
+class BackupManifest(
+        val meta: OmegaBackup.Meta,
+        val files: List<FileRecord>,
+        val previews: List<String>) {
+
+    fun getFile(entryName: String) = files.firstOrNull { it.entryName == entryName }
+
+    override fun toString(): String {
+        val filesArr = JSONArray()
+        files.forEach { filesArr.put(it.toJson()) }
+        return JSONObject()
+                .put(KEY_VERSION, VERSION)
+                .put(KEY_META, JSONArray(meta.toString()))
+                .put(KEY_FILES, filesArr)
+                .put(KEY_PREVIEWS, JSONArray(previews))
+                .toString()
+    }
+
+    /**
+     * @param name       name of the file on the device
+     * @param size       size of the file before compression
+     * @param sha256     checksum of the file before compression
+     * @param compressed whether the entry holds the deflated file or the file as is
+     * @param blobSize   size of the entry in the archive
+     * @param blobCrc    CRC32 of the entry in the archive
+     */
+    data class FileRecord(
+            val name: String,
+            val size: Long,
+            val sha256: String,
+            val compressed: Boolean,
+            val blobSize: Long,
+            val blobCrc: Long) {
+
+        val entryName get() = DATA_DIR + name
+
+        fun toJson(): JSONObject = JSONObject()
+                .put(KEY_NAME, name)
+                .put(KEY_SIZE, size)
+                .put(KEY_SHA256, sha256)
+                .put(KEY_COMPRESSED, compressed)
+                .put(KEY_BLOB_SIZE, blobSize)
+                .put(KEY_BLOB_CRC, blobCrc)
+
+        companion object {
+
+            fun fromJson(obj: JSONObject) = FileRecord(
+                    name = obj.getString(KEY_NAME),
+                    size = obj.getLong(KEY_SIZE),
+                    sha256 = obj.getString(KEY_SHA256),
+                    compressed = obj.getBoolean(KEY_COMPRESSED),
+                    blobSize = obj.getLong(KEY_BLOB_SIZE),
+                    blobCrc = obj.getLong(KEY_BLOB_CRC)
+            )
+        }
+    }
+
+    companion object {
+
+        const val VERSION = 2
+
+        const val FILE_NAME = "manifest.json"
+
+        // Older versions restore the entries named after the files, so keep the new entries
+        // out of their way
+        const val DATA_DIR = "data/"
+
+        private const val KEY_VERSION = "version"
+        private const val KEY_META = "meta"
+        private const val KEY_FILES = "files"
+        private const val KEY_PREVIEWS = "previews"
+        private const val KEY_NAME = "name"
+        private const val KEY_SIZE = "size"
+        private const val KEY_SHA256 = "sha256"
+        private const val KEY_COMPRESSED = "compressed"
+        private const val KEY_BLOB_SIZE = "blobSize"
+        private const val KEY_BLOB_CRC = "blobCrc"
+
+        fun fromString(string: String): BackupManifest {
+            val obj = JSONObject(string)
+            val filesArr = obj.getJSONArray(KEY_FILES)
+            val previewsArr = obj.getJSONArray(KEY_PREVIEWS)
+            return BackupManifest(
+                    meta = OmegaBackup.Meta.fromString(obj.getJSONArray(KEY_META).toString()),
+                    files = (0 until filesArr.length()).map {
+                        FileRecord.fromJson(filesArr.getJSONObject(it))
+                    },
+                    previews = (0 until previewsArr.length()).map { previewsArr.getString(it) }
+            )
+        }
+    }
+}
@@ -8,67 +8,76 @@ import android.graphics.Bitmap
 import android.graphics.BitmapFactory
 import android.net.Uri
 import android.os.AsyncTask
+import android.os.ParcelFileDescriptor
 import android.util.Log
 import androidx.core.content.FileProvider
 import com.android.launcher3.BuildConfig
 import com.android.launcher3.LauncherFiles
 import com.android.launcher3.Utilities
+import com.android.launcher3.util.Executors.THREAD_POOL_EXECUTOR
 import org.json.JSONArray
 import java.io.*
 import java.nio.charset.StandardCharsets
+import java.security.DigestInputStream
+import java.security.MessageDigest
 import java.text.SimpleDateFormat
 import java.util.*
-import java.util.zip.ZipEntry
-import java.util.zip.ZipInputStream
-import java.util.zip.ZipOutputStream
+import java.util.concurrent.Callable
+import java.util.concurrent.Future
+import java.util.zip.*
 
 class OmegaBackup(val context: Context, val uri: Uri) {
 
     val mContext: Context = context
-    val meta by lazy { readMeta() }
+    private val manifest by lazy { readManifest() }
+    val meta by lazy { manifest?.meta ?: readLegacyMeta() }
 
-    private fun readMeta(): Meta? {
-        try {
-            val pfd = mContext.contentResolver.openFileDescriptor(uri, "r")
-            val inStream = FileInputStream(pfd?.fileDescriptor)
-            val zipIs = ZipInputStream(inStream)
-            var entry: ZipEntry?
+    private fun openZip() = openZip(mContext, uri)
+
+    private fun readManifest(): BackupManifest? {
+        return readZip { zipIs ->
+            // The manifest is always the first entry, older backups don't have one
+            val entry = zipIs.nextEntry
+            if (entry?.name == BackupManifest.FILE_NAME) {
+                BackupManifest.fromString(String(zipIs.readBytes(), StandardCharsets.UTF_8))
+            } else {
+                null
+            }
+        }
+    }
+
+    private fun readLegacyMeta(): Meta? {
+        return readZip { zipIs ->
             var meta: Meta? = null
-            try {
-                while (true) {
-                    entry = zipIs.nextEntry
-                    if (entry == null) break
-                    if (entry.name != Meta.FILE_NAME) continue
-                    meta = Meta.fromString(String(zipIs.readBytes(), StandardCharsets.UTF_8))
-                    break
-                }
-            } catch (t: Throwable) {
-                Log.e(TAG, "Unable to read meta for $uri", t)
-            } finally {
-                zipIs.close()
-                inStream.close()
-                pfd?.close()
-                return meta
+            while (true) {
+                val entry = zipIs.nextEntry ?: break
+                if (entry.name != Meta.FILE_NAME) continue
+                meta = Meta.fromString(String(zipIs.readBytes(), StandardCharsets.UTF_8))
+                break
             }
-        } catch (t: Throwable) {
-            Log.e(TAG, "Unable to read meta for $uri", t)
-            return null
+            meta
         }
     }
 
     private fun readPreview(): Pair<Bitmap?, Bitmap?>? {
-        var entry: ZipEntry?
+        val manifest = manifest
+        if (manifest != null && manifest.previews.isEmpty()) return null
         var screenshot: Bitmap? = null
         var wallpaper: Bitmap? = null
         readZip { zipIs ->
-            while (true) {
-                entry = zipIs.nextEntry
-                if (entry == null) break
-                if (entry!!.name == "screenshot.png") {
+            // Previews follow the manifest, so stop as soon as all of them are read
+            var remaining = manifest?.previews?.size ?: Int.MAX_VALUE
+            while (remaining > 0) {
+                val entry = zipIs.nextEntry ?: break
+                if (entry.name == SCREENSHOT_FILE_NAME) {
                     screenshot = BitmapFactory.decodeStream(zipIs)
-                } else if (entry!!.name == WALLPAPER_FILE_NAME) {
+                } else if (entry.name == WALLPAPER_FILE_NAME
+                        || entry.name == WALLPAPER_PREVIEW_FILE_NAME) {
                     wallpaper = BitmapFactory.decodeStream(zipIs)
+                } else {
+                    continue
                 }
+                remaining--
             }
         }
         if (screenshot == wallpaper) return null // both are null
@@ -76,80 +85,101 @@ class OmegaBackup(val context: Context, val uri: Uri) {
                 Utilities.getScaledDownBitmap(wallpaper, 1000, false))
     }
 
-    private inline fun readZip(body: (ZipInputStream) -> Unit) {
-        try {
-            val pfd = mContext.contentResolver.openFileDescriptor(uri, "r")
-            val inStream = FileInputStream(pfd?.fileDescriptor)
-            val zipIs = ZipInputStream(inStream)
-            try {
-                body(zipIs)
-            } catch (t: Throwable) {
-                Log.e(TAG, "Unable to read zip for $uri", t)
-            } finally {
-                zipIs.close()
-                inStream.close()
-                pfd?.close()
-            }
+    private inline fun <T> readZip(body: (ZipInputStream) -> T): T? {
+        return try {
+            openZip().use(body)
         } catch (t: Throwable) {
             Log.e(TAG, "Unable to read zip for $uri", t)
+            null
         }
     }
 
     fun restore(contents: Int): Boolean {
+        val manifest = manifest ?: return restoreLegacy(contents)
+        val targets = getBackupFiles(mContext).associateBy { it.first.name }
+        // Files are extracted next to their target and only moved in place once everything has
+        // been checked, so that a broken backup leaves the current setup untouched
+        val staged = ArrayList<Pair<File, File>>()
+        var wallpaperFile: File? = null
         try {
-            val contextWrapper = ContextWrapper(mContext)
-            val dbFile = contextWrapper.getDatabasePath(LauncherFiles.LAUNCHER_DB)
-            val dbFile2 = contextWrapper.getDatabasePath(LauncherFiles.LAUNCHER_DB2)
-            val dir = contextWrapper.cacheDir.parent
-            val settingsFile = File(dir, "shared_prefs/" + LauncherFiles.SHARED_PREFERENCES_KEY + ".xml")
-
-            val pfd = mContext.contentResolver.openFileDescriptor(uri, "r")
-            val inStream = FileInputStream(pfd?.fileDescriptor)
-            val zipIs = ZipInputStream(inStream)
-            val data = ByteArray(BUFFER)
-            var entry: ZipEntry?
-            var success = false
-            try {
+            openZip().use { zipIs ->
                 while (true) {
-                    entry = zipIs.nextEntry
-                    if (entry == null) break
-                    Log.d(TAG, "Found entry ${entry.name}")
-                    val file = if (entry.name == dbFile.name) {
-                        if (contents and INCLUDE_HOMESCREEN == 0) continue
-                        dbFile
-                    } else if (entry.name == dbFile2.name) {
-                        if (contents and INCLUDE_HOMESCREEN == 0) continue
-                        dbFile2
-                    } else if (entry.name == settingsFile.name) {
-                        if (contents and INCLUDE_SETTINGS == 0) continue
-                        settingsFile
-                    } else if (entry.name == WALLPAPER_FILE_NAME) {
+                    val entry = zipIs.nextEntry ?: break
+                    val record = manifest.getFile(entry.name) ?: continue
+                    if (record.name == WALLPAPER_FILE_NAME) {
                         if (contents and INCLUDE_WALLPAPER == 0) continue
-                        val wallpaperManager = WallpaperManager.getInstance(mContext)
-                        wallpaperManager.setBitmap(BitmapFactory.decodeStream(zipIs))
+                        val temp = File(mContext.cacheDir, record.name + TEMP_SUFFIX)
+                        wallpaperFile = temp
+                        extract(zipIs, record, temp)
                         continue
-                    } else {
+                    }
+                    val (file, flag) = targets[record.name] ?: continue
+                    if (contents and flag == 0) continue
+                    if (file.exists() && file.length() == record.size
+                            && digest(file) == record.sha256) {
+                        Log.d(TAG, "Skipping unchanged ${record.name}")
                         continue
                     }
-                    val out = FileOutputStream(file)
-                    Log.d(TAG, "Restoring ${entry.name} to ${file.absolutePath}")
-                    var count: Int
-                    while (true) {
-                        count = zipIs.read(data, 0, BUFFER)
-                        if (count == -1) break
-                        out.write(data, 0, count)
+                    val temp = File(file.parentFile, file.name + TEMP_SUFFIX)
+                    staged.add(Pair(temp, file))
+                    Log.d(TAG, "Restoring ${record.name} to ${file.absolutePath}")
+                    extract(zipIs, record, temp)
+                }
+            }
+            staged.forEach { (temp, file) ->
+                if (!temp.renameTo(file)) throw IOException("Unable to replace $file")
+            }
+            wallpaperFile?.let { file ->
+                FileInputStream(file).use { WallpaperManager.getInstance(mContext).setStream(it) }
+            }
+            return true
+        } catch (t: Throwable) {
+            Log.e(TAG, "Failed to restore $uri", t)
+            return false
+        } finally {
+            staged.forEach { it.first.delete() }
+            wallpaperFile?.delete()
+        }
+    }
+
+    /**
+     * Streams the entry described by [record] to [target], and checks that it matches the
+     * checksum of the original file.
+     */
+    private fun extract(zipIs: ZipInputStream, record: BackupManifest.FileRecord, target: File) {
+        val digest = MessageDigest.getInstance(DIGEST_ALGORITHM)
+        val inflater = if (record.compressed) Inflater() else null
+        try {
+            val source = if (inflater != null) InflaterInputStream(zipIs, inflater, BUFFER) else zipIs
+            val input = DigestInputStream(source, digest)
+            val size = FileOutputStream(target).use { input.copyTo(it, BUFFER) }
+            if (size != record.size || toHex(digest.digest()) != record.sha256) {
+                throw IOException("Checksum mismatch for ${record.name}")
+            }
+        } finally {
+            inflater?.end()
+        }
+    }
+
+    private fun restoreLegacy(contents: Int): Boolean {
+        try {
+            openZip().use { zipIs ->
+                val targets = getBackupFiles(mContext).associateBy { it.first.name }
+                while (true) {
+                    val entry = zipIs.nextEntry ?: break
+                    Log.d(TAG, "Found entry ${entry.name}")
+                    if (entry.name == WALLPAPER_FILE_NAME) {
+                        if (contents and INCLUDE_WALLPAPER == 0) continue
+                        WallpaperManager.getInstance(mContext).setStream(zipIs)
+                        continue
                     }
-                    out.close()
+                    val (file, flag) = targets[entry.name] ?: continue
+                    if (contents and flag == 0) continue
+                    Log.d(TAG, "Restoring ${entry.name} to ${file.absolutePath}")
+                    FileOutputStream(file).use { zipIs.copyTo(it, BUFFER) }
                 }
-                success = true
-            } catch (t: Throwable) {
-                Log.e(TAG, "Failed to restore $uri", t)
-            } finally {
-                zipIs.close()
-                inStream.close()
-                pfd?.close()
-                return success
             }
+            return true
         } catch (t: Throwable) {
             Log.e(TAG, "Failed to restore $uri", t)
             return false
@@ -250,15 +280,22 @@ class OmegaBackup(val context: Context, val uri: Uri) {
         const val INCLUDE_SETTINGS = 1 shl 1
         const val INCLUDE_WALLPAPER = 1 shl 2
 
-        const val BUFFER = 2018
+        const val BUFFER = 64 * 1024
 
         const val EXTENSION = "zbk"
         const val MIME_TYPE = "application/vnd.omega.backup"
         val EXTRA_MIME_TYPES = arrayOf(MIME_TYPE, "application/x-zip", "application/octet-stream")
 
         const val WALLPAPER_FILE_NAME = "wallpaper.png"
+        const val WALLPAPER_PREVIEW_FILE_NAME = "wallpaper_preview.png"
+        const val SCREENSHOT_FILE_NAME = "screenshot.png"
         val timestampFormat = SimpleDateFormat("dd-MM-yyyy HH:mm:ss", Locale.US)
 
+        private const val PREVIEW_SIZE = 1000
+        private const val DIGEST_ALGORITHM = "SHA-256"
+        private const val TEMP_SUFFIX = ".tmp"
+        private const val WORK_DIR = "backup"
+
         fun getFolder(context: Context): File {
             val folder = File(context.getExternalFilesDir(null),
                     "backup")
@@ -277,6 +314,26 @@ class OmegaBackup(val context: Context, val uri: Uri) {
                     ?: Collections.emptyList()
         }
 
+        private fun openZip(context: Context, uri: Uri): ZipInputStream {
+            val pfd = context.contentResolver.openFileDescriptor(uri, "r")
+                    ?: throw FileNotFoundException("Unable to open $uri")
+            return ZipInputStream(BufferedInputStream(
+                    ParcelFileDescriptor.AutoCloseInputStream(pfd), BUFFER))
+        }
+
+        /**
+         * Files which can be backed up, along with the content flag they belong to
+         */
+        private fun getBackupFiles(context: Context): List<Pair<File, Int>> {
+            val contextWrapper = ContextWrapper(context)
+            val dir = contextWrapper.cacheDir.parent
+            return listOf(
+                    Pair(contextWrapper.getDatabasePath(LauncherFiles.LAUNCHER_DB), INCLUDE_HOMESCREEN),
+                    Pair(contextWrapper.getDatabasePath(LauncherFiles.LAUNCHER_DB2), INCLUDE_HOMESCREEN),
+                    Pair(File(dir, "shared_prefs/" + LauncherFiles.SHARED_PREFERENCES_KEY + ".xml"),
+                            INCLUDE_SETTINGS))
+        }
+
         private fun prepareConfig(context: Context) {
             Utilities.getOmegaPrefs(context).blockingEdit {
                 restoreSuccess = true
@@ -291,63 +348,176 @@ class OmegaBackup(val context: Context, val uri: Uri) {
             }
         }
 
+        /**
+         * Creates a backup at [location].
+         *
+         * Files are checksummed and compressed in parallel before being written. Files which did
+         * not change since the latest local backup are copied from it as they are instead.
+         */
         fun create(context: Context, name: String, location: Uri, contents: Int): Boolean {
-            val contextWrapper = ContextWrapper(context)
-            val files: MutableList<File> = ArrayList()
-            if (contents or INCLUDE_HOMESCREEN != 0) {
-                files.add(contextWrapper.getDatabasePath(LauncherFiles.LAUNCHER_DB))
-                files.add(contextWrapper.getDatabasePath(LauncherFiles.LAUNCHER_DB2))
-            }
-            if (contents or INCLUDE_SETTINGS != 0) {
-                val dir = contextWrapper.cacheDir.parent
-                files.add(File(dir, "shared_prefs/" + LauncherFiles.SHARED_PREFERENCES_KEY + ".xml"))
-            }
+            val files = getBackupFiles(context)
+                    .filter { (file, flag) -> contents and flag != 0 && file.exists() }
+                    .map { it.first }
+            val previous = listLocalBackups(context).firstOrNull { it.manifest != null }
+            val previousManifest = previous?.manifest
 
             val devOptionsEnabled = Utilities.getOmegaPrefs(context).developerOptionsEnabled
             prepareConfig(context)
-            val pfd = context.contentResolver.openFileDescriptor(location, "w")
-            val outStream = FileOutputStream(pfd?.fileDescriptor)
-            val out = ZipOutputStream(BufferedOutputStream(outStream))
-            val data = ByteArray(BUFFER)
-            var success = false
+            val workDir = File(context.cacheDir, WORK_DIR)
+            workDir.deleteRecursively()
+            workDir.mkdirs()
+            val tasks = ArrayList<Future<PreparedFile?>>()
             try {
-                val metaEntry = ZipEntry(Meta.FILE_NAME)
-                out.putNextEntry(metaEntry)
-                out.write(getMeta(name, contents).toString().toByteArray())
-                if (contents or INCLUDE_WALLPAPER != 0) {
-                    val wallpaperManager = WallpaperManager.getInstance(context)
-                    val wallpaperDrawable = wallpaperManager.drawable
-                    val wallpaperBitmap = Utilities.drawableToBitmap(wallpaperDrawable)
-                    if (wallpaperBitmap != null) {
-                        val wallpaperEntry = ZipEntry(WALLPAPER_FILE_NAME)
-                        out.putNextEntry(wallpaperEntry)
-                        wallpaperBitmap.compress(Bitmap.CompressFormat.PNG, 100, out)
-                    }
-                }
+                // The settings have to be read once the config is prepared
                 files.forEach { file ->
-                    val input = BufferedInputStream(FileInputStream(file), BUFFER)
-                    val entry = ZipEntry(file.name)
-                    out.putNextEntry(entry)
-                    var count: Int
-                    while (true) {
-                        count = input.read(data, 0, BUFFER)
-                        if (count == -1) break
-                        out.write(data, 0, count)
+                    tasks.add(THREAD_POOL_EXECUTOR.submit(Callable<PreparedFile?> {
+                        prepareFile(file, file.name, true, workDir, previousManifest)
+                    }))
+                }
+                if (contents and INCLUDE_WALLPAPER != 0) {
+                    tasks.add(THREAD_POOL_EXECUTOR.submit(Callable<PreparedFile?> {
+                        prepareWallpaper(context, workDir, previousManifest)
+                    }))
+                }
+                val prepared = tasks.mapNotNull { it.get() }
+                val previewFile = File(workDir, WALLPAPER_PREVIEW_FILE_NAME)
+                val previews = if (previewFile.exists()) listOf(previewFile.name) else emptyList()
+                val manifest = BackupManifest(getMeta(name, contents),
+                        prepared.map { it.record }, previews)
+
+                val pfd = context.contentResolver.openFileDescriptor(location, "w")
+                        ?: throw FileNotFoundException("Unable to open $location")
+                ZipOutputStream(BufferedOutputStream(
+                        ParcelFileDescriptor.AutoCloseOutputStream(pfd), BUFFER)).use { out ->
+                    out.putNextEntry(ZipEntry(BackupManifest.FILE_NAME))
+                    out.write(manifest.toString().toByteArray())
+                    previews.forEach { preview ->
+                        out.putNextEntry(ZipEntry(preview))
+                        FileInputStream(File(workDir, preview)).use { it.copyTo(out, BUFFER) }
+                    }
+                    val reused = prepared.filter { it.blob == null }.map { it.record }
+                    if (reused.isNotEmpty()) {
+                        copyEntries(out, openZip(context, previous!!.uri), reused)
+                    }
+                    prepared.forEach { (record, blob) ->
+                        if (blob != null) {
+                            FileInputStream(blob).use { writeStoredEntry(out, record, it) }
+                        }
                     }
-                    input.close()
                 }
-                success = true
+                return true
             } catch (t: Throwable) {
                 Log.e(TAG, "Failed to create backup", t)
+                return false
             } finally {
-                out.close()
-                outStream.close()
-                pfd?.close()
+                tasks.forEach { it.cancel(true) }
+                workDir.deleteRecursively()
                 cleanupConfig(context, devOptionsEnabled)
-                return success
             }
         }
 
+        /**
+         * Checksums [file] and compresses it into [workDir]. Returns a result without any blob
+         * if the file matches the one in [previous].
+         */
+        private fun prepareFile(file: File, name: String, compress: Boolean, workDir: File,
+                                previous: BackupManifest?): PreparedFile {
+            val previousRecord = previous?.getFile(BackupManifest.DATA_DIR + name)
+            if (previousRecord != null && previousRecord.compressed == compress
+                    && previousRecord.size == file.length()
+                    && previousRecord.sha256 == digest(file)) {
+                return PreparedFile(previousRecord, null)
+            }
+
+            val digest = MessageDigest.getInstance(DIGEST_ALGORITHM)
+            val crc = CRC32()
+            val blob: File
+            val size: Long
+            val input = DigestInputStream(BufferedInputStream(FileInputStream(file), BUFFER), digest)
+            if (compress) {
+                blob = File(workDir, name + TEMP_SUFFIX)
+                val deflater = Deflater()
+                size = try {
+                    val out = CheckedOutputStream(FileOutputStream(blob), crc)
+                    input.use { DeflaterOutputStream(out, deflater, BUFFER).use { input.copyTo(it, BUFFER) } }
+                } finally {
+                    deflater.end()
+                }
+            } else {
+                // Already compressed, store it as it is
+                blob = file
+                size = input.use { CheckedInputStream(it, crc).copyTo(NullOutputStream, BUFFER) }
+            }
+            val record = BackupManifest.FileRecord(
+                    name = name,
+                    size = size,
+                    sha256 = toHex(digest.digest()),
+                    compressed = compress,
+                    blobSize = blob.length(),
+                    blobCrc = crc.value)
+            return PreparedFile(record, blob)
+        }
+
+        private fun prepareWallpaper(context: Context, workDir: File,
+                                     previous: BackupManifest?): PreparedFile? {
+            val wallpaperManager = WallpaperManager.getInstance(context)
+            val wallpaperBitmap = Utilities.drawableToBitmap(wallpaperManager.drawable)
+                    ?: return null
+            val wallpaperFile = File(workDir, WALLPAPER_FILE_NAME)
+            FileOutputStream(wallpaperFile).use {
+                wallpaperBitmap.compress(Bitmap.CompressFormat.PNG, 100, it)
+            }
+            val preview = Utilities.getScaledDownBitmap(wallpaperBitmap, PREVIEW_SIZE, true)
+            FileOutputStream(File(workDir, WALLPAPER_PREVIEW_FILE_NAME)).use {
+                preview.compress(Bitmap.CompressFormat.PNG, 100, it)
+            }
+            return prepareFile(wallpaperFile, WALLPAPER_FILE_NAME, false, workDir, previous)
+        }
+
+        /**
+         * Copies the entries of [records] from [source] without decompressing them
+         */
+        private fun copyEntries(out: ZipOutputStream, source: ZipInputStream,
+                                records: List<BackupManifest.FileRecord>) {
+            val remaining = records.associateByTo(HashMap()) { it.entryName }
+            source.use { zipIs ->
+                while (remaining.isNotEmpty()) {
+                    val entry = zipIs.nextEntry ?: break
+                    val record = remaining.remove(entry.name) ?: continue
+                    writeStoredEntry(out, record, zipIs)
+                }
+            }
+            if (remaining.isNotEmpty()) {
+                throw IOException("Missing entries in previous backup: ${remaining.keys}")
+            }
+        }
+
+        private fun writeStoredEntry(out: ZipOutputStream, record: BackupManifest.FileRecord,
+                                     input: InputStream) {
+            val entry = ZipEntry(record.entryName)
+            entry.method = ZipEntry.STORED
+            entry.size = record.blobSize
+            entry.compressedSize = record.blobSize
+            entry.crc = record.blobCrc
+            out.putNextEntry(entry)
+            input.copyTo(out, BUFFER)
+            out.closeEntry()
+        }
+
+        private fun digest(file: File): String {
+            val digest = MessageDigest.getInstance(DIGEST_ALGORITHM)
+            DigestInputStream(FileInputStream(file), digest).use {
+                it.copyTo(NullOutputStream, BUFFER)
+            }
+            return toHex(digest.digest())
+        }
+
+        private fun toHex(bytes: ByteArray): String {
+            val sb = StringBuilder(bytes.size * 2)
+            bytes.forEach { sb.append(String.format("%02x", it)) }
+            return sb.toString()
+        }
+
         private fun getMeta(name: String, contents: Int) = Meta(
                 name = name,
                 contents = contents,
@@ -359,4 +529,13 @@ class OmegaBackup(val context: Context, val uri: Uri) {
             return simpleDateFormat.format(Date())
         }
     }
+
+    private data class PreparedFile(val record: BackupManifest.FileRecord, val blob: File?)
+
+    private object NullOutputStream : OutputStream() {
+
+        override fun write(b: Int) = Unit
+
+        override fun write(b: ByteArray, off: Int, len: Int) = Unit
+    }
 }
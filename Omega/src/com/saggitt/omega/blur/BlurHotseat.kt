@@ -48,7 +48,7 @@ class BlurHotseat @JvmOverloads constructor(
     private val launcher = Launcher.getLauncher(context)
     private val prefs = context.omegaPrefs
     private val prefsToWatch = arrayOf("pref_dockBackground", "pref_dockRadius", "pref_dockShadow",
-            "pref_hotseatCustomOpacity")
+            "pref_hotseatCustomOpacity", "pref_dock_background_color")
 
     private val paint = Paint(Paint.ANTI_ALIAS_FLAG)
     private val shadowBlur = resources.getDimension(R.dimen.all_apps_scrim_blur)
@@ -179,6 +179,7 @@ class BlurHotseat @JvmOverloads constructor(
 
     private fun reloadPrefs() {
         bgEnabled = prefs.dockBackground
+        noAlphaBgColor = prefs.dockBackgroundColor
         radius = dpToPx(prefs.dockRadius)
         shadow = prefs.dockShadow
         bgAlpha = (prefs.dockOpacity.takeIf { it >= 0 }
@@ -19,17 +19,12 @@ package com.saggitt.omega.gestures
 
 import android.content.Context
 import android.graphics.PointF
-import android.text.TextUtils
-import android.util.Log
 import android.view.GestureDetector
 import android.view.MotionEvent
 import com.android.launcher3.util.TouchController
 import com.saggitt.omega.OmegaLauncher
 import com.saggitt.omega.gestures.gestures.*
-import com.saggitt.omega.gestures.handlers.*
 import com.saggitt.omega.util.omegaPrefs
-import org.json.JSONException
-import org.json.JSONObject
 
 class GestureController(val launcher: OmegaLauncher) : TouchController {
 
@@ -90,74 +85,26 @@ class GestureController(val launcher: OmegaLauncher) : TouchController {
         return null
     }
 
+    private val handlerCache = GestureHandlerCache(launcher, blankGestureHandler)
+
     fun createHandlerPref(key: String, defaultValue: GestureHandler = blankGestureHandler) = prefs.StringBasedPref(
-            key, defaultValue, prefs.doNothing, ::createGestureHandler, GestureHandler::toString, GestureHandler::onDestroy)
+            key, defaultValue, prefs.doNothing, handlerCache::get, GestureHandler::toString, ::disposeGestureHandler)
 
-    private fun createGestureHandler(jsonString: String) = createGestureHandler(launcher, jsonString, blankGestureHandler)
+    private fun disposeGestureHandler(handler: GestureHandler) {
+        // Cached handlers may still be used by other gestures
+        if (handler !in handlerCache) {
+            handler.onDestroy()
+        }
+    }
 
     companion object {
 
-        private const val TAG = "GestureController"
-        private val LEGACY_SLEEP_HANDLERS = listOf(
-                "com.saggitt.omega.gestures.handlers.SleepGestureHandlerDeviceAdmin",
-                "com.saggitt.omega.gestures.handlers.SleepGestureHandlerAccessibility")
-
-        fun createGestureHandler(context: Context, jsonString: String?, fallback: GestureHandler): GestureHandler {
-            if (!TextUtils.isEmpty(jsonString)) {
-                val config: JSONObject? = try {
-                    JSONObject(jsonString)
-                } catch (e: JSONException) {
-                    null
-                }
-                var className = config?.getString("class") ?: jsonString
-                if (className in LEGACY_SLEEP_HANDLERS) {
-                    className = SleepGestureHandler::class.java.name
-                }
-                val configValue = if (config?.has("config") == true) config.getJSONObject("config") else null
-                try {
-                    val handler = Class.forName(className).getConstructor(Context::class.java, JSONObject::class.java)
-                            .newInstance(context, configValue) as GestureHandler
-                    if (handler.isAvailable) return handler
-                } catch (t: Throwable) {
-                    Log.e(TAG, "can't create gesture handler", t)
-                }
-            }
-            return fallback
-        }
+        fun createGestureHandler(context: Context, jsonString: String?, fallback: GestureHandler) =
+                GestureHandlerRegistry.createGestureHandler(context, jsonString, fallback)
 
-        fun getClassName(jsonString: String): String {
-            val config: JSONObject? = try {
-                JSONObject(jsonString)
-            } catch (e: JSONException) {
-                null
-            }
-            val className = config?.getString("class") ?: jsonString
-            return if (className in LEGACY_SLEEP_HANDLERS) {
-                SleepGestureHandler::class.java.name
-            } else {
-                className
-            }
-        }
+        fun getClassName(jsonString: String) = GestureHandlerRegistry.getClassName(jsonString)
 
-        fun getGestureHandlers(context: Context, isSwipeUp: Boolean, hasBlank: Boolean) = mutableListOf(
-            PressBackGestureHandler(context, null),
-            SleepGestureHandler(context, null),
-            SleepGestureHandlerTimeout(context, null),
-            OpenDashGestureHandler(context, null),
-            OpenDrawerGestureHandler(context, null),
-            OpenWidgetsGestureHandler(context, null),
-            NotificationsOpenGestureHandler(context, null),
-            OpenOverlayGestureHandler(context, null),
-            OpenOverviewGestureHandler(context, null),
-            StartGlobalSearchGestureHandler(context, null),
-            StartAppSearchGestureHandler(context, null),
-            StartAppGestureHandler(context, null),
-            OpenSettingsGestureHandler(context, null),
-            OpenRecentsGestureHandler(context, null)
-        ).apply {
-            if (hasBlank) {
-                add(0, BlankGestureHandler(context, null))
-            }
-        }.filter { it.isAvailableForSwipeUp(isSwipeUp) }
+        fun getGestureHandlers(context: Context, isSwipeUp: Boolean, hasBlank: Boolean) =
+                GestureHandlerRegistry.getGestureHandlers(context, isSwipeUp, hasBlank)
     }
 }
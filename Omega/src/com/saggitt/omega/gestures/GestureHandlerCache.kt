@@ -0,0 +1,41 @@
+/*
+ *  This file is part of Omega Launcher.
+ *  Copyright (c) 2021   Saul Henriquez
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.saggitt.omega.gestures
+
+import android.content.Context
+import android.util.ArrayMap
+
+/**
+ * Keeps the gesture handlers created for each pref value, so that a value is only parsed once.
+ *
+ * Handlers are shared by all the gestures set to the same value, and live as long as the cache.
+ */
+class GestureHandlerCache(private val context: Context, private val fallback: GestureHandler) {
+
+    private val handlers = ArrayMap<String, GestureHandler>()
+
+    operator fun get(jsonString: String?): GestureHandler {
+        if (jsonString.isNullOrEmpty()) return fallback
+        return handlers.getOrPut(jsonString) {
+            GestureHandlerRegistry.createGestureHandler(context, jsonString, fallback)
+        }
+    }
+
+    operator fun contains(handler: GestureHandler) = handlers.containsValue(handler)
+}
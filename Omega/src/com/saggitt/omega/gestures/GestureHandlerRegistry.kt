@@ -0,0 +1,125 @@
+/*
+ *  This file is part of Omega Launcher.
+ *  Copyright (c) 2021   Saul Henriquez
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.saggitt.omega.gestures
+
+import android.content.Context
+import android.util.Log
+import com.saggitt.omega.gestures.handlers.*
+import org.json.JSONException
+import org.json.JSONObject
+
+/**
+ * Maps the class names stored in the gesture prefs to the constructors of the handlers, so that
+ * handlers are created without reflection.
+ *
+ * A pref holds either a plain class name, or a JSON object with the class name and the config of
+ * the handler. Only the latter is parsed as JSON.
+ */
+object GestureHandlerRegistry {
+
+    private const val TAG = "GestureHandlerRegistry"
+
+    private val LEGACY_SLEEP_HANDLERS = listOf(
+            "com.saggitt.omega.gestures.handlers.SleepGestureHandlerDeviceAdmin",
+            "com.saggitt.omega.gestures.handlers.SleepGestureHandlerAccessibility")
+
+    // In the order they are listed when selecting a handler
+    private val selectableFactories = listOf(
+            factory(::PressBackGestureHandler),
+            factory(::SleepGestureHandler),
+            factory(::SleepGestureHandlerTimeout),
+            factory(::OpenDashGestureHandler),
+            factory(::OpenDrawerGestureHandler),
+            factory(::OpenWidgetsGestureHandler),
+            factory(::NotificationsOpenGestureHandler),
+            factory(::OpenOverlayGestureHandler),
+            factory(::OpenOverviewGestureHandler),
+            factory(::StartGlobalSearchGestureHandler),
+            factory(::StartAppSearchGestureHandler),
+            factory(::StartAppGestureHandler),
+            factory(::OpenSettingsGestureHandler),
+            factory(::OpenRecentsGestureHandler))
+
+    private val blankFactory = factory(::BlankGestureHandler)
+
+    private val factories = (selectableFactories + listOf(
+            blankFactory,
+            factory(::NotificationsCloseGestureHandler))).toMap()
+
+    /**
+     * Creates the handler described by {@param jsonString}, or returns {@param fallback} if it is
+     * unknown or not available.
+     */
+    fun createGestureHandler(context: Context, jsonString: String?,
+                             fallback: GestureHandler): GestureHandler {
+        if (jsonString.isNullOrEmpty()) return fallback
+        val config = parseConfig(jsonString)
+        val className = getClassName(jsonString, config)
+        val factory = factories[className]
+        if (factory == null) {
+            Log.e(TAG, "unknown gesture handler $className")
+            return fallback
+        }
+        return try {
+            val handler = factory(context, config?.optJSONObject("config"))
+            if (handler.isAvailable) handler else fallback
+        } catch (t: Throwable) {
+            Log.e(TAG, "can't create gesture handler", t)
+            fallback
+        }
+    }
+
+    fun getClassName(jsonString: String) = getClassName(jsonString, parseConfig(jsonString))
+
+    /**
+     * Returns a new instance of each handler which can be selected for a gesture.
+     */
+    fun getGestureHandlers(context: Context, isSwipeUp: Boolean,
+                           hasBlank: Boolean): List<GestureHandler> {
+        val handlers = ArrayList<GestureHandler>(selectableFactories.size + 1)
+        if (hasBlank) {
+            handlers.add(blankFactory.second(context, null))
+        }
+        selectableFactories.forEach { (_, create) -> handlers.add(create(context, null)) }
+        return handlers.filter { it.isAvailableForSwipeUp(isSwipeUp) }
+    }
+
+    private fun getClassName(jsonString: String, config: JSONObject?): String {
+        val className = config?.optString("class", null) ?: jsonString
+        return if (className in LEGACY_SLEEP_HANDLERS) {
+            SleepGestureHandler::class.java.name
+        } else {
+            className
+        }
+    }
+
+    private fun parseConfig(jsonString: String): JSONObject? {
+        // Plain class names are far more common than configs, don't try to parse them
+        if (!jsonString.startsWith("{")) return null
+        return try {
+            JSONObject(jsonString)
+        } catch (e: JSONException) {
+            null
+        }
+    }
+
+    private inline fun <reified T : GestureHandler> factory(
+            noinline create: (Context, JSONObject?) -> T): Pair<String, (Context, JSONObject?) -> GestureHandler> =
+            T::class.java.name to create
+}
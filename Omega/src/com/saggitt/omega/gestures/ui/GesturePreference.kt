@@ -24,7 +24,7 @@ import android.util.AttributeSet
 import androidx.preference.DialogPreference
 import com.android.launcher3.R
 import com.saggitt.omega.gestures.BlankGestureHandler
-import com.saggitt.omega.gestures.GestureController
+import com.saggitt.omega.gestures.GestureHandlerCache
 import com.saggitt.omega.gestures.NavSwipeUpGesture
 
 class GesturePreference(context: Context, attrs: AttributeSet?) : DialogPreference(context, attrs), SharedPreferences.OnSharedPreferenceChangeListener {
@@ -33,7 +33,8 @@ class GesturePreference(context: Context, attrs: AttributeSet?) : DialogPreferen
     var defaultValue = ""
 
     private val blankGestureHandler = BlankGestureHandler(context, null)
-    private val handler get() = GestureController.createGestureHandler(context, value, blankGestureHandler)
+    private val handlerCache = GestureHandlerCache(context, blankGestureHandler)
+    private val handler get() = handlerCache[value]
     internal var isSwipeUp = false
 
     init {
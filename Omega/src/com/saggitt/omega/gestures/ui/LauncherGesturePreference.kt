@@ -23,6 +23,7 @@ import android.util.AttributeSet
 import com.saggitt.omega.gestures.BlankGestureHandler
 import com.saggitt.omega.gestures.GestureController
 import com.saggitt.omega.gestures.GestureHandler
+import com.saggitt.omega.gestures.GestureHandlerCache
 import com.saggitt.omega.preferences.RecyclerViewPreference
 
 class LauncherGesturePreference(context: Context, attrs: AttributeSet?) : RecyclerViewPreference(context, attrs) {
@@ -36,7 +37,8 @@ class LauncherGesturePreference(context: Context, attrs: AttributeSet?) : Recycl
     lateinit var onSelectHandler: (GestureHandler) -> Unit
     private val mContext = context
     private val blankGestureHandler = BlankGestureHandler(mContext, null)
-    private val handler get() = GestureController.createGestureHandler(mContext, value, blankGestureHandler)
+    private val handlerCache = GestureHandlerCache(mContext, blankGestureHandler)
+    private val handler get() = handlerCache[value]
 
     override fun getSummary() = handler.displayName
 
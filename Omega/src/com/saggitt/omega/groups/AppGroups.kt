@@ -148,15 +148,18 @@ abstract class AppGroups<T : AppGroups.Group>(private val manager: AppGroupsMana
     }
 
     fun saveToJson() {
-        val arr = JSONArray()
-        groups.forEach { group ->
-            arr.put(JSONObject(group.saveCustomizationsInternal(context)))
+        // Only the groups which changed since they were last saved are serialized again
+        val json = StringBuilder("{")
+                .append(JSONObject.quote(KEY_VERSION)).append(':').append(currentVersion)
+                .append(',').append(JSONObject.quote(KEY_GROUPS)).append(":[")
+        groups.forEachIndexed { index, group ->
+            if (index > 0) json.append(',')
+            json.append(group.getJson(context))
+        }
+        val data = json.append("]}").toString()
+        if (data != groupsDataJson) {
+            groupsDataJson = data
         }
-
-        val obj = JSONObject()
-        obj.put(KEY_VERSION, currentVersion)
-        obj.put(KEY_GROUPS, arr)
-        groupsDataJson = obj.toString()
     }
 
     companion object {
@@ -182,6 +185,10 @@ abstract class AppGroups<T : AppGroups.Group>(private val manager: AppGroupsMana
         val customizations = CustomizationMap()
         val title = CustomTitle(KEY_TITLE, defaultTitle)
 
+        // The last saved JSON, and the changes to the customizations it includes
+        private var savedJson: String? = null
+        private var savedModCount = -1
+
         init {
             addCustomization(this.title)
         }
@@ -202,6 +209,22 @@ abstract class AppGroups<T : AppGroups.Group>(private val manager: AppGroupsMana
             customizations.entries.forEach { it.loadFromJsonInternal(context, obj[it.key]) }
         }
 
+        /**
+         * Returns the customizations as a JSON object, which is only serialized again after one
+         * of them changed.
+         */
+        fun getJson(context: Context): String {
+            val json = savedJson
+            if (json != null && savedModCount == customizations.modCount) {
+                return json
+            }
+            return JSONObject(saveCustomizationsInternal(context)).toString().also {
+                savedJson = it
+                // Saving can reset the values kept outside of the JSON, count these changes too
+                savedModCount = customizations.modCount
+            }
+        }
+
         fun saveCustomizationsInternal(context: Context): Map<String, Any> {
             val obj = HashMap<String, Any>()
             saveCustomizations(context, obj)
@@ -222,6 +245,14 @@ abstract class AppGroups<T : AppGroups.Group>(private val manager: AppGroupsMana
         abstract class Customization<T : Any, S : Any>(val key: String, protected val default: T) {
 
             var value: T? = null
+                set(value) {
+                    field = value
+                    modCount++
+                }
+
+            // The number of times the value was set
+            var modCount = 0
+                private set
 
             fun value() = value ?: default
 
@@ -526,6 +557,9 @@ abstract class AppGroups<T : AppGroups.Group>(private val manager: AppGroupsMana
 
             val entries get() = map.values
 
+            // Changes whenever the value of any of the customizations is set
+            val modCount get() = map.values.sumBy { it.modCount }
+
             val sortedEntries
                 get() =
                     if (order.isEmpty()) entries
@@ -545,14 +579,19 @@ abstract class AppGroups<T : AppGroups.Group>(private val manager: AppGroupsMana
 
 class AppGroupsUtils(context: Context) {
 
-    val defaultColor = Utilities.getOmegaPrefs(context).accentColor
+    private val prefs = Utilities.getOmegaPrefs(context)
+
+    val defaultColor get() = prefs.accentColor
 
-    fun getTabColor(color: String): Int {
+    /**
+     * Returns the saved color of a tab, or null for tabs following the accent color.
+     */
+    fun getTabColor(color: String): Int? {
         Log.d("AppGroupsUtils", "Loading tab color for $color")
         return if (color != "null") {
             color.toInt();
         } else {
-            defaultColor
+            null
         }
     }
 
@@ -29,6 +29,12 @@ class DrawerFolderInfo(private val drawerFolder: DrawerFolders.Folder) : FolderI
     private var changed = false
     lateinit var appsStore: AllAppsStore
 
+    init {
+        // The initial title isn't a change to save back to the folder
+        super.setTitle(drawerFolder.getTitle(), null)
+        id = drawerFolder.id.value().toInt()
+    }
+
     override fun setTitle(title: CharSequence?, modelWriter: ModelWriter) {
         super.setTitle(title, modelWriter)
         changed = true
@@ -22,7 +22,7 @@ import com.android.launcher3.Launcher
 import com.android.launcher3.R
 import com.android.launcher3.folder.FolderIcon
 
-class DrawerFolderItem(private val info: DrawerFolderInfo, private val index: Int) {
+class DrawerFolderItem(val info: DrawerFolderInfo) {
 
     private var icon: FolderIcon? = null
 
@@ -0,0 +1,125 @@
+/*
+ *  This file is part of Omega Launcher.
+ *  Copyright (c) 2021   Saul Henriquez
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.saggitt.omega.groups
+
+import android.content.Context
+import com.android.launcher3.allapps.SortedAppsList
+import com.android.launcher3.model.data.AppInfo
+import com.android.launcher3.model.data.WorkspaceItemInfo
+import com.android.launcher3.util.ComponentKey
+import com.android.launcher3.util.ItemInfoMatcher
+import com.saggitt.omega.util.omegaPrefs
+
+/**
+ * The drawer folders of an apps list, kept as live [DrawerFolderInfo]s.
+ *
+ * The folders only contain the apps matching the item filter of the list, like the tab or the
+ * work profile filter. They are only updated when the apps in the store, the filter or the
+ * folders themselves changed, and then only the items of the apps which were added, removed or
+ * updated are created again.
+ */
+class DrawerFolderModel(context: Context) {
+
+    private val drawerFolders = context.omegaPrefs.appGroupsManager.drawerFolders
+    private val comparator = ShortcutInfoComparator(context)
+
+    private val entries = HashMap<DrawerFolders.Folder, Entry>()
+    private val folderItems = ArrayList<DrawerFolderItem>()
+
+    // The apps and folders the items were last updated for
+    private var sortedApps: SortedAppsList? = null
+    private var itemFilter: ItemInfoMatcher? = null
+    private var appsGeneration = -1
+    private var foldersVersion = -1
+
+    /**
+     * Returns the items of the non empty folders, up to date with the apps of [apps] matching
+     * [filter].
+     */
+    fun getFolderItems(apps: SortedAppsList, filter: ItemInfoMatcher?): List<DrawerFolderItem> {
+        if (apps === sortedApps && filter === itemFilter && apps.generation == appsGeneration
+                && drawerFolders.version == foldersVersion) {
+            return folderItems
+        }
+        sortedApps = apps
+        itemFilter = filter
+        appsGeneration = apps.generation
+        foldersVersion = drawerFolders.version
+
+        val folders = drawerFolders.getGroups().filter { !it.isEmpty }
+        entries.keys.retainAll(folders.toSet())
+        folderItems.clear()
+        folders.forEach { folder ->
+            var entry = entries[folder]
+            if (entry == null || entry.info.title?.toString() != folder.getTitle()) {
+                // Folder icons don't follow title changes, start over with a new folder
+                entry = Entry(folder)
+                entries[folder] = entry
+            }
+            entry.update(apps, filter)
+            folderItems.add(entry.item)
+        }
+        return folderItems
+    }
+
+    fun getHiddenComponents() = drawerFolders.getHiddenComponents()
+
+    private inner class Entry(private val folder: DrawerFolders.Folder) {
+
+        val info = DrawerFolderInfo(folder)
+        val item = DrawerFolderItem(info)
+
+        // The app and the item made from it for each app in the folder
+        private val appItems = HashMap<ComponentKey, Pair<AppInfo, WorkspaceItemInfo>>()
+
+        fun update(apps: SortedAppsList, filter: ItemInfoMatcher?) {
+            val keys = folder.appKeys
+            val contents = ArrayList<WorkspaceItemInfo>(keys.size)
+            var changed = false
+            keys.forEach { key ->
+                val app = apps.getApp(key)?.takeIf { SortedAppsList.matches(filter, it, key) }
+                val current = appItems[key]
+                when {
+                    app == null -> changed = appItems.remove(key) != null || changed
+                    // The title and icon of an app are updated in place, like when its high res
+                    // icon is loaded
+                    current?.first === app && current.second.title == app.title
+                            && current.second.bitmap === app.bitmap -> contents.add(current.second)
+                    else -> {
+                        val appItem = app.makeWorkspaceItem()
+                        appItems[key] = app to appItem
+                        contents.add(appItem)
+                        changed = true
+                    }
+                }
+            }
+            if (appItems.size != contents.size) {
+                // Some apps were removed from the folder
+                appItems.keys.retainAll(keys)
+                changed = true
+            }
+            if (changed) {
+                contents.sortWith(comparator)
+                info.contents.clear()
+                info.contents.addAll(contents)
+                info.itemsChanged(false)
+            }
+        }
+    }
+}
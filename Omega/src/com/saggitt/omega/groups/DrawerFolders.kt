@@ -19,9 +19,6 @@ package com.saggitt.omega.groups
 
 import android.content.Context
 import com.android.launcher3.R
-import com.android.launcher3.allapps.AlphabeticalAppsList
-import com.android.launcher3.model.ModelWriter
-import com.android.launcher3.model.data.AppInfo
 import com.android.launcher3.util.ComponentKey
 import com.saggitt.omega.OmegaPreferencesChangeCallback
 import com.saggitt.omega.util.random
@@ -44,49 +41,37 @@ class DrawerFolders(manager: AppGroupsManager) :
         }
     }
 
+    // Incremented every time the folders may have changed
+    var version = 0
+        private set
+    private var hiddenComponents: Set<ComponentKey>? = null
+
     override fun onGroupsChanged(changeCallback: OmegaPreferencesChangeCallback) {
+        version++
+        hiddenComponents = null
         // TODO: reload after icon cache is ready to ensure high res folder previews
         changeCallback.reloadDrawer()
     }
 
-    fun getFolderInfos(apps: AlphabeticalAppsList, modelWriter: ModelWriter) = getFolderInfos(buildAppsMap(apps)::get, modelWriter)
-
-    private fun buildAppsMap(apps: AlphabeticalAppsList): Map<ComponentKey, AppInfo> {
-        // Copy the list before accessing it to prevent concurrent list access
-        return apps.apps.toList().associateBy { it.toComponentKey() }
-    }
-
-    private fun getFolderInfos(
-            getAppInfo: (ComponentKey) -> AppInfo?, modelWriter: ModelWriter): List<DrawerFolderInfo> = getGroups()
-            .asSequence()
-            .filter { !it.isEmpty }
-            .map { it.toFolderInfo(getAppInfo, modelWriter) }
-            .toList()
-
-    fun getHiddenComponents() = getGroups()
+    fun getHiddenComponents(): Set<ComponentKey> = hiddenComponents ?: getGroups()
             .asSequence()
             .filterIsInstance<CustomFolder>()
             .filter { it.hideFromAllApps.value() }
             .mapNotNull { it.contents.value }
             .flatMapTo(mutableSetOf()) { it.asSequence() }
+            .also { hiddenComponents = it }
 
     abstract class Folder(val context: Context, type: String, titleRes: Int) :
             Group(type, context, context.getString(titleRes)) {
         // Ensure icon customization sticks across group changes
         val id = LongCustomization(KEY_ID, Long.random + 9999L)
         open val isEmpty = true
+        open val appKeys: Set<ComponentKey> get() = emptySet()
 
         init {
             // DO NOT actually change this ever
             addCustomization(id)
         }
-
-        open fun toFolderInfo(getAppInfo: (ComponentKey) -> AppInfo?, modelWriter: ModelWriter) = DrawerFolderInfo(
-                this).apply {
-            setTitle(this@Folder.getTitle(), modelWriter)
-            id = this@Folder.id.value().toInt()
-            contents = ArrayList()
-        }
     }
 
     class CustomFolder(context: Context) :
@@ -96,8 +81,7 @@ class DrawerFolders(manager: AppGroupsManager) :
                 KEY_HIDE_FROM_ALL_APPS, true)
         val contents = AppsRow(KEY_ITEMS, mutableSetOf())
         override val isEmpty get() = contents.value.isNullOrEmpty()
-
-        val comparator = ShortcutInfoComparator(context)
+        override val appKeys: Set<ComponentKey> get() = contents.value ?: emptySet()
 
         init {
             addCustomization(hideFromAllApps)
@@ -112,14 +96,6 @@ class DrawerFolders(manager: AppGroupsManager) :
         }
 
         fun getFilter(context: Context): Filter<*> = CustomFilter(context, contents.value())
-
-        override fun toFolderInfo(getAppInfo: (ComponentKey) -> AppInfo?, modelWriter: ModelWriter) = super
-                .toFolderInfo(getAppInfo, modelWriter).apply {
-                    // ✨
-                    this@CustomFolder.contents.value?.mapNotNullTo(contents) { key ->
-                        getAppInfo(key)?.makeWorkspaceItem()
-                    }?.sortWith(comparator)
-                }
     }
 
     companion object {
@@ -19,6 +19,7 @@ package com.saggitt.omega.groups
 
 import android.content.Context
 import com.android.launcher3.util.ComponentKey
+import com.android.launcher3.util.ComponentKeyMatcher
 import com.android.launcher3.util.ItemInfoMatcher
 
 abstract class Filter<T>(val context: Context) {
@@ -33,7 +34,7 @@ abstract class Filter<T>(val context: Context) {
 class CustomFilter(context: Context, override val matches: Set<ComponentKey>) : Filter<ComponentKey>(context) {
 
     override val matcher
-        get() = ItemInfoMatcher { info, cn -> matches.contains(ComponentKey(info.targetComponent, info.user)) }
+        get() = ComponentKeyMatcher(matches, false, null)
 }
 
 /*
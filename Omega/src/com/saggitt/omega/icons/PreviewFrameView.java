@@ -54,6 +54,7 @@ public class PreviewFrameView extends LinearLayout implements OmegaPreferences.O
             "pref_generateAdaptiveForIconPack", "pref_forceShapeless"};
     private int count = 6;
     private boolean isFirstLoad = true;
+    private boolean needsIconReload = false;
 
     public PreviewFrameView(Context context) {
         this(context, null, 0);
@@ -86,7 +87,10 @@ public class PreviewFrameView extends LinearLayout implements OmegaPreferences.O
     @Override
     protected void onDetachedFromWindow() {
         super.onDetachedFromWindow();
-        prefs.reloadIcons();
+        if (needsIconReload) {
+            // Shape changes switch the icon cache on their own
+            prefs.reloadIcons();
+        }
         prefs.removeOnPreferenceChangeListener(this, prefsToWatch);
     }
 
@@ -164,6 +168,9 @@ public class PreviewFrameView extends LinearLayout implements OmegaPreferences.O
     public void onValueChanged(@NotNull String key, @NotNull OmegaPreferences prefs, boolean force) {
         if (!isFirstLoad && count == 0) {
             Log.d("IconPreview", "Cambiando preferencia " + key);
+            if (!"pref_iconShape".equals(key)) {
+                needsIconReload = true;
+            }
             loadIcons();
             loadBackground(prefs.getForceShapeless());
             invalidate();
@@ -54,7 +54,10 @@ class MultiSelectTabPreference(context: Context, attrs: AttributeSet?) : Recycle
 
         builder.setPositiveButton(android.R.string.ok) { _, _ ->
             tabs.forEach {
-                if (it.contents.value().addOrRemove(componentKey, selections[it] == true)) {
+                // Set a new set rather than changing the current one, so the change is tracked
+                val contents = HashSet(it.contents.value())
+                if (contents.addOrRemove(componentKey, selections[it] == true)) {
+                    it.contents.value = contents
                     edited = true
                 }
             }
@@ -27,8 +27,6 @@ import android.content.pm.PackageManager
 import android.content.pm.PackageManager.PERMISSION_GRANTED
 import android.graphics.Bitmap
 import android.net.Uri
-import android.os.Handler
-import android.os.HandlerThread
 import android.provider.Settings
 import android.service.notification.StatusBarNotification
 import android.text.TextUtils
@@ -336,40 +334,37 @@ class OmegaSmartspaceController(val context: Context) {
         }
     }
 
-    abstract class PeriodicDataProvider(controller: OmegaSmartspaceController) : DataProvider(controller) {
+    abstract class PeriodicDataProvider(controller: OmegaSmartspaceController) :
+            DataProvider(controller), SmartspaceRefreshScheduler.Task {
 
-        private val handlerThread = HandlerThread(this::class.java.simpleName).apply { if (!isAlive) start() }
-        private val handler = Handler(handlerThread.looper)
-        private val update = ::periodicUpdate
+        private val scheduler = SmartspaceRefreshScheduler.getInstance(context)
 
         open val timeout = TimeUnit.MINUTES.toMillis(30)
 
+        override val refreshInterval get() = timeout
+
         override fun startListening() {
             super.startListening()
-            handler.post(update)
+            scheduler.register(this)
         }
 
-        private fun periodicUpdate() {
-            try {
-                updateData()
-            } catch (e: Exception) {
-                Log.d("PeriodicDataProvider", "failed to update data", e)
-            }
-            handler.postDelayed(update, timeout)
-        }
+        override fun refresh() = updateData()
 
         override fun stopListening() {
             super.stopListening()
-            handlerThread.quit()
+            scheduler.unregister(this)
         }
 
-        protected fun updateNow() {
-            handler.removeCallbacks(update)
-            handler.post(update)
+        protected fun updateNow(delay: Long = SmartspaceRefreshScheduler.REQUEST_DELAY) {
+            scheduler.requestRefresh(this, delay)
         }
 
-        open fun updateData() {
+        /**
+         * Queries and shows the data, and returns false if it could not be queried.
+         */
+        open fun updateData(): Boolean {
             updateData(queryWeatherData(), queryCardData())
+            return true
         }
 
         open fun queryWeatherData(): WeatherData? {
@@ -21,11 +21,29 @@ package com.saggitt.omega.smartspace
 import android.content.Context
 import android.util.AttributeSet
 import android.view.View
+import com.saggitt.omega.theme.ThemeManager
 import com.saggitt.omega.util.omegaPrefs
 
-class SmartspaceDividerView(context: Context, attrs: AttributeSet?) : View(context, attrs) {
+class SmartspaceDividerView(context: Context, attrs: AttributeSet?) : View(context, attrs),
+        ThemeManager.ThemeableView {
+
+    override val themeAttrs = IntArray(0)
 
     init {
         setBackgroundColor(context.omegaPrefs.accentColor)
     }
+
+    override fun onAttachedToWindow() {
+        super.onAttachedToWindow()
+        ThemeManager.getInstance(context).addThemeableView(this)
+    }
+
+    override fun onDetachedFromWindow() {
+        super.onDetachedFromWindow()
+        ThemeManager.getInstance(context).removeThemeableView(this)
+    }
+
+    override fun onThemeChanged(colors: ThemeManager.ThemeColors) {
+        setBackgroundColor(colors.accentColor)
+    }
 }
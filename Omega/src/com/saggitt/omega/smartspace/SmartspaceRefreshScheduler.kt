@@ -0,0 +1,257 @@
+/*
+ *  This file is part of Omega Launcher.
+ *  Copyright (c) 2021   Saul Henriquez
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.saggitt.omega.smartspace
+
+import android.content.BroadcastReceiver
+import android.content.Context
+import android.content.Intent
+import android.content.IntentFilter
+import android.os.PowerManager
+import android.os.SystemClock
+import android.util.Log
+import com.saggitt.omega.util.OmegaSingletonHolder
+import com.saggitt.omega.util.uiWorkerHandler
+import java.util.*
+import java.util.concurrent.TimeUnit
+import kotlin.math.min
+
+/**
+ * Runs the refreshes of all the smartspace providers on a single background handler.
+ *
+ * Wake-ups are merged: each task may run anywhere within a window after it is due, so the
+ * scheduler wakes up once for every task due in that window. Intervals get some jitter, failures
+ * are retried with an exponential backoff, and nothing runs while the launcher is stopped or the
+ * screen is off. Tasks due in the meantime run as soon as both are back.
+ */
+class SmartspaceRefreshScheduler(private val context: Context) {
+
+    private val handler = uiWorkerHandler
+    private val random = Random()
+
+    // Only accessed on the handler thread
+    private val entries = LinkedHashMap<Task, Entry>()
+    private var launcherStarted = false
+    private var screenOn = true
+    private var receiversRegistered = false
+    private var timeTickRegistered = false
+
+    private val runDueTasks = Runnable { runDueTasks() }
+
+    private val screenReceiver = object : BroadcastReceiver() {
+        override fun onReceive(context: Context, intent: Intent) {
+            setScreenOn(intent.action == Intent.ACTION_SCREEN_ON)
+        }
+    }
+
+    private val timeTickReceiver = object : BroadcastReceiver() {
+        override fun onReceive(context: Context, intent: Intent) {
+            entries.forEach { (task, entry) ->
+                if (task.refreshOnTimeTick) {
+                    entry.nextRun = 0
+                }
+            }
+            runDueTasks()
+        }
+    }
+
+    private val active get() = launcherStarted && screenOn
+
+    /**
+     * Starts refreshing [task] periodically. The task is refreshed right away, or as soon as the
+     * launcher is started and the screen is on. The other tasks keep their schedule.
+     */
+    fun register(task: Task) {
+        handler.post {
+            if (entries.containsKey(task)) return@post
+            val entry = Entry()
+            entries[task] = entry
+            if (receiversRegistered) {
+                updateTimeTickReceiver()
+            } else {
+                registerReceivers()
+            }
+            if (active) {
+                runTask(task, entry)
+            }
+            scheduleNextWakeUp()
+        }
+    }
+
+    fun unregister(task: Task) {
+        handler.post {
+            if (entries.remove(task) == null) return@post
+            if (entries.isEmpty()) {
+                unregisterReceivers()
+            } else {
+                updateTimeTickReceiver()
+            }
+            scheduleNextWakeUp()
+        }
+    }
+
+    /**
+     * Refreshes [task] after [delay], for example because the data it shows has changed. Each
+     * request postpones the refresh, so that a burst of requests results in a single refresh.
+     */
+    fun requestRefresh(task: Task, delay: Long = REQUEST_DELAY) {
+        handler.post {
+            val entry = entries[task] ?: return@post
+            entry.nextRun = SystemClock.elapsedRealtime() + delay
+            entry.flex = 0
+            entry.failures = 0
+            scheduleNextWakeUp()
+        }
+    }
+
+    fun setLauncherStarted(started: Boolean) {
+        handler.post {
+            if (launcherStarted != started) {
+                launcherStarted = started
+                onActiveChanged()
+            }
+        }
+    }
+
+    private fun setScreenOn(on: Boolean) {
+        if (screenOn != on) {
+            screenOn = on
+            onActiveChanged()
+        }
+    }
+
+    private fun onActiveChanged() {
+        updateTimeTickReceiver()
+        if (active) {
+            runDueTasks()
+        } else {
+            handler.removeCallbacks(runDueTasks)
+        }
+    }
+
+    private fun runDueTasks() {
+        handler.removeCallbacks(runDueTasks)
+        if (active) {
+            val now = SystemClock.elapsedRealtime()
+            entries.entries.toList().forEach { (task, entry) ->
+                if (entry.nextRun <= now && entries.containsKey(task)) {
+                    runTask(task, entry)
+                }
+            }
+        }
+        scheduleNextWakeUp()
+    }
+
+    private fun runTask(task: Task, entry: Entry) {
+        val success = try {
+            task.refresh()
+        } catch (e: Exception) {
+            Log.d(TAG, "failed to refresh ${task::class.java.simpleName}", e)
+            false
+        }
+        val interval = task.refreshInterval
+        val delay = if (success) {
+            entry.failures = 0
+            interval + (random.nextDouble() * interval * JITTER_FRACTION).toLong()
+        } else {
+            // Retry sooner than the usual interval at first, then back off
+            val backoff = RETRY_DELAY shl min(entry.failures, MAX_BACKOFF_SHIFT)
+            entry.failures++
+            min(backoff, MAX_BACKOFF)
+        }
+        entry.nextRun = SystemClock.elapsedRealtime() + delay
+        entry.flex = min((delay * FLEX_FRACTION).toLong(), MAX_FLEX)
+    }
+
+    private fun scheduleNextWakeUp() {
+        handler.removeCallbacks(runDueTasks)
+        if (!active || entries.isEmpty()) return
+        // Wake up at the latest time any task can run, so that the others which are due by then
+        // run along with it
+        val wakeUp = entries.values.minOf { it.nextRun + it.flex }
+        val delay = wakeUp - SystemClock.elapsedRealtime()
+        handler.postDelayed(runDueTasks, delay.coerceAtLeast(0))
+    }
+
+    private fun registerReceivers() {
+        val pm = context.getSystemService(Context.POWER_SERVICE) as PowerManager
+        screenOn = pm.isInteractive
+        context.registerReceiver(screenReceiver, IntentFilter(Intent.ACTION_SCREEN_ON).apply {
+            addAction(Intent.ACTION_SCREEN_OFF)
+        }, null, handler)
+        receiversRegistered = true
+        updateTimeTickReceiver()
+    }
+
+    private fun unregisterReceivers() {
+        if (!receiversRegistered) return
+        context.unregisterReceiver(screenReceiver)
+        receiversRegistered = false
+        updateTimeTickReceiver()
+    }
+
+    private fun updateTimeTickReceiver() {
+        // Time ticks are only needed while something is visible and a task wants them
+        val needed = receiversRegistered && active && entries.keys.any { it.refreshOnTimeTick }
+        if (needed == timeTickRegistered) return
+        if (needed) {
+            context.registerReceiver(timeTickReceiver,
+                    IntentFilter(Intent.ACTION_TIME_TICK), null, handler)
+        } else {
+            context.unregisterReceiver(timeTickReceiver)
+        }
+        timeTickRegistered = needed
+    }
+
+    interface Task {
+
+        /**
+         * Time between two refreshes, when no event triggered one in the meantime.
+         */
+        val refreshInterval: Long
+
+        /**
+         * Whether the task should also be refreshed every minute while the screen is on.
+         */
+        val refreshOnTimeTick: Boolean get() = false
+
+        /**
+         * Refreshes the data on a background thread, and returns false if it failed.
+         */
+        fun refresh(): Boolean
+    }
+
+    private class Entry {
+        var nextRun = 0L
+        var flex = 0L
+        var failures = 0
+    }
+
+    companion object : OmegaSingletonHolder<SmartspaceRefreshScheduler>(::SmartspaceRefreshScheduler) {
+
+        private const val TAG = "SmartspaceScheduler"
+
+        private const val JITTER_FRACTION = 0.1
+        private const val FLEX_FRACTION = 0.25
+        private val MAX_FLEX = TimeUnit.MINUTES.toMillis(5)
+        val REQUEST_DELAY = TimeUnit.SECONDS.toMillis(1)
+        private val RETRY_DELAY = TimeUnit.SECONDS.toMillis(30)
+        private val MAX_BACKOFF = TimeUnit.HOURS.toMillis(1)
+        private const val MAX_BACKOFF_SHIFT = 7
+    }
+}
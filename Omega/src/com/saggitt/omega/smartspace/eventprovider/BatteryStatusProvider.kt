@@ -35,17 +35,27 @@ class BatteryStatusProvider(controller: OmegaSmartspaceController) :
 
         override fun onReceive(context: Context?, intent: Intent) {
             val status = intent.getIntExtra(BatteryManager.EXTRA_STATUS, -1)
-            charging = status == BatteryManager.BATTERY_STATUS_CHARGING
-            full = status == BatteryManager.BATTERY_STATUS_FULL
-            level = (100f
+            val newCharging = status == BatteryManager.BATTERY_STATUS_CHARGING
+            val newFull = status == BatteryManager.BATTERY_STATUS_FULL
+            val newLevel = (100f
                     * intent.getIntExtra(BatteryManager.EXTRA_LEVEL, 0)
                     / intent.getIntExtra(BatteryManager.EXTRA_SCALE, 100)).toInt()
+            // The broadcast is also sent for voltage and temperature changes, which the card
+            // doesn't show
+            if (hasData && newCharging == charging && newFull == full && newLevel == level) {
+                return
+            }
+            charging = newCharging
+            full = newFull
+            level = newLevel
+            hasData = true
             updateData(null, getEventCard())
         }
     }
     private var charging = false
     private var full = false
     private var level = 100
+    private var hasData = false
 
     init {
         context.registerReceiver(batteryReceiver, IntentFilter(Intent.ACTION_BATTERY_CHANGED))
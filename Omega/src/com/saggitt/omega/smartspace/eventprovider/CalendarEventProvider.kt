@@ -19,11 +19,14 @@ package com.saggitt.omega.smartspace.eventprovider
 
 import android.annotation.SuppressLint
 import android.app.PendingIntent
+import android.content.ContentUris
 import android.content.Intent
+import android.database.ContentObserver
 import android.net.Uri
 import android.provider.CalendarContract
 import android.text.TextUtils
 import android.text.format.DateFormat
+import android.util.Log
 import androidx.core.graphics.drawable.toBitmap
 import com.android.launcher3.R
 import com.saggitt.omega.smartspace.OmegaSmartspaceController
@@ -31,6 +34,7 @@ import com.saggitt.omega.smartspace.OmegaSmartspaceController.*
 import com.saggitt.omega.util.runOnMainThread
 import java.util.*
 import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
 import kotlin.math.ceil
 
 @SuppressLint("MissingPermission")
@@ -39,10 +43,10 @@ class CalendarEventProvider(controller: OmegaSmartspaceController)
 
     override val requiredPermissions = listOf(android.Manifest.permission.READ_CALENDAR)
     private val calendarProjection = arrayOf(
-            CalendarContract.Instances._ID,
+            CalendarContract.Instances.EVENT_ID,
             CalendarContract.Instances.TITLE,
-            CalendarContract.Instances.DTSTART,
-            CalendarContract.Instances.DTEND,
+            CalendarContract.Instances.BEGIN,
+            CalendarContract.Instances.END,
             CalendarContract.Instances.EVENT_LOCATION,
             CalendarContract.Instances.CUSTOM_APP_PACKAGE)
 
@@ -51,18 +55,60 @@ class CalendarEventProvider(controller: OmegaSmartspaceController)
     private val includeBehind = oneMinute * 5
     private val includeAhead = oneMinute * 30
 
-    override val timeout = oneMinute
+    // The card is refreshed on time ticks and calendar changes, this only catches missed events
+    override val timeout = oneMinute * 15
+    override val refreshOnTimeTick = true
 
-    override fun updateData() {
-        val card = createEventCard(getNextEvent())
+    // Upcoming instances sorted by start time, so that the card can be computed on every time
+    // tick without querying the calendar. Only accessed on the scheduler thread.
+    private var cachedEvents = emptyList<CalendarEvent>()
+    private var cacheEnd = 0L
+    private var cacheVersion = -1
+    // Incremented whenever the calendar changes
+    private val calendarVersion = AtomicInteger()
+
+    private val icon by lazy { context.getDrawable(R.drawable.ic_calendar)!!.toBitmap() }
+
+    private val calendarObserver = object : ContentObserver(null) {
+        override fun onChange(selfChange: Boolean) {
+            // Syncs usually change many events in a row, reload once they are done
+            calendarVersion.incrementAndGet()
+            updateNow(CALENDAR_CHANGE_DELAY)
+        }
+    }
+
+    override fun startListening() {
+        super.startListening()
+        try {
+            context.contentResolver.registerContentObserver(
+                    CalendarContract.CONTENT_URI, true, calendarObserver)
+        } catch (e: SecurityException) {
+            Log.d(TAG, "can't observe calendar changes", e)
+        }
+    }
+
+    override fun stopListening() {
+        super.stopListening()
+        context.contentResolver.unregisterContentObserver(calendarObserver)
+        // Changes are not tracked anymore
+        calendarVersion.incrementAndGet()
+    }
+
+    override fun updateData(): Boolean {
+        val currentTime = System.currentTimeMillis()
+        val cacheValid = cacheVersion == calendarVersion.get()
+                && currentTime + CACHE_MIN_AHEAD <= cacheEnd
+        val loaded = cacheValid || loadEvents(currentTime)
+        // Keep showing the cached events when they could not be loaded
+        val card = createEventCard(getNextEvent(currentTime))
         runOnMainThread {
             updateData(null, card)
         }
+        return loaded
     }
 
     private fun createEventCard(event: CalendarEvent?): CardData? {
         if (event == null) return null
-        val icon = context.getDrawable(R.drawable.ic_calendar)!!.toBitmap()
         val lines = mutableListOf<Line>()
         lines.add(Line("${event.title} ${formatTimeRelative(event.start)}", TextUtils.TruncateAt.MIDDLE))
         val timeText = "${formatTime(event.start)} – ${formatTime(event.end)}"
@@ -74,26 +120,52 @@ class CalendarEventProvider(controller: OmegaSmartspaceController)
         return CardData(icon, lines, getPendingIntent(event))
     }
 
-    private fun getNextEvent(): CalendarEvent? {
-        val currentTime = System.currentTimeMillis()
-        context.contentResolver.query(
-                CalendarContract.Events.CONTENT_URI,
+    private fun getNextEvent(currentTime: Long): CalendarEvent? {
+        return cachedEvents.firstOrNull {
+            it.start >= currentTime - includeBehind && it.start <= currentTime + includeAhead
+        }
+    }
+
+    private fun loadEvents(currentTime: Long): Boolean {
+        // Read first, so that a change during the query triggers another load
+        val version = calendarVersion.get()
+        val begin = currentTime - includeBehind
+        val end = currentTime + CACHE_WINDOW
+        val uri = CalendarContract.Instances.CONTENT_URI.buildUpon().also {
+            ContentUris.appendId(it, begin)
+            ContentUris.appendId(it, end)
+        }.build()
+        val events = mutableListOf<CalendarEvent>()
+        val cursor = context.contentResolver.query(
+                uri,
                 calendarProjection,
-                "${CalendarContract.Events.DTSTART} >= ? AND ${CalendarContract.Events.DTSTART} <= ?",
-                arrayOf("${currentTime - includeBehind}", "${currentTime + includeAhead}"),
-                "${CalendarContract.Events.DTSTART} ASC LIMIT 1")
-                ?.use { c ->
-                    while (c.moveToNext()) {
-                        return CalendarEvent(
-                                c.getLong(c.getColumnIndex(CalendarContract.Events._ID)),
-                                c.getString(c.getColumnIndex(CalendarContract.Events.TITLE)),
-                                c.getLong(c.getColumnIndex(CalendarContract.Events.DTSTART)),
-                                c.getLong(c.getColumnIndex(CalendarContract.Events.DTEND)),
-                                c.getString(c.getColumnIndex(CalendarContract.Events.EVENT_LOCATION)),
-                                c.getString(c.getColumnIndex(CalendarContract.Events.CUSTOM_APP_PACKAGE)))
-                    }
-                }
-        return null
+                "${CalendarContract.Instances.BEGIN} >= ?",
+                arrayOf("$begin"),
+                "${CalendarContract.Instances.BEGIN} ASC")
+                ?: return false
+        cursor.use { c ->
+            val idIndex = c.getColumnIndex(CalendarContract.Instances.EVENT_ID)
+            val titleIndex = c.getColumnIndex(CalendarContract.Instances.TITLE)
+            val beginIndex = c.getColumnIndex(CalendarContract.Instances.BEGIN)
+            val endIndex = c.getColumnIndex(CalendarContract.Instances.END)
+            val locationIndex = c.getColumnIndex(CalendarContract.Instances.EVENT_LOCATION)
+            val packageIndex =
+                    c.getColumnIndex(CalendarContract.Instances.CUSTOM_APP_PACKAGE)
+            while (c.moveToNext()) {
+                events.add(CalendarEvent(
+                        c.getLong(idIndex),
+                        // Untitled events have no title
+                        c.getString(titleIndex) ?: "",
+                        c.getLong(beginIndex),
+                        c.getLong(endIndex),
+                        c.getString(locationIndex),
+                        c.getString(packageIndex)))
+            }
+        }
+        cachedEvents = events
+        cacheEnd = end
+        cacheVersion = version
+        return true
     }
 
     private fun formatTime(time: Long) = DateFormat.getTimeFormat(context).format(Date(time))
@@ -130,6 +202,16 @@ class CalendarEventProvider(controller: OmegaSmartspaceController)
         return PendingIntent.getActivity(context, 0, intent, 0)
     }
 
+    companion object {
+
+        private const val TAG = "CalendarEventProvider"
+
+        private val CACHE_WINDOW = TimeUnit.HOURS.toMillis(48)
+        // Events are reloaded once less than this is left in the cached window
+        private val CACHE_MIN_AHEAD = TimeUnit.HOURS.toMillis(24)
+        private val CALENDAR_CHANGE_DELAY = TimeUnit.SECONDS.toMillis(5)
+    }
+
     data class CalendarEvent(
             val id: Long,
             val title: String,
@@ -48,10 +48,12 @@ object NotificationsManager : NotificationListener.NotificationsChangedListener
     private fun onChange() {
         val notifications = notificationsMap.values.toList()
         this.notifications = notifications
-        listeners.forEach(OnChangeListener::onNotificationsChanged)
+        // Read the snapshot kept by the listener rather than querying the service, which would
+        // be a binder call on the main thread for every posted notification.
         this.sbNotifications =
-                NotificationListener.getInstanceIfConnected()?.activeNotifications?.toList()
+                NotificationListener.getInstanceIfConnected()?.activeNotificationsSnapshot
                         ?: emptyList()
+        listeners.forEach(OnChangeListener::onNotificationsChanged)
     }
 
     interface OnChangeListener {
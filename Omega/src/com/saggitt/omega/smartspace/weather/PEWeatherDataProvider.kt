@@ -19,6 +19,7 @@ package com.saggitt.omega.smartspace.weather
 
 import android.content.Context
 import android.content.pm.PackageManager
+import android.database.Cursor
 import android.graphics.Bitmap
 import android.net.Uri
 import androidx.annotation.Keep
@@ -39,18 +40,24 @@ class PEWeatherDataProvider(controller: OmegaSmartspaceController) :
         }
     }
 
-    override fun queryWeatherData(): OmegaSmartspaceController.WeatherData? {
-        contentResolver.query(weatherUri, PROJECTION_DEFAULT_WEATHER, null, null, null)?.use { cursor ->
-            val count = cursor.count
-            if (count > 0) {
-                cursor.moveToPosition(0)
-                val status = cursor.getInt(0)
-                if (status == 0) {
-                    val conditions = cursor.getString(1)
-                    val temperature = cursor.getInt(2)
-                    return OmegaSmartspaceController.WeatherData(getConditionIcon(conditions),
-                            Temperature(temperature, Temperature.Unit.Celsius), "")
-                }
+    override fun updateData(): Boolean {
+        // The weather service could not be reached
+        val cursor = contentResolver.query(weatherUri, PROJECTION_DEFAULT_WEATHER, null, null, null)
+                ?: return false
+        updateData(cursor.use { readWeatherData(it) }, null)
+        return true
+    }
+
+    private fun readWeatherData(cursor: Cursor): OmegaSmartspaceController.WeatherData? {
+        val count = cursor.count
+        if (count > 0) {
+            cursor.moveToPosition(0)
+            val status = cursor.getInt(0)
+            if (status == 0) {
+                val conditions = cursor.getString(1)
+                val temperature = cursor.getInt(2)
+                return OmegaSmartspaceController.WeatherData(getConditionIcon(conditions),
+                        Temperature(temperature, Temperature.Unit.Celsius), "")
             }
         }
         return null
@@ -23,6 +23,8 @@ import android.os.Handler
 import com.android.launcher3.R
 import com.android.launcher3.Utilities
 import com.android.launcher3.uioverrides.WallpaperColorInfo
+import com.android.launcher3.util.Executors.MAIN_EXECUTOR
+import com.android.launcher3.util.Executors.UI_HELPER_EXECUTOR
 import com.saggitt.omega.BlankActivity
 import com.saggitt.omega.omegaApp
 import com.saggitt.omega.twilight.TwilightListener
@@ -30,12 +32,16 @@ import com.saggitt.omega.twilight.TwilightManager
 import com.saggitt.omega.twilight.TwilightState
 import com.saggitt.omega.util.*
 import com.saggitt.omega.util.Config.REQUEST_PERMISSION_LOCATION_ACCESS
+import java.util.Collections
+import java.util.WeakHashMap
 
 class ThemeManager(val context: Context) : WallpaperColorInfo.OnChangeListener, TwilightListener {
 
     private val app = context.omegaApp
     private val wallpaperColorInfo = WallpaperColorInfo.getInstance(context)!!
     private val listeners = HashSet<ThemeOverride>()
+    private val themeableViews: MutableSet<ThemeableView> = Collections.newSetFromMap(WeakHashMap())
+    private var themeViewsGeneration = 0
     private val prefs = context.omegaPrefs
     private var themeFlags = 0
     private var usingNightMode = context.resources.configuration.usingNightMode
@@ -99,6 +105,42 @@ class ThemeManager(val context: Context) : WallpaperColorInfo.OnChangeListener,
 
     fun getCurrentFlags() = themeFlags
 
+    fun addThemeableView(view: ThemeableView) {
+        synchronized(themeableViews) {
+            themeableViews.add(view)
+        }
+        // The colors may have changed while the view was detached
+        applyTheme(listOf(view), themeViewsGeneration)
+    }
+
+    fun removeThemeableView(view: ThemeableView) {
+        synchronized(themeableViews) {
+            themeableViews.remove(view)
+        }
+    }
+
+    /**
+     * Updates the colors of the registered views without recreating their activities. The theme
+     * attributes of the views are resolved in the background, and applied on the main thread.
+     */
+    fun applyThemeInPlace() {
+        val views = synchronized(themeableViews) { ArrayList(themeableViews) }
+        if (views.isEmpty()) return
+        applyTheme(views, ++themeViewsGeneration)
+    }
+
+    private fun applyTheme(views: List<ThemeableView>, generation: Int) {
+        val accentColor = prefs.accentColor
+        UI_HELPER_EXECUTOR.execute {
+            val colors = views.map { ThemeColors.resolve(it.getContext(), it.themeAttrs, accentColor) }
+            MAIN_EXECUTOR.execute {
+                // Drop the colors if a newer change is being resolved already
+                if (generation != themeViewsGeneration) return@execute
+                views.forEachIndexed { i, view -> view.onThemeChanged(colors[i]) }
+            }
+        }
+    }
+
     private fun removeDeadListeners() {
         val it = listeners.iterator()
         while (it.hasNext()) {
@@ -143,6 +185,7 @@ class ThemeManager(val context: Context) : WallpaperColorInfo.OnChangeListener,
             removeDeadListeners()
             listeners.forEach { it.onThemeChanged(themeFlags) }
         }
+        applyThemeInPlace()
     }
 
     private fun updateTwilightState(theme: Int): Int {
@@ -189,6 +232,34 @@ class ThemeManager(val context: Context) : WallpaperColorInfo.OnChangeListener,
         fun onThemeChanged()
     }
 
+    /**
+     * A view which updates its colors when the theme or the accent color changes, instead of
+     * relying on its activity being recreated. Views register while they are attached.
+     */
+    interface ThemeableView {
+        /** The color attributes read from the theme of the view */
+        val themeAttrs: IntArray
+
+        fun getContext(): Context
+
+        fun onThemeChanged(colors: ThemeColors)
+    }
+
+    class ThemeColors(val accentColor: Int, private val attrs: IntArray, private val colors: IntArray) {
+
+        fun getAttrColor(attr: Int) = colors[attrs.indexOf(attr)]
+
+        companion object {
+
+            fun resolve(context: Context, attrs: IntArray, accentColor: Int): ThemeColors {
+                val ta = context.obtainStyledAttributes(attrs)
+                val colors = IntArray(attrs.size) { ta.getColor(it, 0) }
+                ta.recycle()
+                return ThemeColors(accentColor, attrs, colors)
+            }
+        }
+    }
+
     companion object : SingletonHolder<ThemeManager, Context>(ensureOnMainThread(useApplicationContext(::ThemeManager))) {
 
         const val THEME_FOLLOW_WALLPAPER = 1         // 000001 = 1
@@ -55,13 +55,22 @@ class TwilightManager(private val context: Context) : Handler.Callback, Location
 
     private var timeChangedReceiver: BroadcastReceiver? = null
     private var lastLocation: Location? = null
+    // The location the current schedule was calculated for
+    private var scheduleLocation: Location? = null
+    private var scheduledAlarmMillis = 0L
+    private var lastNight: Boolean? = null
 
     var lastTwilightState: TwilightState? = calculateTwilightState(null, null, System.currentTimeMillis())
         get() = synchronized(listeners) { field }
         private set(value) {
             synchronized(listeners) {
-                if (field != value) {
+                // The state only changes at the transitions of the cached schedule
+                val night = value?.isNight
+                if (field?.sunriseTimeMillis != value?.sunriseTimeMillis
+                        || field?.sunsetTimeMillis != value?.sunsetTimeMillis
+                        || lastNight != night) {
                     field = value
+                    lastNight = night
 
                     for (i in listeners.size - 1 downTo 0) {
                         val listener = listeners.keyAt(i)
@@ -132,9 +141,11 @@ class TwilightManager(private val context: Context) : Handler.Callback, Location
     private fun startListening() {
         Log.d(TAG, "startListening")
 
-        val locationProvider = locationManager.getBestProvider(Criteria(), true)
+        // Sunrise and sunset barely move within a few kilometers, so rare coarse fixes are enough
+        val locationProvider = locationManager.getBestProvider(LOCATION_CRITERIA, true)
         if (locationProvider != null) {
-            locationManager.requestLocationUpdates(locationProvider, 0, 0f, this, Looper.getMainLooper())
+            locationManager.requestLocationUpdates(locationProvider, LOCATION_MIN_TIME,
+                    LOCATION_MIN_DISTANCE, this, Looper.getMainLooper())
 
             if (locationManager.getLastKnownLocation(locationProvider) == null) {
                 locationManager.requestSingleUpdate(locationProvider, this, Looper.getMainLooper())
@@ -146,7 +157,7 @@ class TwilightManager(private val context: Context) : Handler.Callback, Location
             timeChangedReceiver = object : BroadcastReceiver() {
                 override fun onReceive(context: Context, intent: Intent) {
                     Log.d(TAG, "onReceive: $intent")
-                    updateTwilightState()
+                    updateTwilightState(true)
                 }
             }
 
@@ -167,32 +178,50 @@ class TwilightManager(private val context: Context) : Handler.Callback, Location
             timeChangedReceiver = null
         }
 
-        if (lastTwilightState != null) {
+        if (scheduledAlarmMillis != 0L) {
             alarmManager.cancel(PendingIntent.getBroadcast(context, 0, updateIntent, 0))
+            scheduledAlarmMillis = 0L
         }
 
         locationManager.removeUpdates(this)
         lastLocation = null
     }
 
-    private fun updateTwilightState() {
-        // Calculate the twilight state based on the current time and location.
+    private fun updateTwilightState(forceCalculate: Boolean = false) {
         val currentTimeMillis = System.currentTimeMillis()
-        val location = lastLocation ?: locationManager.getBestProvider(Criteria(), true)
+        val location = lastLocation ?: locationManager.getBestProvider(LOCATION_CRITERIA, true)
                 ?.let { locationManager.getLastKnownLocation(it) }
-        val state = calculateTwilightState(location?.latitude, location?.longitude, currentTimeMillis)
+
+        // Keep the schedule calculated for the day until its sunrise has passed
+        val cachedState = lastTwilightState
+        val state = if (forceCalculate || cachedState == null
+                || currentTimeMillis >= cachedState.sunriseTimeMillis
+                || movedSignificantly(scheduleLocation, location)) {
+            scheduleLocation = location
+            calculateTwilightState(location?.latitude, location?.longitude, currentTimeMillis)
+        } else {
+            cachedState
+        }
         Log.d(TAG, "updateTwilightState: $state")
 
         lastTwilightState = state
 
-        // Schedule an alarm to update the state at the next sunrise or sunset.
+        // Schedule a single alarm to update the state at the next sunrise or sunset.
         if (state != null) {
             val triggerAtMillis = if (state.isNight) state.sunriseTimeMillis else state.sunsetTimeMillis
-            alarmManager.setExact(AlarmManager.RTC, triggerAtMillis,
-                    PendingIntent.getBroadcast(context, 0, updateIntent, 0))
+            if (triggerAtMillis != scheduledAlarmMillis) {
+                scheduledAlarmMillis = triggerAtMillis
+                alarmManager.setExact(AlarmManager.RTC, triggerAtMillis,
+                        PendingIntent.getBroadcast(context, 0, updateIntent, 0))
+            }
         }
     }
 
+    private fun movedSignificantly(from: Location?, to: Location?): Boolean {
+        if (from == null || to == null) return from != to
+        return from.distanceTo(to) >= LOCATION_MIN_DISTANCE
+    }
+
     override fun onLocationChanged(location: Location) {
         // Location providers may erroneously return (0.0, 0.0) when they fail to determine the
         // device's location. These location updates can be safely ignored since the chance of a
@@ -220,6 +249,13 @@ class TwilightManager(private val context: Context) : Handler.Callback, Location
         private const val MSG_START_LISTENING = 1
         private const val MSG_STOP_LISTENING = 2
 
+        private const val LOCATION_MIN_TIME = 30 * 60 * 1000L
+        private const val LOCATION_MIN_DISTANCE = 10_000f
+        private val LOCATION_CRITERIA = Criteria().apply {
+            accuracy = Criteria.ACCURACY_COARSE
+            powerRequirement = Criteria.POWER_LOW
+        }
+
         fun calculateTwilightState(latitude: Double?, longitude: Double?, timeMillis: Long): TwilightState? {
             val c = Calendar.getInstance().apply { timeInMillis = timeMillis }
             val calc = SunriseSunsetCalculatorCompat(latitude, longitude, c.timeZone)
@@ -28,13 +28,16 @@ import com.saggitt.omega.util.getTabRipple
 class ColoredButton(context: Context, attrs: AttributeSet) : Button(context, attrs) {
 
     var color: Int = 0
+        set(value) {
+            field = value
+            setTextColor()
+            setRippleColor()
+        }
 
     private val defaultColor = currentTextColor
 
     fun reset() {
         color = Utilities.getOmegaPrefs(context).accentColor
-        setTextColor()
-        setRippleColor()
     }
 
     fun refreshTextColor() {
@@ -0,0 +1,94 @@
+package com.android.launcher3.benchmark;
+
+import android.content.Context;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.InstrumentationRegistry;
+import androidx.test.filters.LargeTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import com.android.launcher3.AppFilter;
+import com.android.launcher3.allapps.search.DefaultAppSearchAlgorithm;
+import com.android.launcher3.allapps.search.DefaultAppSearchAlgorithm.StringMatcher;
+import com.android.launcher3.model.data.AppInfo;
+import com.saggitt.omega.allapps.FuzzyAppSearchAlgorithm;
+import com.saggitt.omega.allapps.OmegaAppFilter;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+/**
+ * Benchmarks for the app search algorithms, matching a query against every app in the drawer as
+ * done on each key typed in the search box.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class AppSearchBenchmark {
+
+    private static final int APP_COUNT = 300;
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private Context mContext;
+    private List<AppInfo> mApps;
+    private int mSink;
+
+    @Before
+    public void setUp() {
+        mContext = InstrumentationRegistry.getTargetContext();
+        mApps = BenchmarkData.createApps(APP_COUNT);
+    }
+
+    @Test
+    public void defaultMatches_prefix() {
+        runDefaultMatches("ca");
+    }
+
+    @Test
+    public void defaultMatches_wordStart() {
+        runDefaultMatches("play");
+    }
+
+    @Test
+    public void defaultMatches_noMatch() {
+        runDefaultMatches("xylophone");
+    }
+
+    @Test
+    public void fuzzyQuery_short() {
+        runFuzzyQuery("cam");
+    }
+
+    @Test
+    public void fuzzyQuery_typo() {
+        runFuzzyQuery("calender");
+    }
+
+    private void runDefaultMatches(String query) {
+        StringMatcher matcher = StringMatcher.getInstance();
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            int matches = 0;
+            for (AppInfo app : mApps) {
+                if (DefaultAppSearchAlgorithm.matches(app, query, matcher)) {
+                    matches++;
+                }
+            }
+            mSink += matches;
+        }
+    }
+
+    private void runFuzzyQuery(String query) {
+        AppFilter filter = new OmegaAppFilter(mContext);
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            mSink += FuzzyAppSearchAlgorithm.query(mContext, query, mApps, filter).size();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.android.launcher3.benchmark;
+
+import android.content.ComponentName;
+import android.os.Process;
+
+import com.android.launcher3.model.data.AppInfo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic data sets shared by the benchmarks. A fixed seed is used so that every run measures
+ * the same data.
+ */
+public class BenchmarkData {
+
+    public static final long SEED = 0x1A2B3C4DL;
+
+    private static final String[] WORDS = {
+            "Camera", "Calendar", "Clock", "Contacts", "Chrome", "Maps", "Messages", "Music",
+            "Photos", "Phone", "Play", "Store", "Files", "Drive", "Docs", "Sheets", "Slides",
+            "Keep", "Notes", "News", "Weather", "Fit", "Wallet", "Translate", "Lens", "Podcasts",
+            "Radio", "Video", "Player", "Editor", "Reader", "Scanner", "Launcher", "Settings",
+            "Bank", "Mail", "Chat", "Social", "Tasks", "Travel", "Food", "Shop", "Éclair",
+            "Größe", "Café", "1Password", "2048", "_debug", "日記", "Überall"
+    };
+
+    /**
+     * Returns {@param count} apps with labels made of one to three words, and random icon colors.
+     */
+    public static List<AppInfo> createApps(int count) {
+        Random random = new Random(SEED);
+        List<AppInfo> apps = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String label = createLabel(random);
+            ComponentName cn = new ComponentName("com.android.launcher3.benchmark.app" + i,
+                    "com.android.launcher3.benchmark.app" + i + ".MainActivity");
+            AppInfo app = new AppInfo(cn, label, Process.myUserHandle(),
+                    AppInfo.makeLaunchIntent(cn));
+            app.iconColor = 0xFF000000 | random.nextInt(0xFFFFFF);
+            apps.add(app);
+        }
+        return apps;
+    }
+
+    /**
+     * Returns {@param count} labels made of one to three words.
+     */
+    public static List<String> createLabels(int count) {
+        Random random = new Random(SEED);
+        List<String> labels = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            labels.add(createLabel(random));
+        }
+        return labels;
+    }
+
+    private static String createLabel(Random random) {
+        StringBuilder sb = new StringBuilder(WORDS[random.nextInt(WORDS.length)]);
+        int extraWords = random.nextInt(3);
+        for (int i = 0; i < extraWords; i++) {
+            sb.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,76 @@
+package com.android.launcher3.benchmark;
+
+import android.content.Context;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.InstrumentationRegistry;
+import androidx.test.filters.LargeTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import com.android.launcher3.allapps.AppInfoComparator;
+import com.android.launcher3.model.data.AppInfo;
+import com.android.launcher3.util.LabelComparator;
+import com.saggitt.omega.allapps.AppColorComparator;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Benchmarks for the comparators used to sort the apps in the drawer. Each iteration sorts a
+ * copy of the same unsorted list.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class ComparatorBenchmark {
+
+    private static final int APP_COUNT = 300;
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private Context mContext;
+    private AppInfo[] mApps;
+    private String[] mLabels;
+    private Object mSink;
+
+    @Before
+    public void setUp() {
+        mContext = InstrumentationRegistry.getTargetContext();
+        List<AppInfo> apps = BenchmarkData.createApps(APP_COUNT);
+        mApps = apps.toArray(new AppInfo[0]);
+        mLabels = BenchmarkData.createLabels(APP_COUNT).toArray(new String[0]);
+    }
+
+    @Test
+    public void sortByLabel() {
+        runSort(mLabels, new LabelComparator());
+    }
+
+    @Test
+    public void sortAppsByTitle() {
+        runSort(mApps, new AppInfoComparator(mContext));
+    }
+
+    @Test
+    public void sortAppsByColor() {
+        runSort(mApps, new AppColorComparator(mContext));
+    }
+
+    private <T> void runSort(T[] unsorted, Comparator<? super T> comparator) {
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            state.pauseTiming();
+            T[] items = unsorted.clone();
+            state.resumeTiming();
+            Arrays.sort(items, comparator);
+            mSink = items;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.android.launcher3.benchmark;
+
+import android.content.res.AssetManager;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.InstrumentationRegistry;
+import androidx.test.filters.LargeTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import com.saggitt.omega.flowerpot.Flowerpot;
+import com.saggitt.omega.flowerpot.parser.FlowerpotReader;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmarks for parsing the flowerpot files shipped in the assets, used to categorize the apps
+ * into drawer folders. The files are read into memory beforehand, so that only the parsing is
+ * measured.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class FlowerpotReaderBenchmark {
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private final List<byte[]> mFiles = new ArrayList<>();
+    private int mSink;
+
+    @Before
+    public void setUp() throws IOException {
+        AssetManager assets = InstrumentationRegistry.getTargetContext().getAssets();
+        for (String name : assets.list(Flowerpot.ASSETS_PATH)) {
+            try (InputStream in = assets.open(Flowerpot.ASSETS_PATH + "/" + name)) {
+                mFiles.add(readFully(in));
+            }
+        }
+    }
+
+    @Test
+    public void readAllRules() throws IOException {
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            for (byte[] file : mFiles) {
+                try (FlowerpotReader reader =
+                        new FlowerpotReader(new ByteArrayInputStream(file))) {
+                    mSink += reader.readRules().size();
+                }
+            }
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int count;
+        while ((count = in.read(buffer)) != -1) {
+            out.write(buffer, 0, count);
+        }
+        return out.toByteArray();
+    }
+}
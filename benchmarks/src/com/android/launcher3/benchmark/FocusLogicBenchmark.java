@@ -0,0 +1,135 @@
+package com.android.launcher3.benchmark;
+
+import android.content.Context;
+import android.view.ContextThemeWrapper;
+import android.view.KeyEvent;
+import android.view.View;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.InstrumentationRegistry;
+import androidx.test.filters.LargeTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import com.android.launcher3.CellLayout;
+import com.android.launcher3.DeviceProfile;
+import com.android.launcher3.InvariantDeviceProfile;
+import com.android.launcher3.R;
+import com.android.launcher3.util.FocusLogic;
+import com.android.launcher3.views.ActivityContext;
+import com.android.launcher3.views.BaseDragLayer;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Benchmarks for the matrices built by {@link FocusLogic} on every key event, on a full
+ * workspace page and hotseat.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class FocusLogicBenchmark {
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private DeviceProfile mDeviceProfile;
+    private CellLayout mWorkspaceLayout;
+    private CellLayout mHotseatLayout;
+    private int[][] mSink;
+
+    @Before
+    public void setUp() {
+        Context targetContext = InstrumentationRegistry.getTargetContext();
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            BenchmarkActivityContext context = new BenchmarkActivityContext(targetContext);
+            mDeviceProfile = context.getDeviceProfile();
+
+            mWorkspaceLayout = new CellLayout(context);
+            fill(mWorkspaceLayout);
+
+            mHotseatLayout = new CellLayout(context);
+            if (mDeviceProfile.isVerticalBarLayout()) {
+                mHotseatLayout.setGridSize(1, mDeviceProfile.inv.numHotseatIcons);
+            } else {
+                mHotseatLayout.setGridSize(mDeviceProfile.inv.numHotseatIcons, 1);
+            }
+            fill(mHotseatLayout);
+        });
+    }
+
+    @Test
+    public void createSparseMatrix() {
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            mSink = FocusLogic.createSparseMatrix(mWorkspaceLayout);
+        }
+    }
+
+    @Test
+    public void createSparseMatrixWithHotseat() {
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            mSink = FocusLogic.createSparseMatrixWithHotseat(
+                    mWorkspaceLayout, mHotseatLayout, mDeviceProfile);
+        }
+    }
+
+    @Test
+    public void createSparseMatrixWithPivotColumn() {
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            mSink = FocusLogic.createSparseMatrixWithPivotColumn(mWorkspaceLayout, -1, 0);
+        }
+    }
+
+    @Test
+    public void createSparseMatrixAndHandleKeyEvent() {
+        int countX = mWorkspaceLayout.getCountX();
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            int[][] matrix = FocusLogic.createSparseMatrix(mWorkspaceLayout);
+            FocusLogic.handleKeyEvent(KeyEvent.KEYCODE_DPAD_RIGHT, matrix, countX - 1, 0, 2,
+                    false);
+            mSink = matrix;
+        }
+    }
+
+    private static void fill(CellLayout layout) {
+        int id = 0;
+        for (int y = 0; y < layout.getCountY(); y++) {
+            for (int x = 0; x < layout.getCountX(); x++) {
+                View view = new View(layout.getContext());
+                view.setFocusable(true);
+                layout.addViewToCellLayout(view, -1, id++,
+                        new CellLayout.LayoutParams(x, y, 1, 1), true);
+            }
+        }
+    }
+
+    /**
+     * Minimal activity context needed to create cell layouts outside of the launcher activity.
+     */
+    private static class BenchmarkActivityContext extends ContextThemeWrapper
+            implements ActivityContext {
+
+        private final DeviceProfile mDeviceProfile;
+
+        BenchmarkActivityContext(Context base) {
+            super(base, R.style.AppTheme);
+            mDeviceProfile = InvariantDeviceProfile.INSTANCE.get(base).getDeviceProfile(base);
+        }
+
+        @Override
+        public BaseDragLayer getDragLayer() {
+            return null;
+        }
+
+        @Override
+        public DeviceProfile getDeviceProfile() {
+            return mDeviceProfile;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.android.launcher3.benchmark;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.filters.LargeTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import com.android.launcher3.util.GridOccupancy;
+import com.android.launcher3.util.RowMaskGridOccupancy;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Benchmarks for {@link GridOccupancy#findVacantCell}, on a large grid where the only vacant
+ * area is in the last rows, which is the worst case when adding items to a full screen.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class GridOccupancyBenchmark {
+
+    private static final int COUNT_X = 10;
+    private static final int COUNT_Y = 12;
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private final int[] mCell = new int[2];
+    private boolean mSink;
+
+    @Test
+    public void findVacantCell_1x1() {
+        runFindVacantCell(new GridOccupancy(COUNT_X, COUNT_Y), 1, 1);
+    }
+
+    @Test
+    public void findVacantCell_2x2() {
+        runFindVacantCell(new GridOccupancy(COUNT_X, COUNT_Y), 2, 2);
+    }
+
+    @Test
+    public void findVacantCell_1x1_rowMask() {
+        runFindVacantCell(new RowMaskGridOccupancy(COUNT_X, COUNT_Y), 1, 1);
+    }
+
+    @Test
+    public void findVacantCell_2x2_rowMask() {
+        runFindVacantCell(new RowMaskGridOccupancy(COUNT_X, COUNT_Y), 2, 2);
+    }
+
+    private void runFindVacantCell(GridOccupancy occupancy, int spanX, int spanY) {
+        fill(occupancy, spanX, spanY);
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            mSink ^= occupancy.findVacantCell(mCell, spanX, spanY);
+        }
+    }
+
+    /**
+     * Marks all the cells except a 2x2 area in the bottom right corner. For spans larger than a
+     * cell, a checkerboard of single cells is also left vacant above it, so that the search has
+     * to skip many partially vacant candidates.
+     */
+    private static GridOccupancy fill(GridOccupancy occupancy, int spanX, int spanY) {
+        occupancy.markCells(0, 0, COUNT_X, COUNT_Y, true);
+        if (spanX > 1 || spanY > 1) {
+            for (int y = COUNT_Y / 2; y < COUNT_Y - 2; y++) {
+                for (int x = y % 2; x < COUNT_X; x += 2) {
+                    occupancy.markCells(x, y, 1, 1, false);
+                }
+            }
+        }
+        occupancy.markCells(COUNT_X - 2, COUNT_Y - 2, 2, 2, false);
+        return occupancy;
+    }
+}
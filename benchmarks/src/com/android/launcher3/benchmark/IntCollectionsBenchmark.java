@@ -0,0 +1,159 @@
+package com.android.launcher3.benchmark;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.filters.LargeTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import com.android.launcher3.util.IntArray;
+import com.android.launcher3.util.IntSet;
+import com.android.launcher3.util.IntSparseArrayMap;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Random;
+
+/**
+ * Benchmarks for the int collections used to track screen and item ids.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class IntCollectionsBenchmark {
+
+    // Roughly the number of items on a well filled home screen
+    private static final int SIZE = 200;
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private final int[] mValues = new int[SIZE];
+    private int mSink;
+
+    @Before
+    public void setUp() {
+        Random random = new Random(BenchmarkData.SEED);
+        for (int i = 0; i < SIZE; i++) {
+            mValues[i] = random.nextInt(SIZE * 10);
+        }
+    }
+
+    @Test
+    public void intArrayAdd() {
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            IntArray array = new IntArray();
+            for (int value : mValues) {
+                array.add(value);
+            }
+            mSink += array.size();
+        }
+    }
+
+    @Test
+    public void intArrayContains() {
+        IntArray array = IntArray.wrap(mValues);
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            int found = 0;
+            for (int i = 0; i < SIZE; i++) {
+                if (array.contains(i)) {
+                    found++;
+                }
+            }
+            mSink += found;
+        }
+    }
+
+    @Test
+    public void intArrayRemoveValue() {
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            state.pauseTiming();
+            IntArray array = IntArray.wrap(mValues.clone());
+            state.resumeTiming();
+            for (int value : mValues) {
+                array.removeValue(value);
+            }
+            mSink += array.size();
+        }
+    }
+
+    @Test
+    public void intSetAdd() {
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            IntSet set = new IntSet();
+            for (int value : mValues) {
+                set.add(value);
+            }
+            mSink += set.size();
+        }
+    }
+
+    @Test
+    public void intSetContains() {
+        IntSet set = new IntSet();
+        for (int value : mValues) {
+            set.add(value);
+        }
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            int found = 0;
+            for (int i = 0; i < SIZE; i++) {
+                if (set.contains(i)) {
+                    found++;
+                }
+            }
+            mSink += found;
+        }
+    }
+
+    @Test
+    public void intSparseArrayMapPut() {
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            IntSparseArrayMap<Integer> map = new IntSparseArrayMap<>();
+            for (int i = 0; i < SIZE; i++) {
+                map.put(mValues[i], i);
+            }
+            mSink += map.size();
+        }
+    }
+
+    @Test
+    public void intSparseArrayMapGet() {
+        IntSparseArrayMap<Integer> map = new IntSparseArrayMap<>();
+        for (int i = 0; i < SIZE; i++) {
+            map.put(mValues[i], i);
+        }
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            int found = 0;
+            for (int value : mValues) {
+                if (map.containsKey(value)) {
+                    found++;
+                }
+            }
+            mSink += found;
+        }
+    }
+
+    @Test
+    public void intSparseArrayMapIterate() {
+        IntSparseArrayMap<Integer> map = new IntSparseArrayMap<>();
+        for (int i = 0; i < SIZE; i++) {
+            map.put(mValues[i], i);
+        }
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            int sum = 0;
+            for (Integer value : map) {
+                sum += value;
+            }
+            mSink += sum;
+        }
+    }
+}
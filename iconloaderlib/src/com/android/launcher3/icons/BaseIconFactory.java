@@ -176,9 +176,15 @@ public class BaseIconFactory implements AutoCloseable {
         icon = normalizeAndWrapToAdaptiveIcon(icon, shrinkNonAdaptiveIcons, null, scale);
         Bitmap bitmap = createIconBitmap(icon, scale[0]);
         if (ATLEAST_OREO && icon instanceof AdaptiveIconCompat) {
+            // Copy the icon into a pooled scratch bitmap, as it is only used as a shadow source
+            Bitmap source = BitmapPool.getInstance().obtain(
+                    bitmap.getWidth(), bitmap.getHeight(), bitmap.getConfig());
+            mCanvas.setBitmap(source);
+            mCanvas.drawBitmap(bitmap, 0, 0, null);
             mCanvas.setBitmap(bitmap);
-            getShadowGenerator().recreateIcon(Bitmap.createBitmap(bitmap), mCanvas);
+            getShadowGenerator().recreateIcon(source, mCanvas);
             mCanvas.setBitmap(null);
+            BitmapPool.getInstance().recycle(source);
         }
 
         if (isInstantApp) {
@@ -190,7 +196,9 @@ public class BaseIconFactory implements AutoCloseable {
             if (badged instanceof BitmapDrawable) {
                 bitmap = ((BitmapDrawable) badged).getBitmap();
             } else {
+                Bitmap unbadged = bitmap;
                 bitmap = createIconBitmap(badged, 1f);
+                BitmapPool.getInstance().recycle(unbadged);
             }
         }
         int color = extractColor(bitmap);
@@ -293,7 +301,7 @@ public class BaseIconFactory implements AutoCloseable {
      * @param scale the scale to apply before drawing {@param icon} on the canvas
      */
     public Bitmap createIconBitmap(@NonNull Drawable icon, float scale, int size) {
-        Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        Bitmap bitmap = BitmapPool.getInstance().obtain(size, size, Bitmap.Config.ARGB_8888);
         if (icon == null) {
             return bitmap;
         }
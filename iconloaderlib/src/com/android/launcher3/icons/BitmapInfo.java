@@ -17,17 +17,28 @@ package com.android.launcher3.icons;
 
 import android.graphics.Bitmap;
 import android.graphics.Bitmap.Config;
+import android.graphics.Paint;
+import android.graphics.Rect;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import java.util.Arrays;
 
 public class BitmapInfo {
 
+    private static final Bitmap[] NO_VARIANTS = new Bitmap[0];
+
     public static final Bitmap LOW_RES_ICON = Bitmap.createBitmap(1, 1, Config.ALPHA_8);
     public static final BitmapInfo LOW_RES_INFO = fromBitmap(LOW_RES_ICON);
 
     public final Bitmap icon;
     public final int color;
 
+    // Downscaled copies of the icon for the sizes it is drawn at. The array is replaced as a
+    // whole, so that it can be read while drawing without locking.
+    private volatile Bitmap[] mSizeVariants = NO_VARIANTS;
+
     public BitmapInfo(Bitmap icon, int color) {
         this.icon = icon;
         this.color = color;
@@ -45,6 +56,55 @@ public class BitmapInfo {
         return new BitmapInfo(bitmap, color);
     }
 
+    /**
+     * Returns the icon rendered at {@param size} pixels, so that it can be drawn without scaling,
+     * or the icon itself when no such copy was prepared.
+     */
+    public Bitmap getIcon(int size) {
+        Bitmap variant = findVariant(mSizeVariants, size);
+        return variant != null ? variant : icon;
+    }
+
+    /**
+     * Renders downscaled copies of the icon for the distinct {@param sizes}, and drops the copies
+     * of other sizes. The copies are only created here, never while drawing.
+     */
+    @WorkerThread
+    public synchronized void prepareSizeVariants(int[] sizes) {
+        if (isNullOrLowRes() || icon.getWidth() != icon.getHeight()) {
+            return;
+        }
+        Bitmap[] current = mSizeVariants;
+        Bitmap[] variants = new Bitmap[sizes.length];
+        int count = 0;
+        for (int size : sizes) {
+            if (size <= 0 || size >= icon.getWidth()) {
+                continue;
+            }
+            Bitmap variant = findVariant(current, size);
+            variants[count++] = variant != null ? variant : createSizeVariant(size);
+        }
+        mSizeVariants = Arrays.copyOf(variants, count);
+    }
+
+    private static Bitmap findVariant(Bitmap[] variants, int size) {
+        for (Bitmap variant : variants) {
+            if (variant.getWidth() == size) {
+                return variant;
+            }
+        }
+        return null;
+    }
+
+    private Bitmap createSizeVariant(int size) {
+        Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG | Paint.ANTI_ALIAS_FLAG);
+        Rect bounds = new Rect(0, 0, size, size);
+        BitmapRenderer renderer = c -> c.drawBitmap(icon, null, bounds, paint);
+        return icon.getConfig() == Config.HARDWARE
+                ? BitmapRenderer.createHardwareBitmap(size, size, renderer)
+                : BitmapRenderer.createSoftwareBitmap(size, size, renderer);
+    }
+
     /**
      * Ideally icon should not be null, except in cases when generating hardware bitmap failed
      */
@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.icons;
+
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN;
+
+import android.graphics.Bitmap;
+import android.graphics.Bitmap.Config;
+import android.graphics.Color;
+import android.util.LongSparseArray;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+
+/**
+ * A pool of mutable bitmaps bucketed by size and config, used for bitmaps which are rendered
+ * often and discarded soon after, like widget previews and intermediate icon renders.
+ *
+ * The pool is bounded by a byte budget; when the budget is exceeded, the bitmaps which were
+ * returned to the pool first are dropped first.
+ */
+public class BitmapPool {
+
+    private static final long MAX_POOL_SIZE_BYTES = 8 * 1024 * 1024;
+
+    private static BitmapPool sInstance;
+
+    /**
+     * Returns the process wide pool, sized based on the available heap.
+     */
+    public static synchronized BitmapPool getInstance() {
+        if (sInstance == null) {
+            sInstance = new BitmapPool(
+                    Math.min(Runtime.getRuntime().maxMemory() / 32, MAX_POOL_SIZE_BYTES));
+        }
+        return sInstance;
+    }
+
+    // Pooled bitmaps by size and config, each bucket oldest first
+    private final LongSparseArray<ArrayDeque<Bitmap>> mBuckets = new LongSparseArray<>();
+    // All pooled bitmaps, oldest first. Bitmaps are hashed by identity, so lookups are O(1)
+    private final LinkedHashSet<Bitmap> mPooled = new LinkedHashSet<>();
+
+    private final long mMaxSizeBytes;
+    private long mSizeBytes;
+
+    public BitmapPool(long maxSizeBytes) {
+        mMaxSizeBytes = maxSizeBytes;
+    }
+
+    /**
+     * Returns a cleared mutable bitmap of the provided size, reusing a pooled bitmap if possible.
+     */
+    @NonNull
+    public Bitmap obtain(int width, int height, Config config) {
+        Bitmap bitmap = null;
+        synchronized (this) {
+            ArrayDeque<Bitmap> bucket = mBuckets.get(getKey(width, height, config));
+            if (bucket != null && !bucket.isEmpty()) {
+                bitmap = bucket.removeLast();
+                mPooled.remove(bitmap);
+                mSizeBytes -= bitmap.getAllocationByteCount();
+            }
+        }
+        if (bitmap == null) {
+            // Creating a bitmap is expensive, do not do this inside the lock.
+            GraphicsUtils.noteNewBitmapCreated();
+            return Bitmap.createBitmap(width, height, config);
+        }
+        bitmap.eraseColor(Color.TRANSPARENT);
+        return bitmap;
+    }
+
+    /**
+     * Returns the bitmap to the pool. The caller should not use the bitmap after this call.
+     */
+    public void recycle(@Nullable Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable()
+                || bitmap.getConfig() == null) {
+            return;
+        }
+        int byteCount = bitmap.getAllocationByteCount();
+        if (byteCount > mMaxSizeBytes) {
+            return;
+        }
+        synchronized (this) {
+            if (!mPooled.add(bitmap)) {
+                return;
+            }
+            long key = getKey(bitmap.getWidth(), bitmap.getHeight(), bitmap.getConfig());
+            ArrayDeque<Bitmap> bucket = mBuckets.get(key);
+            if (bucket == null) {
+                bucket = new ArrayDeque<>();
+                mBuckets.put(key, bucket);
+            }
+            bucket.addLast(bitmap);
+            mSizeBytes += byteCount;
+            trimToSize(mMaxSizeBytes);
+        }
+    }
+
+    /**
+     * Releases pooled bitmaps based on the memory trim level.
+     * @see android.content.ComponentCallbacks2#onTrimMemory(int)
+     */
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            clear();
+        } else if (level >= TRIM_MEMORY_RUNNING_MODERATE) {
+            synchronized (this) {
+                trimToSize(mMaxSizeBytes / 2);
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        trimToSize(0);
+    }
+
+    private void trimToSize(long maxSizeBytes) {
+        Iterator<Bitmap> oldestFirst = mPooled.iterator();
+        while (mSizeBytes > maxSizeBytes && oldestFirst.hasNext()) {
+            Bitmap bitmap = oldestFirst.next();
+            oldestFirst.remove();
+            // The oldest bitmap of the pool is also the oldest of its bucket
+            mBuckets.get(getKey(bitmap.getWidth(), bitmap.getHeight(), bitmap.getConfig()))
+                    .removeFirst();
+            mSizeBytes -= bitmap.getAllocationByteCount();
+        }
+    }
+
+    private static long getKey(int width, int height, Config config) {
+        return ((long) config.ordinal() << 56) | ((long) width << 28) | height;
+    }
+}
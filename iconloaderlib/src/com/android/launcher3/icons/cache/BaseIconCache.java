@@ -51,6 +51,7 @@ import com.android.launcher3.util.ComponentKey;
 import com.android.launcher3.util.SQLiteCacheHelper;
 
 import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -121,7 +122,12 @@ public abstract class BaseIconCache {
     protected final Handler mWorkerHandler;
 
     protected int mIconDpi;
+    protected int mIconPixelSize;
+    // Identifies the shape the icons are rendered with, each shape has its own icons in the DB
+    protected String mIconShapeKey;
     protected IconDB mIconDb;
+    // The sizes the icons are drawn at, the loaded icons get copies rendered at these sizes
+    private volatile int[] mIconDrawSizes = new int[0];
     protected LocaleList mLocaleList = LocaleList.getEmptyLocaleList();
     protected String mSystemState = "";
 
@@ -131,6 +137,11 @@ public abstract class BaseIconCache {
 
     public BaseIconCache(Context context, String dbFileName, Looper bgLooper,
             int iconDpi, int iconPixelSize, boolean inMemoryCache) {
+        this(context, dbFileName, bgLooper, iconDpi, iconPixelSize, "", inMemoryCache);
+    }
+
+    public BaseIconCache(Context context, String dbFileName, Looper bgLooper,
+            int iconDpi, int iconPixelSize, String iconShapeKey, boolean inMemoryCache) {
         mContext = context;
         mDbFileName = dbFileName;
         mPackageManager = context.getPackageManager();
@@ -163,7 +174,9 @@ public abstract class BaseIconCache {
 
         updateSystemState();
         mIconDpi = iconDpi;
-        mIconDb = new IconDB(context, dbFileName, iconPixelSize);
+        mIconPixelSize = iconPixelSize;
+        mIconShapeKey = iconShapeKey;
+        mIconDb = new IconDB(context, dbFileName, iconPixelSize, iconShapeKey);
     }
 
     /**
@@ -183,15 +196,68 @@ public abstract class BaseIconCache {
     protected abstract BaseIconFactory getIconFactory();
 
     public void updateIconParams(int iconDpi, int iconPixelSize) {
-        mWorkerHandler.post(() -> updateIconParamsBg(iconDpi, iconPixelSize));
+        updateIconParams(iconDpi, iconPixelSize, null);
+    }
+
+    /**
+     * Updates the parameters the icons are rendered with. When only the shape changed, the icons
+     * already rendered with the new shape are kept, so switching between a few shapes doesn't
+     * render all the icons again every time.
+     *
+     * @param iconShapeKey the new shape, or null to keep the current one
+     */
+    public void updateIconParams(int iconDpi, int iconPixelSize, @Nullable String iconShapeKey) {
+        mWorkerHandler.post(() -> updateIconParamsBg(iconDpi, iconPixelSize, iconShapeKey));
+    }
+
+    /**
+     * Updates the sizes the icons are drawn at, and renders the copies of the icons in memory for
+     * these sizes in the background.
+     */
+    public void updateIconDrawSizes(int[] sizes) {
+        mWorkerHandler.post(() -> updateIconDrawSizesBg(sizes));
     }
 
-    private synchronized void updateIconParamsBg(int iconDpi, int iconPixelSize) {
+    private void updateIconDrawSizesBg(int[] sizes) {
+        mIconDrawSizes = sizes;
+        ArrayList<BitmapInfo> icons = new ArrayList<>();
+        synchronized (this) {
+            for (CacheEntry entry : mCache.values()) {
+                icons.add(entry.bitmap);
+            }
+            icons.addAll(mDefaultIcons.values());
+        }
+        for (BitmapInfo icon : icons) {
+            icon.prepareSizeVariants(sizes);
+        }
+    }
+
+    /**
+     * Renders the copies of {@param icon} at the sizes the icons are drawn at, so that they are
+     * never rendered while drawing.
+     */
+    protected void prepareSizeVariants(BitmapInfo icon) {
+        if (Looper.myLooper() == mBgLooper) {
+            icon.prepareSizeVariants(mIconDrawSizes);
+        } else {
+            mWorkerHandler.post(() -> icon.prepareSizeVariants(mIconDrawSizes));
+        }
+    }
+
+    private synchronized void updateIconParamsBg(int iconDpi, int iconPixelSize,
+            @Nullable String iconShapeKey) {
+        if (iconDpi != mIconDpi || iconPixelSize != mIconPixelSize) {
+            // The icons of all the shapes are rendered at the wrong size
+            mIconDb.clear();
+        }
         mIconDpi = iconDpi;
+        mIconPixelSize = iconPixelSize;
+        if (iconShapeKey != null) {
+            mIconShapeKey = iconShapeKey;
+        }
         mDefaultIcons.clear();
-        mIconDb.clear();
         mIconDb.close();
-        mIconDb = new IconDB(mContext, mDbFileName, iconPixelSize);
+        mIconDb = new IconDB(mContext, mDbFileName, iconPixelSize, mIconShapeKey);
         mCache.clear();
     }
 
@@ -261,7 +327,8 @@ public abstract class BaseIconCache {
 
     public synchronized void removeAllIcons() {
         mCache.clear();
-        mIconDb.delete(null, null);
+        // Drop the icons of the other shapes as well, they are just as outdated
+        mIconDb.clear();
     }
 
     public IconCacheUpdateHandler getUpdateHandler() {
@@ -529,9 +596,17 @@ public abstract class BaseIconCache {
      * Cache class to store the actual entries on disk
      */
     public static final class IconDB extends SQLiteCacheHelper {
-        private static final int RELEASE_VERSION = 27;
+        private static final int RELEASE_VERSION = 28;
+
+        // The number of shapes to keep the rendered icons of
+        private static final int MAX_SHAPE_TABLES = 3;
 
         public static final String TABLE_NAME = "icons";
+        // The icon tables of each shape, and when they were last used
+        private static final String SHAPES_TABLE_NAME = "icon_shapes";
+        private static final String COLUMN_TABLE_NAME = "tableName";
+        private static final String COLUMN_LAST_USED = "lastUsed";
+
         public static final String COLUMN_ROWID = "rowid";
         public static final String COLUMN_COMPONENT = "componentName";
         public static final String COLUMN_USER = "profileId";
@@ -548,13 +623,30 @@ public abstract class BaseIconCache {
         public static final String[] COLUMNS_LOW_RES = new String[] {
                 IconDB.COLUMN_ICON_COLOR, IconDB.COLUMN_LABEL };
 
+        private final String mTableName;
+
         public IconDB(Context context, String dbFileName, int iconPixelSize) {
-            super(context, dbFileName, (RELEASE_VERSION << 16) + iconPixelSize, TABLE_NAME);
+            this(context, dbFileName, iconPixelSize, "");
+        }
+
+        public IconDB(Context context, String dbFileName, int iconPixelSize, String shapeKey) {
+            super(context, dbFileName, (RELEASE_VERSION << 16) + iconPixelSize,
+                    getTableName(shapeKey));
+            mTableName = getTableName(shapeKey);
+        }
+
+        private static String getTableName(String shapeKey) {
+            return TextUtils.isEmpty(shapeKey)
+                    ? TABLE_NAME : TABLE_NAME + "_" + Integer.toHexString(shapeKey.hashCode());
         }
 
         @Override
         protected void onCreateTable(SQLiteDatabase db) {
-            db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_NAME + " ("
+            db.execSQL("CREATE TABLE IF NOT EXISTS " + SHAPES_TABLE_NAME + " ("
+                    + COLUMN_TABLE_NAME + " TEXT NOT NULL PRIMARY KEY, "
+                    + COLUMN_LAST_USED + " INTEGER NOT NULL DEFAULT 0"
+                    + ");");
+            db.execSQL("CREATE TABLE IF NOT EXISTS " + mTableName + " ("
                     + COLUMN_COMPONENT + " TEXT NOT NULL, "
                     + COLUMN_USER + " INTEGER NOT NULL, "
                     + COLUMN_LAST_UPDATED + " INTEGER NOT NULL DEFAULT 0, "
@@ -567,6 +659,49 @@ public abstract class BaseIconCache {
                     + "PRIMARY KEY (" + COLUMN_COMPONENT + ", " + COLUMN_USER + ") "
                     + ");");
         }
+
+        @Override
+        protected void onOpenDatabase(SQLiteDatabase db) {
+            // The database can be opened for a shape it has no table for yet
+            onCreateTable(db);
+
+            ContentValues values = new ContentValues();
+            values.put(COLUMN_TABLE_NAME, mTableName);
+            values.put(COLUMN_LAST_USED, System.currentTimeMillis());
+            db.insertWithOnConflict(SHAPES_TABLE_NAME, null, values,
+                    SQLiteDatabase.CONFLICT_REPLACE);
+
+            // Drop the icons of the shapes which weren't used for the longest time
+            ArrayList<String> staleTables = new ArrayList<>();
+            try (Cursor c = db.query(SHAPES_TABLE_NAME, new String[] {COLUMN_TABLE_NAME},
+                    null, null, null, null, COLUMN_LAST_USED + " DESC")) {
+                if (c.moveToPosition(MAX_SHAPE_TABLES - 1)) {
+                    while (c.moveToNext()) {
+                        staleTables.add(c.getString(0));
+                    }
+                }
+            }
+            for (String tableName : staleTables) {
+                db.execSQL("DROP TABLE IF EXISTS " + tableName);
+                db.delete(SHAPES_TABLE_NAME, COLUMN_TABLE_NAME + " = ?",
+                        new String[] {tableName});
+            }
+        }
+
+        @Override
+        protected void onDropTables(SQLiteDatabase db) {
+            try (Cursor c = db.query(SHAPES_TABLE_NAME, new String[] {COLUMN_TABLE_NAME},
+                    null, null, null, null, null)) {
+                while (c.moveToNext()) {
+                    db.execSQL("DROP TABLE IF EXISTS " + c.getString(0));
+                }
+            } catch (SQLiteException e) {
+                // The shapes table doesn't exist yet when upgrading from a single table
+            }
+            db.execSQL("DROP TABLE IF EXISTS " + SHAPES_TABLE_NAME);
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE_NAME);
+            db.execSQL("DROP TABLE IF EXISTS " + mTableName);
+        }
     }
 
     private ContentValues newContentValues(BitmapInfo bitmapInfo, String label,
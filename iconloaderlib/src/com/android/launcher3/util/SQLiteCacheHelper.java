@@ -89,6 +89,18 @@ public abstract class SQLiteCacheHelper {
 
     protected abstract void onCreateTable(SQLiteDatabase db);
 
+    /**
+     * Called every time the database is opened for writing, after it was created or upgraded.
+     */
+    protected void onOpenDatabase(SQLiteDatabase db) { }
+
+    /**
+     * Drops all the tables of the cache, which are then created again.
+     */
+    protected void onDropTables(SQLiteDatabase db) {
+        db.execSQL("DROP TABLE IF EXISTS " + mTableName);
+    }
+
     /**
      * A private inner class to prevent direct DB access.
      */
@@ -103,6 +115,14 @@ public abstract class SQLiteCacheHelper {
             onCreateTable(db);
         }
 
+        @Override
+        public void onOpen(SQLiteDatabase db) {
+            super.onOpen(db);
+            if (!db.isReadOnly()) {
+                onOpenDatabase(db);
+            }
+        }
+
         @Override
         public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
             if (oldVersion != newVersion) {
@@ -118,7 +138,7 @@ public abstract class SQLiteCacheHelper {
         }
 
         private void clearDB(SQLiteDatabase db) {
-            db.execSQL("DROP TABLE IF EXISTS " + mTableName);
+            onDropTables(db);
             onCreate(db);
         }
     }
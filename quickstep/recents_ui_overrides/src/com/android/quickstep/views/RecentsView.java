@@ -145,6 +145,7 @@ import com.android.systemui.shared.system.PackageManagerWrapper;
 import com.android.systemui.shared.system.TaskStackChangeListener;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.function.Consumer;
 
 /**
@@ -262,6 +263,12 @@ public abstract class RecentsView<T extends StatefulActivity> extends PagedView
 
     private static final int DISMISS_TASK_DURATION = 300;
     private static final int ADDITION_TASK_DURATION = 200;
+    // Number of task thumbnails prefetched ahead of the visible tasks while scrolling, increased
+    // by one for each multiple of the fast fling velocity
+    private static final int MIN_PREFETCH_TASKS = 2;
+    private static final int MAX_PREFETCH_TASKS = 6;
+    // Number of task views kept inflated for the next time overview is shown
+    private static final int TASK_VIEW_POOL_WARM_SIZE = 10;
     // The threshold at which we update the SystemUI flags when animating from the task into the app
     public static final float UPDATE_SYSUI_FLAGS_THRESHOLD = 0.85f;
 
@@ -277,6 +284,15 @@ public abstract class RecentsView<T extends StatefulActivity> extends PagedView
     // Keeps track of the previously known visible tasks for purposes of loading/unloading task data
     private final SparseBooleanArray mHasVisibleTaskData = new SparseBooleanArray();
 
+    // Tasks next to the visible ones whose thumbnails are loaded ahead, and the window they were
+    // computed for
+    private final ArrayList<TaskKey> mPrefetchTasks = new ArrayList<>();
+    private int mPrefetchLower = -1;
+    private int mPrefetchUpper = -1;
+    private int mPrefetchDirection;
+    private int mPrefetchCount;
+    private int mLastPrefetchScroll;
+
     private final InvariantDeviceProfile mIdp;
 
     private final ViewPool<TaskView> mTaskViewPool;
@@ -444,7 +460,7 @@ public abstract class RecentsView<T extends StatefulActivity> extends PagedView
                 .inflate(R.layout.overview_clear_all_button, this, false);
         mClearAllButton.setOnClickListener(this::dismissAllTasks);
         mTaskViewPool = new ViewPool<>(context, this, R.layout.task, 20 /* max size */,
-                10 /* initial size */);
+                TASK_VIEW_POOL_WARM_SIZE /* initial size */);
 
         mIsRtl = mOrientationHandler.getRecentsRtlSetting(getResources());
         setLayoutDirection(mIsRtl ? View.LAYOUT_DIRECTION_RTL : View.LAYOUT_DIRECTION_LTR);
@@ -1014,6 +1030,65 @@ public abstract class RecentsView<T extends StatefulActivity> extends PagedView
                 mHasVisibleTaskData.delete(task.key.id);
             }
         }
+        updatePrefetchTasks(lower, upper);
+    }
+
+    /**
+     * Prefetches the thumbnails of the tasks next to the visible ones, nearest first. While
+     * scrolling, only the tasks in the scroll direction are prefetched, and more of them the
+     * faster the scroll.
+     */
+    private void updatePrefetchTasks(int lower, int upper) {
+        int scroll = mOrientationHandler.getPrimaryScroll(this);
+        int scrollDelta = mScroller.isFinished()
+                ? scroll - mLastPrefetchScroll
+                : mScroller.getFinalPos() - mScroller.getCurrPos();
+        mLastPrefetchScroll = scroll;
+
+        int direction = Integer.signum(scrollDelta);
+        if (getScrollForPage(getChildCount() - 1) < getScrollForPage(0)) {
+            // Scrolling forward shows the previous pages
+            direction = -direction;
+        }
+        int count = 1;
+        if (direction != 0) {
+            float velocity = mScroller.isFinished() ? 0 : mScroller.getCurrVelocity();
+            count = Utilities.boundToRange(
+                    MIN_PREFETCH_TASKS + (int) (velocity / mFastFlingVelocity),
+                    MIN_PREFETCH_TASKS, MAX_PREFETCH_TASKS);
+        }
+        if (lower == mPrefetchLower && upper == mPrefetchUpper && direction == mPrefetchDirection
+                && count == mPrefetchCount) {
+            return;
+        }
+        mPrefetchLower = lower;
+        mPrefetchUpper = upper;
+        mPrefetchDirection = direction;
+        mPrefetchCount = count;
+
+        mPrefetchTasks.clear();
+        for (int i = 1; i <= count; i++) {
+            if (direction >= 0) {
+                addPrefetchTask(upper + i);
+            }
+            if (direction <= 0) {
+                addPrefetchTask(lower - i);
+            }
+        }
+        mModel.getThumbnailCache().setPrefetchTasks(mPrefetchTasks);
+    }
+
+    private void addPrefetchTask(int index) {
+        if (index < 0 || index >= getChildCount()) {
+            return;
+        }
+        View child = getChildAt(index);
+        if (child instanceof TaskView) {
+            Task task = ((TaskView) child).getTask();
+            if (task != null && task != mTmpRunningTask) {
+                mPrefetchTasks.add(task.key);
+            }
+        }
     }
 
     /**
@@ -1029,6 +1104,9 @@ public abstract class RecentsView<T extends StatefulActivity> extends PagedView
             }
         }
         mHasVisibleTaskData.clear();
+
+        mPrefetchLower = mPrefetchUpper = -1;
+        mModel.getThumbnailCache().setPrefetchTasks(Collections.emptyList());
     }
 
     @Override
@@ -1072,6 +1150,10 @@ public abstract class RecentsView<T extends StatefulActivity> extends PagedView
         if (mOrientationState.setGestureActive(false)) {
             updateOrientationHandler();
         }
+
+        // Refill the pool while the launcher is idle, so that the task views do not need to be
+        // inflated during the next swipe up
+        mTaskViewPool.warmUp(TASK_VIEW_POOL_WARM_SIZE);
     }
 
     public @Nullable
@@ -0,0 +1,83 @@
+package com.android.quickstep.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import android.content.Intent;
+
+import com.android.systemui.shared.recents.model.Task.TaskKey;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/**
+ * Tests for {@link TaskKeyLruCache}
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TaskKeyLruCacheTest {
+
+    @Test
+    public void put_evictsEldestEntryByCount() {
+        TaskKeyLruCache<String> cache = new TaskKeyLruCache<>(2);
+        cache.put(key(1), "1");
+        cache.put(key(2), "2");
+        cache.put(key(3), "3");
+
+        assertNull(cache.getAndInvalidateIfModified(key(1)));
+        assertEquals("2", cache.getAndInvalidateIfModified(key(2)));
+        assertEquals("3", cache.getAndInvalidateIfModified(key(3)));
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyAccessedEntriesBySize() {
+        TaskKeyLruCache<String> cache = new TaskKeyLruCache<>(10, String::length);
+        cache.put(key(1), "aaaa");
+        cache.put(key(2), "bbbb");
+        // Access the first entry so that the second one is evicted first
+        cache.getAndInvalidateIfModified(key(1));
+        cache.put(key(3), "cccccc");
+
+        assertEquals("aaaa", cache.getAndInvalidateIfModified(key(1)));
+        assertNull(cache.getAndInvalidateIfModified(key(2)));
+        assertEquals("cccccc", cache.getAndInvalidateIfModified(key(3)));
+    }
+
+    @Test
+    public void put_replacingEntryUpdatesSize() {
+        TaskKeyLruCache<String> cache = new TaskKeyLruCache<>(10, String::length);
+        cache.put(key(1), "aaaaaaaa");
+        cache.put(key(1), "a");
+        cache.put(key(2), "bbbbbbbb");
+
+        assertEquals("a", cache.getAndInvalidateIfModified(key(1)));
+        assertEquals("bbbbbbbb", cache.getAndInvalidateIfModified(key(2)));
+    }
+
+    @Test
+    public void updateIfAlreadyInCache_trimsToSize() {
+        TaskKeyLruCache<String> cache = new TaskKeyLruCache<>(10, String::length);
+        cache.put(key(1), "aaaa");
+        cache.put(key(2), "bbbb");
+        cache.updateIfAlreadyInCache(2, "bbbbbbbb");
+
+        assertNull(cache.getAndInvalidateIfModified(key(1)));
+        assertEquals("bbbbbbbb", cache.getAndInvalidateIfModified(key(2)));
+    }
+
+    @Test
+    public void remove_freesSize() {
+        TaskKeyLruCache<String> cache = new TaskKeyLruCache<>(10, String::length);
+        cache.put(key(1), "aaaaaa");
+        cache.removeAll(k -> k.id == 1);
+        cache.put(key(2), "bbbbbb");
+        cache.put(key(3), "cccc");
+
+        assertEquals("bbbbbb", cache.getAndInvalidateIfModified(key(2)));
+        assertEquals("cccc", cache.getAndInvalidateIfModified(key(3)));
+    }
+
+    private static TaskKey key(int id) {
+        return new TaskKey(id, 0, new Intent(), null, 0, 100);
+    }
+}
@@ -148,6 +148,7 @@ public class RecentsModel extends TaskStackChangeListener {
                 }
                 mThumbnailCache.updateThumbnailInCache(task);
             }
+            mIconCache.preloadComponentIcons(tasks);
         });
     }
 
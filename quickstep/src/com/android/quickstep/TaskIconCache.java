@@ -29,19 +29,23 @@ import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.UserHandle;
-import android.util.SparseArray;
+import android.util.LruCache;
 import android.view.accessibility.AccessibilityManager;
 
 import androidx.annotation.RequiresApi;
+import androidx.annotation.UiThread;
 import androidx.annotation.WorkerThread;
 
 import com.android.launcher3.FastBitmapDrawable;
+import com.android.launcher3.LauncherAppState;
 import com.android.launcher3.R;
 import com.android.launcher3.Utilities;
 import com.android.launcher3.icons.BitmapInfo;
 import com.android.launcher3.icons.IconProvider;
 import com.android.launcher3.icons.LauncherIcons;
 import com.android.launcher3.icons.cache.HandlerRunnable;
+import com.android.launcher3.model.data.AppInfo;
+import com.android.launcher3.util.ComponentKey;
 import com.android.launcher3.util.Preconditions;
 import com.android.quickstep.util.TaskKeyLruCache;
 import com.android.systemui.shared.recents.model.Task;
@@ -50,6 +54,7 @@ import com.android.systemui.shared.system.ActivityManagerWrapper;
 import com.android.systemui.shared.system.PackageManagerWrapper;
 import com.android.systemui.shared.system.TaskDescriptionCompat;
 
+import java.util.List;
 import java.util.function.Consumer;
 
 /**
@@ -62,7 +67,9 @@ public class TaskIconCache {
 
     private final Context mContext;
     private final TaskKeyLruCache<TaskCacheEntry> mIconCache;
-    private final SparseArray<BitmapInfo> mDefaultIcons = new SparseArray<>();
+    // Icons and labels of the task components, loaded from the launcher icon cache. Unlike the
+    // task entries, these stay valid when a task becomes active again.
+    private final LruCache<ComponentKey, ComponentCacheEntry> mComponentCache;
     private final IconProvider mIconProvider;
 
     public TaskIconCache(Context context, Looper backgroundLooper) {
@@ -73,6 +80,7 @@ public class TaskIconCache {
         Resources res = context.getResources();
         int cacheSize = res.getInteger(R.integer.recentsIconCacheSize);
         mIconCache = new TaskKeyLruCache<>(cacheSize);
+        mComponentCache = new LruCache<>(cacheSize);
         mIconProvider = IconProvider.INSTANCE.get(context);
     }
 
@@ -90,6 +98,13 @@ public class TaskIconCache {
             callback.accept(task);
             return null;
         }
+        TaskCacheEntry cachedEntry = getCachedEntry(task);
+        if (cachedEntry != null) {
+            task.icon = cachedEntry.icon;
+            task.titleDescription = cachedEntry.contentDescription;
+            callback.accept(task);
+            return null;
+        }
 
         IconLoadRequest request = new IconLoadRequest(mBackgroundHandler) {
             @Override
@@ -111,8 +126,21 @@ public class TaskIconCache {
         return request;
     }
 
+    /**
+     * Loads the icons of the components of the given tasks in the background, so that the tasks
+     * can be shown with their icon right away the next time.
+     */
+    public void preloadComponentIcons(List<Task> tasks) {
+        Utilities.postAsyncCallback(mBackgroundHandler, () -> {
+            for (Task task : tasks) {
+                getComponentEntry(task.key);
+            }
+        });
+    }
+
     public void clear() {
         mIconCache.evictAll();
+        mComponentCache.evictAll();
     }
 
     void onTaskRemoved(TaskKey taskKey) {
@@ -121,8 +149,48 @@ public class TaskIconCache {
 
     void invalidateCacheEntries(String pkg, UserHandle handle) {
         Utilities.postAsyncCallback(mBackgroundHandler,
-                () -> mIconCache.removeAll(key ->
-                        pkg.equals(key.getPackageName()) && handle.getIdentifier() == key.userId));
+                () -> {
+                    mIconCache.removeAll(key -> pkg.equals(key.getPackageName())
+                            && handle.getIdentifier() == key.userId);
+                    for (ComponentKey key : mComponentCache.snapshot().keySet()) {
+                        if (pkg.equals(key.componentName.getPackageName())
+                                && handle.equals(key.user)) {
+                            mComponentCache.remove(key);
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Returns the cache entry of the task if it can be built without loading anything, either
+     * because it is already cached or because the task uses the cached icon of its component.
+     */
+    @UiThread
+    private TaskCacheEntry getCachedEntry(Task task) {
+        TaskCacheEntry entry = mIconCache.getAndInvalidateIfModified(task.key);
+        if (entry != null) {
+            return entry;
+        }
+
+        TaskDescription desc = task.taskDescription;
+        if (desc == null || desc.getInMemoryIcon() != null || desc.getIconFilename() != null
+                || (needsContentDescription() && desc.getLabel() != null)) {
+            // The task has its own icon or label, which needs to be loaded
+            return null;
+        }
+        ComponentCacheEntry componentEntry = mComponentCache.get(
+                new ComponentKey(task.key.getComponent(), UserHandle.of(task.key.userId)));
+        if (componentEntry == null) {
+            return null;
+        }
+
+        entry = new TaskCacheEntry();
+        entry.icon = new FastBitmapDrawable(componentEntry.icon);
+        if (needsContentDescription()) {
+            entry.contentDescription = componentEntry.contentDescription;
+        }
+        mIconCache.put(task.key, entry);
+        return entry;
     }
 
     @RequiresApi(api = Build.VERSION_CODES.O)
@@ -135,7 +203,7 @@ public class TaskIconCache {
 
         TaskDescription desc = task.taskDescription;
         TaskKey key = task.key;
-        ActivityInfo activityInfo = null;
+        ComponentCacheEntry componentEntry = null;
 
         // Create new cache entry
         entry = new TaskCacheEntry();
@@ -150,31 +218,17 @@ public class TaskIconCache {
                     desc.getPrimaryColor(),
                     false /* isInstantApp */));
         } else {
-            activityInfo = PackageManagerWrapper.getInstance().getActivityInfo(
-                    key.getComponent(), key.userId);
-            /*if (activityInfo != null) {
-                BitmapInfo bitmapInfo = getBitmapInfo(
-                        mIconProvider.getIcon(activityInfo, UserHandle.of(key.userId)),
-                        key.userId,
-                        desc.getPrimaryColor(),
-                        activityInfo.applicationInfo.isInstantApp());
-                entry.icon = newIcon(mContext, bitmapInfo);
-            } else {*/
-            entry.icon = getDefaultIcon(key.userId);
-            //}
+            componentEntry = getComponentEntry(key);
+            entry.icon = new FastBitmapDrawable(componentEntry.icon);
         }
 
         // Loading content descriptions if accessibility or low RAM recents is enabled.
-        if (GO_LOW_RAM_RECENTS_ENABLED || mAccessibilityManager.isEnabled()) {
-            // Skip loading the content description if the activity no longer exists
-            if (activityInfo == null) {
-                activityInfo = PackageManagerWrapper.getInstance().getActivityInfo(
-                        key.getComponent(), key.userId);
-            }
-            if (activityInfo != null) {
-                entry.contentDescription = ActivityManagerWrapper.getInstance()
-                        .getBadgedContentDescription(activityInfo, task.key.userId,
-                                task.taskDescription);
+        if (needsContentDescription()) {
+            if (componentEntry != null && desc.getLabel() == null) {
+                // The task uses the label of its component, loaded along with the icon
+                entry.contentDescription = componentEntry.contentDescription;
+            } else {
+                entry.contentDescription = loadContentDescription(task);
             }
         }
 
@@ -183,17 +237,43 @@ public class TaskIconCache {
     }
 
     @WorkerThread
-    private Drawable getDefaultIcon(int userId) {
-        synchronized (mDefaultIcons) {
-            BitmapInfo info = mDefaultIcons.get(userId);
-            if (info == null) {
-                try (LauncherIcons la = LauncherIcons.obtain(mContext)) {
-                    info = la.makeDefaultIcon(UserHandle.of(userId));
-                }
-                mDefaultIcons.put(userId, info);
-            }
-            return new FastBitmapDrawable(info);
+    private String loadContentDescription(Task task) {
+        ActivityInfo activityInfo = PackageManagerWrapper.getInstance().getActivityInfo(
+                task.key.getComponent(), task.key.userId);
+        // Skip loading the content description if the activity no longer exists
+        return activityInfo == null ? "" : ActivityManagerWrapper.getInstance()
+                .getBadgedContentDescription(activityInfo, task.key.userId, task.taskDescription);
+    }
+
+    /**
+     * Returns the icon and label of the task component from the launcher icon cache, which keeps
+     * them in its database across restarts.
+     */
+    @WorkerThread
+    private ComponentCacheEntry getComponentEntry(TaskKey taskKey) {
+        ComponentKey key = new ComponentKey(taskKey.getComponent(), UserHandle.of(taskKey.userId));
+        ComponentCacheEntry entry = mComponentCache.get(key);
+        if (entry != null) {
+            return entry;
+        }
+
+        AppInfo info = new AppInfo();
+        info.componentName = key.componentName;
+        info.intent = AppInfo.makeLaunchIntent(key.componentName);
+        info.user = key.user;
+        LauncherAppState.getInstance(mContext).getIconCache().getTitleAndIcon(info, false);
+
+        entry = new ComponentCacheEntry();
+        entry.icon = info.bitmap;
+        if (info.contentDescription != null) {
+            entry.contentDescription = info.contentDescription.toString();
         }
+        mComponentCache.put(key, entry);
+        return entry;
+    }
+
+    private boolean needsContentDescription() {
+        return GO_LOW_RAM_RECENTS_ENABLED || mAccessibilityManager.isEnabled();
     }
 
     @WorkerThread
@@ -219,4 +299,9 @@ public class TaskIconCache {
         public Drawable icon;
         public String contentDescription = "";
     }
+
+    private static class ComponentCacheEntry {
+        public BitmapInfo icon;
+        public String contentDescription = "";
+    }
 }
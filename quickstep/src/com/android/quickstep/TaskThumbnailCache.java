@@ -21,6 +21,7 @@ import android.content.Context;
 import android.content.res.Resources;
 import android.os.Handler;
 import android.os.Looper;
+import android.util.Log;
 
 import com.android.launcher3.R;
 import com.android.launcher3.Utilities;
@@ -33,17 +34,29 @@ import com.android.systemui.shared.recents.model.ThumbnailData;
 import com.android.systemui.shared.system.ActivityManagerWrapper;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Consumer;
 
 public class TaskThumbnailCache {
 
+    private static final String TAG = "TaskThumbnailCache";
+
     private final Handler mBackgroundHandler;
 
     private final int mCacheSize;
     private final TaskKeyLruCache<ThumbnailData> mCache;
+    // Prefetched thumbnails, kept apart so that they never evict the ones which were shown. They
+    // move to mCache once they are requested.
+    private final TaskKeyLruCache<ThumbnailData> mPrefetchCache;
     private final HighResLoadingState mHighResLoadingState;
     private final boolean mEnableTaskSnapshotPreloading;
 
+    // Tasks to prefetch, by decreasing priority. Only one prefetch request is pending at a time,
+    // so that the loads of the visible tasks are not queued behind them.
+    private final ArrayList<TaskKey> mPrefetchQueue = new ArrayList<>();
+    private TaskKey mPrefetchKey;
+    private ThumbnailLoadRequest mPrefetchRequest;
+
     public TaskThumbnailCache(Context context, Looper backgroundLooper) {
         mBackgroundHandler = new Handler(backgroundLooper);
         mHighResLoadingState = new HighResLoadingState(context);
@@ -51,7 +64,15 @@ public class TaskThumbnailCache {
         Resources res = context.getResources();
         mCacheSize = res.getInteger(R.integer.recentsThumbnailCacheSize);
         mEnableTaskSnapshotPreloading = res.getBoolean(R.bool.config_enableTaskSnapshotPreloading);
-        mCache = new TaskKeyLruCache<>(mCacheSize);
+        mCache = new TaskKeyLruCache<>(res.getInteger(R.integer.recentsThumbnailCacheSizeKb) * 1024,
+                TaskThumbnailCache::getByteCount);
+        mPrefetchCache = new TaskKeyLruCache<>(
+                res.getInteger(R.integer.recentsThumbnailPrefetchCacheSizeKb) * 1024,
+                TaskThumbnailCache::getByteCount);
+    }
+
+    private static int getByteCount(ThumbnailData data) {
+        return data == null || data.thumbnail == null ? 0 : data.thumbnail.getAllocationByteCount();
     }
 
     /**
@@ -87,6 +108,7 @@ public class TaskThumbnailCache {
     public void updateTaskSnapShot(int taskId, ThumbnailData thumbnail) {
         Preconditions.assertUIThread();
         mCache.updateIfAlreadyInCache(taskId, thumbnail);
+        mPrefetchCache.updateIfAlreadyInCache(taskId, thumbnail);
     }
 
     /**
@@ -119,6 +141,13 @@ public class TaskThumbnailCache {
         Preconditions.assertUIThread();
 
         ThumbnailData cachedThumbnail = mCache.getAndInvalidateIfModified(key);
+        if (cachedThumbnail == null) {
+            cachedThumbnail = mPrefetchCache.getAndInvalidateIfModified(key);
+            if (cachedThumbnail != null) {
+                mPrefetchCache.remove(key);
+                mCache.put(key, cachedThumbnail);
+            }
+        }
         if (cachedThumbnail != null && (!cachedThumbnail.reducedResolution || lowResolution)) {
             // Already cached, lets use that thumbnail
             callback.accept(cachedThumbnail);
@@ -148,11 +177,83 @@ public class TaskThumbnailCache {
         return request;
     }
 
+    /**
+     * Loads the low resolution thumbnails of the given tasks into the cache, in order, so that
+     * they are ready when the tasks become visible. This replaces the previous prefetch tasks, and
+     * the pending loads of tasks which are no longer in {@param keys} are canceled.
+     */
+    public void setPrefetchTasks(List<TaskKey> keys) {
+        Preconditions.assertUIThread();
+        mPrefetchQueue.clear();
+        boolean keepPending = false;
+        for (TaskKey key : keys) {
+            if (mPrefetchKey != null && mPrefetchKey.id == key.id) {
+                keepPending = true;
+            } else {
+                mPrefetchQueue.add(key);
+            }
+        }
+        if (mPrefetchRequest != null && !keepPending) {
+            mPrefetchRequest.cancel();
+            mPrefetchRequest = null;
+            mPrefetchKey = null;
+        }
+        prefetchNext();
+    }
+
+    private void prefetchNext() {
+        while (mPrefetchRequest == null && !mPrefetchQueue.isEmpty()) {
+            TaskKey key = mPrefetchQueue.remove(0);
+            if (mCache.getAndInvalidateIfModified(key) != null
+                    || mPrefetchCache.getAndInvalidateIfModified(key) != null) {
+                // Any cached thumbnail is good enough to show while scrolling
+                continue;
+            }
+            mPrefetchKey = key;
+            mPrefetchRequest = new ThumbnailLoadRequest(mBackgroundHandler,
+                    true /* lowResolution */) {
+                @Override
+                public void run() {
+                    ThumbnailData thumbnail = null;
+                    try {
+                        thumbnail = ActivityManagerWrapper.getInstance().getTaskThumbnail(
+                                key.id, true /* lowResolution */);
+                    } catch (RuntimeException e) {
+                        Log.w(TAG, "Failed to prefetch the thumbnail of task " + key.id, e);
+                    }
+                    ThumbnailData result = thumbnail;
+                    MAIN_EXECUTOR.execute(() -> {
+                        if (isCanceled()) {
+                            // The prefetch state was reset along with the cancel
+                            return;
+                        }
+                        // A failed load isn't cached, the next task is prefetched either way
+                        if (result != null && result.thumbnail != null) {
+                            mPrefetchCache.put(key, result);
+                        }
+                        mPrefetchRequest = null;
+                        mPrefetchKey = null;
+                        onEnd();
+                        prefetchNext();
+                    });
+                }
+            };
+            Utilities.postAsyncCallback(mBackgroundHandler, mPrefetchRequest);
+        }
+    }
+
     /**
      * Clears the cache.
      */
     public void clear() {
+        mPrefetchQueue.clear();
+        if (mPrefetchRequest != null) {
+            mPrefetchRequest.cancel();
+            mPrefetchRequest = null;
+            mPrefetchKey = null;
+        }
         mCache.evictAll();
+        mPrefetchCache.evictAll();
     }
 
     /**
@@ -160,6 +261,7 @@ public class TaskThumbnailCache {
      */
     public void remove(Task.TaskKey key) {
         mCache.remove(key);
+        mPrefetchCache.remove(key);
     }
 
     /**
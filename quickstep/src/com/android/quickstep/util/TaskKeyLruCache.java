@@ -19,8 +19,10 @@ import android.util.Log;
 
 import com.android.systemui.shared.recents.model.Task.TaskKey;
 
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
 
 /**
  * A simple LRU cache for task key entries
@@ -29,10 +31,26 @@ import java.util.function.Predicate;
  */
 public class TaskKeyLruCache<V> {
 
-    private final MyLinkedHashMap<V> mMap;
+    private final LinkedHashMap<Integer, Entry<V>> mMap =
+            new LinkedHashMap<>(0, 0.75f, true /* accessOrder */);
+    private final int mMaxSize;
+    private final ToIntFunction<V> mSizeOf;
+    private int mSize;
 
+    /**
+     * Creates a cache holding at most {@param maxSize} entries
+     */
     public TaskKeyLruCache(int maxSize) {
-        mMap = new MyLinkedHashMap<>(maxSize);
+        this(maxSize, v -> 1);
+    }
+
+    /**
+     * Creates a cache holding entries up to a total size of {@param maxSize}, where the size of
+     * each entry is given by {@param sizeOf}
+     */
+    public TaskKeyLruCache(int maxSize, ToIntFunction<V> sizeOf) {
+        mMaxSize = maxSize;
+        mSizeOf = sizeOf;
     }
 
     /**
@@ -40,20 +58,31 @@ public class TaskKeyLruCache<V> {
      */
     public synchronized void evictAll() {
         mMap.clear();
+        mSize = 0;
     }
 
     /**
      * Removes a particular entry from the cache
      */
     public synchronized void remove(TaskKey key) {
-        mMap.remove(key.id);
+        Entry<V> entry = mMap.remove(key.id);
+        if (entry != null) {
+            mSize -= entry.mSize;
+        }
     }
 
     /**
      * Removes all entries matching keyCheck
      */
     public synchronized void removeAll(Predicate<TaskKey> keyCheck) {
-        mMap.entrySet().removeIf(e -> keyCheck.test(e.getValue().mKey));
+        Iterator<Entry<V>> it = mMap.values().iterator();
+        while (it.hasNext()) {
+            Entry<V> entry = it.next();
+            if (keyCheck.test(entry.mKey)) {
+                mSize -= entry.mSize;
+                it.remove();
+            }
+        }
     }
 
     /**
@@ -72,11 +101,18 @@ public class TaskKeyLruCache<V> {
     }
 
     /**
-     * Adds an entry to the cache, optionally evicting the last accessed entry
+     * Adds an entry to the cache, evicting the least recently accessed entries if the cache
+     * exceeds its maximum size
      */
     public final synchronized void put(TaskKey key, V value) {
         if (key != null && value != null) {
-            mMap.put(key.id, new Entry<>(key, value));
+            Entry<V> entry = new Entry<>(key, value, mSizeOf.applyAsInt(value));
+            Entry<V> previous = mMap.put(key.id, entry);
+            if (previous != null) {
+                mSize -= previous.mSize;
+            }
+            mSize += entry.mSize;
+            trimToSize();
         } else {
             Log.e("TaskKeyCache", "Unexpected null key or value: " + key + ", " + value);
         }
@@ -89,6 +125,18 @@ public class TaskKeyLruCache<V> {
         Entry<V> entry = mMap.get(taskId);
         if (entry != null) {
             entry.mValue = data;
+            mSize -= entry.mSize;
+            entry.mSize = mSizeOf.applyAsInt(data);
+            mSize += entry.mSize;
+            trimToSize();
+        }
+    }
+
+    private void trimToSize() {
+        Iterator<Entry<V>> it = mMap.values().iterator();
+        while (mSize > mMaxSize && it.hasNext()) {
+            mSize -= it.next().mSize;
+            it.remove();
         }
     }
 
@@ -96,10 +144,12 @@ public class TaskKeyLruCache<V> {
 
         final TaskKey mKey;
         V mValue;
+        int mSize;
 
-        Entry(TaskKey key, V value) {
+        Entry(TaskKey key, V value, int size) {
             mKey = key;
             mValue = value;
+            mSize = size;
         }
 
         @Override
@@ -107,19 +157,4 @@ public class TaskKeyLruCache<V> {
             return mKey.id;
         }
     }
-
-    private static class MyLinkedHashMap<V> extends LinkedHashMap<Integer, Entry<V>> {
-
-        private final int mMaxSize;
-
-        MyLinkedHashMap(int maxSize) {
-            super(0, 0.75f, true /* accessOrder */);
-            mMaxSize = maxSize;
-        }
-
-        @Override
-        protected boolean removeEldestEntry(Entry<Integer, TaskKeyLruCache.Entry<V>> eldest) {
-            return size() > mMaxSize;
-        }
-    }
 }
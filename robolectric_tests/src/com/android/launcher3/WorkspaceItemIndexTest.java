@@ -0,0 +1,126 @@
+package com.android.launcher3;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Process;
+import android.view.View;
+
+import com.android.launcher3.model.data.LauncherAppWidgetInfo;
+import com.android.launcher3.model.data.WorkspaceItemInfo;
+import com.android.launcher3.util.PackageUserKey;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+
+/**
+ * Unit tests for {@link WorkspaceItemIndex}
+ */
+@RunWith(RobolectricTestRunner.class)
+public class WorkspaceItemIndexTest {
+
+    private Context mContext;
+    private WorkspaceItemIndex mIndex;
+
+    @Before
+    public void setup() {
+        mContext = RuntimeEnvironment.application;
+        mIndex = new WorkspaceItemIndex();
+    }
+
+    @Test
+    public void testLookupById() {
+        View view = createShortcutView(1, "com.example.a");
+        mIndex.onItemViewAdded(view);
+
+        assertSame(view, mIndex.getViewForItemId(1));
+        assertNull(mIndex.getViewForItemId(2));
+
+        mIndex.onItemViewRemoved(view);
+        assertNull(mIndex.getViewForItemId(1));
+    }
+
+    @Test
+    public void testLookupById_ignoresRecycledView() {
+        View view = createShortcutView(1, "com.example.a");
+        mIndex.onItemViewAdded(view);
+        ((WorkspaceItemInfo) view.getTag()).id = 5;
+
+        assertNull(mIndex.getViewForItemId(1));
+    }
+
+    @Test
+    public void testLookupByAppWidgetId() {
+        LauncherAppWidgetInfo info = new LauncherAppWidgetInfo(42,
+                new ComponentName("com.example.b", "Provider"));
+        info.id = 3;
+        info.user = Process.myUserHandle();
+        View view = new View(mContext);
+        view.setTag(info);
+        mIndex.onItemViewAdded(view);
+
+        assertSame(view, mIndex.getViewForAppWidgetId(42));
+        assertSame(view, mIndex.getViewForItemId(3));
+        assertNull(mIndex.getViewForAppWidgetId(43));
+    }
+
+    @Test
+    public void testViewsForPackages() {
+        View a1 = createShortcutView(1, "com.example.a");
+        View a2 = createShortcutView(2, "com.example.a");
+        View b = createShortcutView(3, "com.example.b");
+        mIndex.onItemViewAdded(a1);
+        mIndex.onItemViewAdded(a2);
+        mIndex.onItemViewAdded(b);
+
+        PackageUserKey key = new PackageUserKey("com.example.a", Process.myUserHandle());
+        ArrayList<View> views = new ArrayList<>();
+        mIndex.getViewsForPackages(key::equals, views);
+        assertEquals(2, views.size());
+        assertTrue(views.contains(a1));
+        assertTrue(views.contains(a2));
+
+        mIndex.onItemViewRemoved(a1);
+        views.clear();
+        mIndex.getViewsForPackages(key::equals, views);
+        assertEquals(1, views.size());
+        assertSame(a2, views.get(0));
+    }
+
+    @Test
+    public void testItemViewChanged_reindexes() {
+        View view = createShortcutView(1, "com.example.a");
+        mIndex.onItemViewAdded(view);
+        WorkspaceItemInfo info = (WorkspaceItemInfo) view.getTag();
+        info.intent = new Intent().setComponent(new ComponentName("com.example.b", "Main"));
+        mIndex.onItemViewChanged(view);
+
+        ArrayList<View> views = new ArrayList<>();
+        mIndex.getViewsForPackages(
+                new PackageUserKey("com.example.a", Process.myUserHandle())::equals, views);
+        assertTrue(views.isEmpty());
+        mIndex.getViewsForPackages(
+                new PackageUserKey("com.example.b", Process.myUserHandle())::equals, views);
+        assertEquals(1, views.size());
+    }
+
+    private View createShortcutView(int id, String packageName) {
+        WorkspaceItemInfo info = new WorkspaceItemInfo();
+        info.id = id;
+        info.user = Process.myUserHandle();
+        info.intent = new Intent().setComponent(new ComponentName(packageName, "Main"));
+        View view = new View(mContext);
+        view.setTag(info);
+        return view;
+    }
+}
@@ -0,0 +1,69 @@
+package com.android.launcher3.icons;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import android.graphics.Bitmap;
+import android.graphics.Bitmap.Config;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/**
+ * Unit tests for {@link BitmapInfo}
+ */
+@RunWith(RobolectricTestRunner.class)
+public class BitmapInfoTest {
+
+    @Test
+    public void testGetIcon_withoutVariantsReturnsIcon() {
+        BitmapInfo info = BitmapInfo.fromBitmap(Bitmap.createBitmap(64, 64, Config.ARGB_8888));
+
+        assertSame(info.icon, info.getIcon(48));
+    }
+
+    @Test
+    public void testPrepareSizeVariants_largerOrSameSizeReturnsIcon() {
+        BitmapInfo info = BitmapInfo.fromBitmap(Bitmap.createBitmap(64, 64, Config.ARGB_8888));
+        info.prepareSizeVariants(new int[] {64, 128});
+
+        assertSame(info.icon, info.getIcon(64));
+        assertSame(info.icon, info.getIcon(128));
+    }
+
+    @Test
+    public void testPrepareSizeVariants_smallerSizeIsCreatedOnce() {
+        BitmapInfo info = BitmapInfo.fromBitmap(Bitmap.createBitmap(64, 64, Config.ARGB_8888));
+        info.prepareSizeVariants(new int[] {48});
+
+        Bitmap variant = info.getIcon(48);
+        assertNotSame(info.icon, variant);
+        assertEquals(48, variant.getWidth());
+        assertEquals(48, variant.getHeight());
+
+        info.prepareSizeVariants(new int[] {40, 48});
+        assertSame(variant, info.getIcon(48));
+    }
+
+    @Test
+    public void testPrepareSizeVariants_dropsOtherSizes() {
+        BitmapInfo info = BitmapInfo.fromBitmap(Bitmap.createBitmap(64, 64, Config.ARGB_8888));
+        info.prepareSizeVariants(new int[] {32, 40});
+        Bitmap variant = info.getIcon(40);
+
+        info.prepareSizeVariants(new int[] {40, 48});
+
+        assertSame(info.icon, info.getIcon(32));
+        assertSame(variant, info.getIcon(40));
+        assertNotSame(info.icon, info.getIcon(48));
+    }
+
+    @Test
+    public void testPrepareSizeVariants_lowResReturnsIcon() {
+        BitmapInfo.LOW_RES_INFO.prepareSizeVariants(new int[] {32});
+
+        assertSame(BitmapInfo.LOW_RES_ICON, BitmapInfo.LOW_RES_INFO.getIcon(32));
+    }
+}
@@ -0,0 +1,83 @@
+package com.android.launcher3.icons;
+
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Bitmap;
+import android.graphics.Bitmap.Config;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/**
+ * Unit tests for {@link BitmapPool}
+ */
+@RunWith(RobolectricTestRunner.class)
+public class BitmapPoolTest {
+
+    @Test
+    public void testObtainReusesBitmapOfSameSize() {
+        BitmapPool pool = new BitmapPool(1024 * 1024);
+        Bitmap bitmap = pool.obtain(10, 20, Config.ARGB_8888);
+        pool.recycle(bitmap);
+
+        assertSame(bitmap, pool.obtain(10, 20, Config.ARGB_8888));
+        assertNotSame(bitmap, pool.obtain(10, 20, Config.ARGB_8888));
+    }
+
+    @Test
+    public void testObtainMatchesSizeAndConfig() {
+        BitmapPool pool = new BitmapPool(1024 * 1024);
+        Bitmap bitmap = pool.obtain(10, 20, Config.ARGB_8888);
+        pool.recycle(bitmap);
+
+        Bitmap other = pool.obtain(20, 10, Config.ARGB_8888);
+        assertNotSame(bitmap, other);
+        assertEquals(20, other.getWidth());
+        assertEquals(10, other.getHeight());
+        assertNotSame(bitmap, pool.obtain(10, 20, Config.ALPHA_8));
+        assertSame(bitmap, pool.obtain(10, 20, Config.ARGB_8888));
+    }
+
+    @Test
+    public void testBudgetEvictsOldestFirst() {
+        Bitmap first = Bitmap.createBitmap(16, 16, Config.ARGB_8888);
+        Bitmap second = Bitmap.createBitmap(16, 16, Config.ARGB_8888);
+        BitmapPool pool = new BitmapPool(first.getAllocationByteCount());
+        pool.recycle(first);
+        pool.recycle(second);
+
+        assertSame(second, pool.obtain(16, 16, Config.ARGB_8888));
+        Bitmap next = pool.obtain(16, 16, Config.ARGB_8888);
+        assertNotSame(first, next);
+        assertNotSame(second, next);
+    }
+
+    @Test
+    public void testRecycleTwicePoolsOnce() {
+        BitmapPool pool = new BitmapPool(1024 * 1024);
+        Bitmap bitmap = pool.obtain(10, 10, Config.ARGB_8888);
+        pool.recycle(bitmap);
+        pool.recycle(bitmap);
+
+        assertSame(bitmap, pool.obtain(10, 10, Config.ARGB_8888));
+        assertNotSame(bitmap, pool.obtain(10, 10, Config.ARGB_8888));
+    }
+
+    @Test
+    public void testTrimMemoryClearsPool() {
+        BitmapPool pool = new BitmapPool(1024 * 1024);
+        Bitmap bitmap = pool.obtain(10, 10, Config.ARGB_8888);
+        pool.recycle(bitmap);
+        pool.onTrimMemory(TRIM_MEMORY_UI_HIDDEN);
+
+        Bitmap next = pool.obtain(10, 10, Config.ARGB_8888);
+        assertNotSame(bitmap, next);
+        assertTrue(next.isMutable());
+    }
+}
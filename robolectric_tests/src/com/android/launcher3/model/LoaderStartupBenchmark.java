@@ -0,0 +1,263 @@
+package com.android.launcher3.model;
+
+import static com.android.launcher3.util.Executors.MODEL_EXECUTOR;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.util.ReflectionHelpers.setField;
+
+import android.content.Context;
+import android.content.pm.PackageInstaller;
+import android.content.pm.PackageInstaller.SessionInfo;
+import android.content.pm.PackageInstaller.SessionParams;
+
+import com.android.launcher3.InvariantDeviceProfile;
+import com.android.launcher3.LauncherAppState;
+import com.android.launcher3.LauncherSettings;
+import com.android.launcher3.Workspace;
+import com.android.launcher3.config.FeatureFlags;
+import com.android.launcher3.icons.BitmapInfo;
+import com.android.launcher3.shadows.LShadowTimingLogger;
+import com.android.launcher3.util.BenchmarkResults;
+import com.android.launcher3.util.GridOccupancy;
+import com.android.launcher3.util.LauncherLayoutBuilder;
+import com.android.launcher3.util.LauncherModelHelper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.LooperMode;
+import org.robolectric.annotation.LooperMode.Mode;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Benchmarks for the model load, on a synthetic layout with hundreds of apps and dozens of
+ * folders and widgets.
+ *
+ * Each benchmark runs a few warm up iterations followed by measured ones, and reports the total
+ * load time along with the phases timed by {@link LoaderTask}, grouped as load, bind and icon
+ * cache. See {@link BenchmarkResults} for the output format.
+ *
+ * The benchmarks are ignored in regular test runs, remove the {@link Ignore} annotation locally
+ * to run them.
+ */
+@Ignore // Benchmark, too long for continuous testing.
+@RunWith(RobolectricTestRunner.class)
+@LooperMode(Mode.PAUSED)
+@Config(shadows = LShadowTimingLogger.class)
+public class LoaderStartupBenchmark {
+
+    private static final String APP_PACKAGE_PREFIX = "com.android.launcher3.benchmark.app";
+    private static final String WIDGET_PACKAGE = "com.android.launcher3.benchmark.widget";
+
+    // Tag of the TimingLogger used by LoaderTask
+    private static final String LOADER_TAG = "LoaderTask";
+
+    private static final int APP_COUNT = 300;
+    private static final int HOTSEAT_COUNT = 4;
+    private static final int FOLDER_COUNT = 30;
+    private static final int FOLDER_SIZE = 4;
+    private static final int WORKSPACE_APP_COUNT = 60;
+    private static final int WIDGET_COUNT = 12;
+    private static final int GRID_SIZE = 4;
+
+    private static final int WARM_UP_ITERATIONS = 2;
+    private static final int COLD_ITERATIONS = 5;
+    private static final int WARM_ITERATIONS = 10;
+
+    private static final String METRIC_TOTAL = "total";
+    private static final String METRIC_LOAD = "load";
+    private static final String METRIC_BIND = "bind";
+    private static final String METRIC_ICON_CACHE = "icon_cache";
+
+    private final Map<String, Long> mIterationSplits = new LinkedHashMap<>();
+
+    private LauncherModelHelper mModelHelper;
+    private Context mTargetContext;
+
+    @Before
+    public void setUp() throws Exception {
+        mModelHelper = new LauncherModelHelper();
+        mTargetContext = RuntimeEnvironment.application;
+
+        for (int i = 0; i < APP_COUNT; i++) {
+            mModelHelper.installApp(APP_PACKAGE_PREFIX + i);
+        }
+
+        // Add a dummy session info so that the widgets exist
+        SessionParams params = new SessionParams(SessionParams.MODE_FULL_INSTALL);
+        params.setAppPackageName(WIDGET_PACKAGE);
+        PackageInstaller installer = mTargetContext.getPackageManager().getPackageInstaller();
+        SessionInfo sessionInfo = installer.getSessionInfo(installer.createSession(params));
+        setField(sessionInfo, "installerPackageName", "com.test");
+        setField(sessionInfo, "appIcon", BitmapInfo.LOW_RES_ICON);
+
+        mModelHelper.setupDefaultLayoutProvider(buildLayout());
+        LShadowTimingLogger.setSplitListener(this::onSplit);
+    }
+
+    @After
+    public void tearDown() {
+        LShadowTimingLogger.setSplitListener(null);
+    }
+
+    /**
+     * Loads the model from scratch: the layout is imported into an empty DB and every icon is
+     * added to an empty icon cache.
+     */
+    @Test
+    public void testColdLoad() throws Exception {
+        BenchmarkResults results = newResults("LoaderStartupBenchmark_cold");
+        for (int i = 0; i < WARM_UP_ITERATIONS + COLD_ITERATIONS; i++) {
+            resetDbAndIconCache();
+            runIteration(i < WARM_UP_ITERATIONS ? null : results);
+        }
+        verifyModel();
+        results.report();
+    }
+
+    /**
+     * Reloads the model with the DB and icon cache already populated, as when the launcher
+     * process is restarted.
+     */
+    @Test
+    public void testWarmLoad() throws Exception {
+        BenchmarkResults results = newResults("LoaderStartupBenchmark_warm");
+        resetDbAndIconCache();
+        runIteration(null);
+        for (int i = 0; i < WARM_UP_ITERATIONS + WARM_ITERATIONS; i++) {
+            mModelHelper.getModel().forceReloadOnNextLaunch();
+            runIteration(i < WARM_UP_ITERATIONS ? null : results);
+        }
+        verifyModel();
+        results.report();
+    }
+
+    private BenchmarkResults newResults(String name) {
+        return new BenchmarkResults(name)
+                .putParam("apps", APP_COUNT)
+                .putParam("folders", FOLDER_COUNT)
+                .putParam("folderSize", FOLDER_SIZE)
+                .putParam("workspaceApps", WORKSPACE_APP_COUNT)
+                .putParam("widgets", WIDGET_COUNT);
+    }
+
+    private void runIteration(BenchmarkResults results) throws Exception {
+        mIterationSplits.clear();
+        long start = System.nanoTime();
+        mModelHelper.loadModelSync();
+        long total = System.nanoTime() - start;
+        if (results == null) {
+            return;
+        }
+
+        results.addSample(METRIC_TOTAL, total);
+        long load = 0, bind = 0, iconCache = 0;
+        for (Map.Entry<String, Long> e : mIterationSplits.entrySet()) {
+            String split = e.getKey();
+            long duration = e.getValue();
+            results.addSample(split, duration);
+            if (split.contains("icon")) {
+                iconCache += duration;
+            } else if (split.startsWith("bind")) {
+                bind += duration;
+            } else if (split.startsWith("load")) {
+                load += duration;
+            }
+        }
+        results.addSample(METRIC_LOAD, load);
+        results.addSample(METRIC_BIND, bind);
+        results.addSample(METRIC_ICON_CACHE, iconCache);
+    }
+
+    private void onSplit(String tag, String label, String splitLabel, long durationNanos) {
+        if (!LOADER_TAG.equals(tag)) {
+            return;
+        }
+        String key = splitLabel.replace(' ', '_');
+        Long previous = mIterationSplits.get(key);
+        mIterationSplits.put(key, previous == null ? durationNanos : previous + durationNanos);
+    }
+
+    private void resetDbAndIconCache() throws Exception {
+        mModelHelper.getModel().forceReloadOnNextLaunch();
+
+        // Recreating the DB imports the default layout again on the next load
+        LauncherSettings.Settings.call(mTargetContext.getContentResolver(),
+                LauncherSettings.Settings.METHOD_CREATE_EMPTY_DB);
+
+        InvariantDeviceProfile idp = InvariantDeviceProfile.INSTANCE.get(mTargetContext);
+        LauncherAppState.getInstance(mTargetContext).getIconCache()
+                .updateIconParams(idp.fillResIconDpi, idp.iconBitmapSize);
+        MODEL_EXECUTOR.submit(() -> { }).get();
+    }
+
+    private void verifyModel() {
+        BgDataModel dataModel = mModelHelper.getBgDataModel();
+        assertEquals(HOTSEAT_COUNT + FOLDER_COUNT + WORKSPACE_APP_COUNT,
+                dataModel.workspaceItems.size());
+        assertEquals(WIDGET_COUNT, dataModel.appWidgets.size());
+        assertTrue(mModelHelper.getAllAppsList().data.size() >= APP_COUNT);
+    }
+
+    private static LauncherLayoutBuilder buildLayout() {
+        LauncherLayoutBuilder builder = new LauncherLayoutBuilder();
+        int app = 0;
+        for (int i = 0; i < HOTSEAT_COUNT; i++) {
+            builder.atHotseat(i).putApp(getAppPackage(app++), null);
+        }
+
+        WorkspacePlacer placer = new WorkspacePlacer();
+        for (int i = 0; i < WIDGET_COUNT; i++) {
+            placer.place(builder, 2, 2).putWidget(WIDGET_PACKAGE, "DummyWidget" + i, 2, 2);
+        }
+        for (int i = 0; i < FOLDER_COUNT; i++) {
+            LauncherLayoutBuilder.FolderBuilder folder =
+                    placer.place(builder, 1, 1).putFolder("Folder " + i);
+            for (int j = 0; j < FOLDER_SIZE; j++) {
+                folder.addApp(getAppPackage(app++), null);
+            }
+            folder.build();
+        }
+        for (int i = 0; i < WORKSPACE_APP_COUNT; i++) {
+            placer.place(builder, 1, 1).putApp(getAppPackage(app++), null);
+        }
+        return builder;
+    }
+
+    private static String getAppPackage(int index) {
+        return APP_PACKAGE_PREFIX + (index % APP_COUNT);
+    }
+
+    /**
+     * Places items on the first vacant cells, adding screens as needed
+     */
+    private static class WorkspacePlacer {
+
+        private final int[] mCell = new int[2];
+        private GridOccupancy mOccupied = new GridOccupancy(GRID_SIZE, GRID_SIZE);
+        private int mScreen = Workspace.FIRST_SCREEN_ID;
+
+        WorkspacePlacer() {
+            // The first row of the first screen is taken by the QSB
+            mOccupied.markCells(0, 0, GRID_SIZE, 1, FeatureFlags.QSB_ON_FIRST_SCREEN);
+        }
+
+        LauncherLayoutBuilder.Location place(LauncherLayoutBuilder builder,
+                int spanX, int spanY) {
+            while (!mOccupied.findVacantCell(mCell, spanX, spanY)) {
+                mOccupied = new GridOccupancy(GRID_SIZE, GRID_SIZE);
+                mScreen++;
+            }
+            mOccupied.markCells(mCell[0], mCell[1], spanX, spanY, true);
+            return builder.atWorkspace(mCell[0], mCell[1], mScreen);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.android.launcher3.popup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.os.Process;
+import android.os.UserHandle;
+
+import com.android.launcher3.util.PackageUserKey;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.LooperMode;
+import org.robolectric.annotation.LooperMode.Mode;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Unit tests for {@link NotificationDotBatcher}
+ */
+@RunWith(RobolectricTestRunner.class)
+@LooperMode(Mode.PAUSED)
+public class NotificationDotBatcherTest {
+
+    private final UserHandle mUser = Process.myUserHandle();
+    private final PackageUserKey mKeyA = new PackageUserKey("com.example.a", mUser);
+    private final PackageUserKey mKeyB = new PackageUserKey("com.example.b", mUser);
+    private final PackageUserKey mKeyC = new PackageUserKey("com.example.c", mUser);
+
+    private List<List<PackageUserKey>> mApplied;
+    private NotificationDotBatcher mBatcher;
+
+    @Before
+    public void setup() {
+        mApplied = new ArrayList<>();
+        mBatcher = new NotificationDotBatcher(this::record);
+    }
+
+    @Test
+    public void testUpdatesMergedWithinFrame() {
+        mBatcher.add(mKeyA);
+        mBatcher.add(mKeyB);
+        mBatcher.add(mKeyA);
+        assertTrue(mApplied.isEmpty());
+
+        runFrames();
+        assertEquals(1, mApplied.size());
+        assertEquals(2, mApplied.get(0).size());
+        assertTrue(mApplied.get(0).containsAll(Arrays.asList(mKeyA, mKeyB)));
+
+        runFrames();
+        assertEquals(1, mApplied.size());
+    }
+
+    @Test
+    public void testFlushAppliesImmediately() {
+        mBatcher.addAll(Arrays.asList(mKeyA, mKeyC));
+        mBatcher.flush();
+        assertEquals(1, mApplied.size());
+        assertEquals(Arrays.asList(mKeyA, mKeyC), mApplied.get(0));
+
+        // The frame callback was removed, so nothing is applied again
+        runFrames();
+        assertEquals(1, mApplied.size());
+    }
+
+    @Test
+    public void testUpdateDuringApplyIsKeptForNextFrame() {
+        mBatcher = new NotificationDotBatcher(updated -> {
+            record(updated);
+            if (updated.test(mKeyA)) {
+                mBatcher.add(mKeyB);
+            }
+        });
+        mBatcher.add(mKeyA);
+        runFrames();
+
+        assertEquals(2, mApplied.size());
+        assertEquals(Arrays.asList(mKeyA), mApplied.get(0));
+        assertEquals(Arrays.asList(mKeyB), mApplied.get(1));
+    }
+
+    private void record(Predicate<PackageUserKey> updated) {
+        List<PackageUserKey> keys = new ArrayList<>();
+        for (PackageUserKey key : Arrays.asList(mKeyA, mKeyB, mKeyC)) {
+            if (updated.test(key)) {
+                keys.add(key);
+            }
+        }
+        mApplied.add(keys);
+    }
+
+    private static void runFrames() {
+        ShadowLooper.idleMainLooper(100, TimeUnit.MILLISECONDS);
+    }
+}
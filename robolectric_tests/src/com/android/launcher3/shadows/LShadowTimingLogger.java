@@ -0,0 +1,59 @@
+package com.android.launcher3.shadows;
+
+import android.util.TimingLogger;
+
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+
+/**
+ * Shadow for {@link TimingLogger} which reports every split to a listener, regardless of the log
+ * level, so that the phases timed by the launcher can be collected by benchmarks.
+ *
+ * Times are taken from {@link System#nanoTime()}, as the SystemClock is faked in tests.
+ */
+@Implements(TimingLogger.class)
+public class LShadowTimingLogger {
+
+    private static SplitListener sListener;
+
+    private String mTag;
+    private String mLabel;
+    private long mLastSplitNanos;
+
+    public static void setSplitListener(SplitListener listener) {
+        sListener = listener;
+    }
+
+    @Implementation
+    protected void reset(String tag, String label) {
+        mTag = tag;
+        mLabel = label;
+        reset();
+    }
+
+    @Implementation
+    protected void reset() {
+        mLastSplitNanos = System.nanoTime();
+    }
+
+    @Implementation
+    protected void addSplit(String splitLabel) {
+        long now = System.nanoTime();
+        SplitListener listener = sListener;
+        if (listener != null) {
+            listener.onSplit(mTag, mLabel, splitLabel, now - mLastSplitNanos);
+        }
+        mLastSplitNanos = now;
+    }
+
+    @Implementation
+    protected void dumpToLog() { }
+
+    public interface SplitListener {
+
+        /**
+         * Called for every split, with the time elapsed since the previous one
+         */
+        void onSplit(String tag, String label, String splitLabel, long durationNanos);
+    }
+}
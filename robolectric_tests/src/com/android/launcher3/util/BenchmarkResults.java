@@ -0,0 +1,134 @@
+package com.android.launcher3.util;
+
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the samples of a benchmark and reports them as JSON, so that they can be compared
+ * between runs.
+ *
+ * The results are always logged on a single line starting with {@link #LOG_PREFIX}. They are
+ * also written to {@code <name>.json} in the directory set by the {@link #OUTPUT_DIR_PROPERTY}
+ * system property, if any.
+ */
+public class BenchmarkResults {
+
+    private static final String TAG = "BenchmarkResults";
+
+    public static final String LOG_PREFIX = "BENCHMARK_RESULT ";
+    public static final String OUTPUT_DIR_PROPERTY = "launcher.benchmark.outputDir";
+
+    private final String mName;
+    private final Map<String, Object> mParams = new LinkedHashMap<>();
+    private final Map<String, LongArray> mSamples = new LinkedHashMap<>();
+
+    public BenchmarkResults(String name) {
+        mName = name;
+    }
+
+    /**
+     * Records a parameter of the benchmark, like the size of the data set
+     */
+    public BenchmarkResults putParam(String key, Object value) {
+        mParams.put(key, value);
+        return this;
+    }
+
+    /**
+     * Adds a sample for the metric {@param metric}
+     */
+    public void addSample(String metric, long durationNanos) {
+        LongArray samples = mSamples.get(metric);
+        if (samples == null) {
+            samples = new LongArray();
+            mSamples.put(metric, samples);
+        }
+        samples.add(durationNanos);
+    }
+
+    /**
+     * Returns the median of the samples of {@param metric} in nanoseconds, or -1 if there are
+     * none.
+     */
+    public long getMedianNanos(String metric) {
+        LongArray samples = mSamples.get(metric);
+        if (samples == null || samples.size == 0) {
+            return -1;
+        }
+        long[] sorted = samples.toSortedArray();
+        return sorted[sorted.length / 2];
+    }
+
+    public JSONObject toJson() throws JSONException {
+        JSONObject metrics = new JSONObject();
+        for (Map.Entry<String, LongArray> e : mSamples.entrySet()) {
+            long[] sorted = e.getValue().toSortedArray();
+            long sum = 0;
+            for (long sample : sorted) {
+                sum += sample;
+            }
+            metrics.put(e.getKey(), new JSONObject()
+                    .put("unit", "us")
+                    .put("count", sorted.length)
+                    .put("mean", toMicros(sum / sorted.length))
+                    .put("min", toMicros(sorted[0]))
+                    .put("median", toMicros(sorted[sorted.length / 2]))
+                    .put("p90", toMicros(sorted[(sorted.length * 9) / 10]))
+                    .put("max", toMicros(sorted[sorted.length - 1])));
+        }
+        return new JSONObject()
+                .put("benchmark", mName)
+                .put("params", new JSONObject(mParams))
+                .put("metrics", metrics);
+    }
+
+    /**
+     * Logs the results, and writes them to the output directory if one is set.
+     */
+    public void report() throws JSONException, IOException {
+        String json = toJson().toString();
+        Log.i(TAG, LOG_PREFIX + json);
+
+        String outputDir = System.getProperty(OUTPUT_DIR_PROPERTY);
+        if (outputDir != null) {
+            File dir = new File(outputDir);
+            dir.mkdirs();
+            try (Writer writer = new FileWriter(new File(dir, mName + ".json"))) {
+                writer.write(json);
+            }
+        }
+    }
+
+    private static long toMicros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    private static class LongArray {
+        long[] values = new long[16];
+        int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toSortedArray() {
+            long[] result = Arrays.copyOf(values, size);
+            Arrays.sort(result);
+            return result;
+        }
+    }
+}
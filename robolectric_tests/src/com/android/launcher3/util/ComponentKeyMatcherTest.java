@@ -0,0 +1,85 @@
+package com.android.launcher3.util;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.content.ComponentName;
+import android.content.Intent;
+import android.os.Process;
+import android.os.UserHandle;
+
+import com.android.launcher3.model.data.AppInfo;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.HashSet;
+
+/**
+ * Unit tests for {@link ComponentKeyMatcher}
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ComponentKeyMatcherTest {
+
+    private static final UserHandle OTHER_USER = UserHandle.of(10);
+
+    private final AppInfo mApp1 = createApp("app1", Process.myUserHandle());
+    private final AppInfo mApp2 = createApp("app2", Process.myUserHandle());
+    private final AppInfo mOtherUserApp1 = createApp("app1", OTHER_USER);
+
+    @Test
+    public void testIncludedKeys() {
+        ComponentKeyMatcher matcher = new ComponentKeyMatcher(keysOf(mApp1), false, null);
+
+        assertTrue(matcher.matches(mApp1, null));
+        assertFalse(matcher.matches(mApp2, null));
+        assertFalse(matcher.matches(mOtherUserApp1, null));
+    }
+
+    @Test
+    public void testExcludedKeys() {
+        ComponentKeyMatcher matcher = new ComponentKeyMatcher(keysOf(mApp1), true, null);
+
+        assertFalse(matcher.matches(mApp1, null));
+        assertTrue(matcher.matches(mApp2, null));
+        assertTrue(matcher.matches(mOtherUserApp1, null));
+    }
+
+    @Test
+    public void testBaseMatcher() {
+        ComponentKeyMatcher matcher = new ComponentKeyMatcher(keysOf(mApp1), true,
+                ItemInfoMatcher.ofUser(Process.myUserHandle()));
+
+        assertFalse(matcher.matches(mApp1, null));
+        assertTrue(matcher.matches(mApp2, null));
+        assertFalse(matcher.matches(mOtherUserApp1, null));
+    }
+
+    @Test
+    public void testKnownKey_sameAsItemInfo() {
+        ComponentKeyMatcher matcher = new ComponentKeyMatcher(keysOf(mApp1, mOtherUserApp1),
+                false, ItemInfoMatcher.ofUser(Process.myUserHandle()));
+
+        for (AppInfo app : new AppInfo[] {mApp1, mApp2, mOtherUserApp1}) {
+            assertTrue(matcher.matches(app, null)
+                    == matcher.matchesKey(app, app.toComponentKey()));
+        }
+    }
+
+    private static HashSet<ComponentKey> keysOf(AppInfo... apps) {
+        HashSet<ComponentKey> keys = new HashSet<>();
+        for (AppInfo app : apps) {
+            keys.add(app.toComponentKey());
+        }
+        return keys;
+    }
+
+    private static AppInfo createApp(String name, UserHandle user) {
+        AppInfo app = new AppInfo();
+        app.componentName = new ComponentName("com.example." + name, "Activity");
+        app.intent = new Intent().setComponent(app.componentName);
+        app.user = user;
+        return app;
+    }
+}
@@ -0,0 +1,72 @@
+package com.android.launcher3.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.android.launcher3.model.data.AppInfo;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Locale;
+
+/**
+ * Unit tests for {@link LabelKey}
+ */
+@RunWith(RobolectricTestRunner.class)
+public class LabelKeyTest {
+
+    private final Locale mDefaultLocale = Locale.getDefault();
+
+    @After
+    public void tearDown() {
+        Locale.setDefault(mDefaultLocale);
+    }
+
+    @Test
+    public void testOrder_sameAsLabelComparator() {
+        String[] labels = {"apple", "Banana", "banana", "2048", "_hidden", "Émile", "zebra", ""};
+        LabelComparator comparator = new LabelComparator();
+        for (String a : labels) {
+            for (String b : labels) {
+                assertEquals(a + " vs " + b, Integer.signum(comparator.compare(a, b)),
+                        Integer.signum(LabelKey.create(a).compareTo(LabelKey.create(b))));
+            }
+        }
+    }
+
+    @Test
+    public void testValidity() {
+        Locale.setDefault(Locale.US);
+        LabelKey key = LabelKey.create("Camera");
+
+        assertTrue(key.isValidFor("Camera"));
+        assertTrue(key.isValidFor(new StringBuilder("Camera")));
+        assertFalse(key.isValidFor("Calendar"));
+
+        Locale.setDefault(Locale.FRANCE);
+        assertFalse(key.isValidFor("Camera"));
+    }
+
+    @Test
+    public void testAppInfo_cachesKeyUntilTitleChanges() {
+        Locale.setDefault(Locale.US);
+        AppInfo app = new AppInfo();
+        app.title = "Camera";
+
+        LabelKey key = app.getLabelKey();
+        assertSame(key, app.getLabelKey());
+
+        app.title = "Calendar";
+        LabelKey updated = app.getLabelKey();
+        assertEquals("Calendar", updated.getLabel());
+        assertSame(updated, app.getLabelKey());
+
+        Locale.setDefault(Locale.FRANCE);
+        assertFalse(updated == app.getLabelKey());
+    }
+}
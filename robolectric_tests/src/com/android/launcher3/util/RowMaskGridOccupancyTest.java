@@ -0,0 +1,282 @@
+package com.android.launcher3.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Random;
+
+/**
+ * Unit tests for {@link RowMaskGridOccupancy}
+ */
+@RunWith(RobolectricTestRunner.class)
+public class RowMaskGridOccupancyTest {
+
+    // A large custom grid, used to simulate drag reordering
+    private static final int COUNT_X = 10;
+    private static final int COUNT_Y = 12;
+    private static final int ITERATIONS = 2000;
+    private static final long SEED = 42;
+
+    @Test
+    public void testFindVacantCell() {
+        GridOccupancy grid = initGrid(4,
+                1, 1, 1, 0, 0,
+                0, 0, 1, 1, 0,
+                0, 0, 0, 0, 0,
+                1, 1, 0, 0, 0
+        );
+
+        int[] vacant = new int[2];
+        assertTrue(grid.findVacantCell(vacant, 2, 2));
+        assertEquals(vacant[0], 0);
+        assertEquals(vacant[1], 1);
+
+        assertTrue(grid.findVacantCell(vacant, 3, 2));
+        assertEquals(vacant[0], 2);
+        assertEquals(vacant[1], 2);
+
+        assertFalse(grid.findVacantCell(vacant, 3, 3));
+    }
+
+    @Test
+    public void testIsRegionVacant() {
+        GridOccupancy grid = initGrid(4,
+                1, 1, 1, 0, 0,
+                0, 0, 1, 1, 0,
+                0, 0, 0, 0, 0,
+                1, 1, 0, 0, 0
+        );
+
+        assertTrue(grid.isRegionVacant(4, 0, 1, 4));
+        assertTrue(grid.isRegionVacant(0, 1, 2, 2));
+        assertTrue(grid.isRegionVacant(2, 2, 3, 2));
+
+        assertFalse(grid.isRegionVacant(3, 0, 2, 4));
+        assertFalse(grid.isRegionVacant(0, 0, 2, 1));
+        assertFalse(grid.isRegionVacant(4, 0, 2, 1));
+    }
+
+    @Test
+    public void testIsRegionVacant_withRegionMask() {
+        GridOccupancy grid = initGrid(3,
+                0, 1, 0,
+                0, 0, 0,
+                1, 0, 0
+        );
+        // An L shaped block, which can interlock with the occupied cells
+        GridOccupancy block = new RowMaskGridOccupancy(2, 2);
+        block.markCells(0, 0, 1, 2, true);
+        block.markCells(1, 1, 1, 1, true);
+
+        assertTrue(grid.isRegionVacant(0, 0, 2, 2, block));
+        assertFalse(grid.isRegionVacant(1, 0, 2, 2, block));
+        assertFalse(grid.isRegionVacant(0, 1, 2, 2, block));
+        assertTrue(grid.isRegionVacant(1, 1, 2, 2, block));
+    }
+
+    @Test
+    public void testMarkCells_clipsToGrid() {
+        RowMaskGridOccupancy grid = new RowMaskGridOccupancy(4, 4);
+        grid.markCells(2, 2, 5, 5, true);
+
+        assertEquals(4, grid.getOccupiedCount(0, 0, 4, 4));
+        assertTrue(grid.cells[3][3]);
+        assertTrue(grid.isRegionVacant(0, 0, 4, 2));
+
+        grid.markCells(3, 3, 1, 1, false);
+        assertEquals(3, grid.getOccupiedCount(0, 0, 4, 4));
+        assertTrue(grid.isRegionVacant(3, 3, 1, 1));
+    }
+
+    @Test
+    public void testOnCellsChanged_syncsDirectWrites() {
+        GridOccupancy grid = new RowMaskGridOccupancy(3, 3);
+        grid.cells[1][1] = true;
+        grid.onCellsChanged();
+
+        assertFalse(grid.isRegionVacant(0, 0, 2, 2));
+        int[] vacant = new int[2];
+        assertTrue(grid.findVacantCell(vacant, 1, 3));
+        assertArrayEquals(new int[] {0, 0}, vacant);
+    }
+
+    @Test
+    public void testFullWidthGrid() {
+        RowMaskGridOccupancy grid = new RowMaskGridOccupancy(RowMaskGridOccupancy.MAX_COLUMNS, 2);
+        grid.markCells(0, 0, RowMaskGridOccupancy.MAX_COLUMNS, 1, true);
+
+        int[] vacant = new int[2];
+        assertTrue(grid.findVacantCell(vacant, RowMaskGridOccupancy.MAX_COLUMNS, 1));
+        assertArrayEquals(new int[] {0, 1}, vacant);
+        assertFalse(grid.findVacantCell(vacant, RowMaskGridOccupancy.MAX_COLUMNS, 2));
+    }
+
+    @Test
+    public void testCopyTo() {
+        GridOccupancy grid = initGrid(2,
+                1, 0,
+                0, 1
+        );
+        GridOccupancy maskCopy = new RowMaskGridOccupancy(2, 2);
+        GridOccupancy baseCopy = new GridOccupancy(2, 2);
+        grid.copyTo(maskCopy);
+        grid.copyTo(baseCopy);
+
+        assertFalse(maskCopy.isRegionVacant(0, 0, 1, 1));
+        assertTrue(maskCopy.isRegionVacant(1, 0, 1, 1));
+        assertTrue(baseCopy.cells[0][0]);
+        assertTrue(baseCopy.cells[1][1]);
+        assertFalse(baseCopy.cells[1][0]);
+    }
+
+    @Test
+    public void testVersionChangesWithOccupancy() {
+        GridOccupancy grid = new RowMaskGridOccupancy(3, 3);
+        GridOccupancy other = new RowMaskGridOccupancy(3, 3);
+        int version = grid.getVersion();
+
+        grid.markCells(0, 0, 1, 1, true);
+        assertTrue(grid.getVersion() != version);
+
+        version = other.getVersion();
+        grid.copyTo(other);
+        assertTrue(other.getVersion() != version);
+
+        version = grid.getVersion();
+        grid.findNearestVacantArea(0, 0, 1, 1, new int[2]);
+        assertEquals(version, grid.getVersion());
+    }
+
+    /**
+     * Simulates drag reordering on a large custom grid with widgets, checking that the mask
+     * based occupancy gives the same results as {@link GridOccupancy}.
+     */
+    @Test
+    public void testDragReorderSimulation_matchesGridOccupancy() {
+        DragSimulation base = new DragSimulation(new GridOccupancy(COUNT_X, COUNT_Y),
+                new GridOccupancy(COUNT_X, COUNT_Y));
+        DragSimulation mask = new DragSimulation(new RowMaskGridOccupancy(COUNT_X, COUNT_Y),
+                new RowMaskGridOccupancy(COUNT_X, COUNT_Y));
+        Random random = new Random(SEED);
+        for (int i = 0; i < ITERATIONS; i++) {
+            int[] drag = nextDrag(random);
+            assertArrayEquals(base.drag(drag), mask.drag(drag));
+        }
+    }
+
+    /**
+     * Times the same drag reordering on both implementations, and reports the time taken by each
+     * drag without asserting on it. See {@link BenchmarkResults} for the output format.
+     */
+    @Test
+    @Ignore // Benchmark, only meant to be run on demand.
+    public void testDragReorderSimulation_benchmark() throws Exception {
+        BenchmarkResults results = new BenchmarkResults("RowMaskGridOccupancy_dragReorder")
+                .putParam("countX", COUNT_X)
+                .putParam("countY", COUNT_Y)
+                .putParam("iterations", ITERATIONS);
+        // The first round is a warm up
+        for (int round = 0; round < 2; round++) {
+            BenchmarkResults roundResults = round > 0 ? results : new BenchmarkResults("warmUp");
+            timeDragSimulation(roundResults, "base", new DragSimulation(
+                    new GridOccupancy(COUNT_X, COUNT_Y), new GridOccupancy(COUNT_X, COUNT_Y)));
+            timeDragSimulation(roundResults, "mask", new DragSimulation(
+                    new RowMaskGridOccupancy(COUNT_X, COUNT_Y),
+                    new RowMaskGridOccupancy(COUNT_X, COUNT_Y)));
+        }
+        results.report();
+    }
+
+    private static void timeDragSimulation(BenchmarkResults results, String metric,
+            DragSimulation simulation) {
+        Random random = new Random(SEED);
+        for (int i = 0; i < ITERATIONS; i++) {
+            int[] drag = nextDrag(random);
+            long start = System.nanoTime();
+            simulation.drag(drag);
+            results.addSample(metric, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Returns the cell and span of the next dragged item: {x, y, spanX, spanY}
+     */
+    private static int[] nextDrag(Random random) {
+        return new int[] {random.nextInt(COUNT_X), random.nextInt(COUNT_Y),
+                1 + random.nextInt(4), 1 + random.nextInt(3)};
+    }
+
+    /**
+     * Drags items over a grid filled with a few widgets and icons
+     */
+    private static class DragSimulation {
+
+        private final GridOccupancy mGrid;
+        private final GridOccupancy mTmp;
+        private final int[] mVacant = new int[2];
+
+        DragSimulation(GridOccupancy grid, GridOccupancy tmp) {
+            mGrid = grid;
+            mTmp = tmp;
+            Random random = new Random(SEED);
+            for (int i = 0; i < 20; i++) {
+                int spanX = 1 + random.nextInt(4);
+                int spanY = 1 + random.nextInt(3);
+                mGrid.markCells(random.nextInt(COUNT_X), random.nextInt(COUNT_Y),
+                        spanX, spanY, true);
+            }
+        }
+
+        /**
+         * The item is dragged over a cell; the items under it are moved to the nearest vacant
+         * area, and the first vacant cell is looked up for the overflow.
+         *
+         * @return the nearest vacant area, the first vacant cell and the number of vacant
+         *         regions of the item's span
+         */
+        int[] drag(int[] drag) {
+            int spanX = drag[2];
+            int spanY = drag[3];
+            int[] result = {-1, -1, -1, -1, 0};
+            mGrid.copyTo(mTmp);
+            mTmp.markCells(drag[0], drag[1], spanX, spanY, true);
+            if (mTmp.findNearestVacantArea(drag[0], drag[1], 2, 2, mVacant)) {
+                result[0] = mVacant[0];
+                result[1] = mVacant[1];
+            }
+            for (int x = 0; x < COUNT_X; x++) {
+                for (int y = 0; y < COUNT_Y; y++) {
+                    if (mTmp.isRegionVacant(x, y, spanX, spanY)) {
+                        result[4]++;
+                    }
+                }
+            }
+            if (mTmp.findVacantCell(mVacant, spanX, spanY)) {
+                result[2] = mVacant[0];
+                result[3] = mVacant[1];
+            }
+            return result;
+        }
+    }
+
+    private GridOccupancy initGrid(int rows, int... cells) {
+        int cols = cells.length / rows;
+        int i = 0;
+        GridOccupancy grid = new RowMaskGridOccupancy(cols, rows);
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < cols; x++) {
+                grid.cells[x][y] = cells[i] != 0;
+                i++;
+            }
+        }
+        grid.onCellsChanged();
+        return grid;
+    }
+}
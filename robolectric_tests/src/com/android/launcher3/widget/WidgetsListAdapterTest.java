@@ -15,8 +15,11 @@
  */
 package com.android.launcher3.widget;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.robolectric.Shadows.shadowOf;
@@ -104,6 +107,15 @@ public class WidgetsListAdapterTest {
         verify(mListener, times(1)).onItemRangeChanged(eq(0), eq(1), isNull());
     }
 
+    @Test
+    public void testNotifyItemChanged_sameRowEntrySkipped() throws Exception {
+        ArrayList<WidgetListRowEntry> entries = generateSampleMap(2);
+        mAdapter.setWidgets(entries);
+        mAdapter.setWidgets(new ArrayList<>(entries));
+        verify(mListener, times(1)).onChanged();
+        verify(mListener, never()).onItemRangeChanged(anyInt(), anyInt(), any());
+    }
+
     @Test
     public void testNotifyItemChanged_widgetItemInfoDiff() throws Exception {
         // TODO: same package name but item number changed
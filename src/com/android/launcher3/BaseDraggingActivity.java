@@ -59,6 +59,7 @@ import com.android.launcher3.util.PackageManagerHelper;
 import com.android.launcher3.util.Themes;
 import com.android.launcher3.util.TraceHelper;
 import com.android.launcher3.util.WindowBounds;
+import com.saggitt.omega.theme.ThemeManager;
 import com.saggitt.omega.theme.ThemeOverride;
 import com.saggitt.omega.theme.ThemeOverride.ThemeSet;
 
@@ -66,7 +67,8 @@ import com.saggitt.omega.theme.ThemeOverride.ThemeSet;
  * Extension of BaseActivity allowing support for drag-n-drop
  */
 public abstract class BaseDraggingActivity extends BaseActivity
-        implements WallpaperColorInfo.OnChangeListener, DisplayInfoChangeListener {
+        implements WallpaperColorInfo.OnChangeListener, DisplayInfoChangeListener,
+        ThemeManager.ThemeableActivity {
 
     private static final String TAG = "BaseDraggingActivity";
 
@@ -80,6 +82,7 @@ public abstract class BaseDraggingActivity extends BaseActivity
     private Runnable mOnStartCallback;
 
     private int mThemeRes = R.style.AppTheme;
+    private boolean mRecreatePending;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -131,8 +134,36 @@ public abstract class BaseDraggingActivity extends BaseActivity
         }
     }*/
 
+    @Override
+    public void onThemeChanged() {
+        updateTheme();
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        if (mRecreatePending) {
+            recreate();
+        }
+    }
+
     private void updateTheme() {
+        // Colors are applied in place by the themeable views, only a new theme needs recreating
         if (mThemeRes != Themes.getActivityThemeRes(this)) {
+            recreateWhenResumed();
+        }
+    }
+
+    /**
+     * Recreates the activity once it is resumed, so that several changes made while it is in the
+     * background, like from the settings, only recreate it once.
+     */
+    public void recreateWhenResumed() {
+        if (mRecreatePending) {
+            return;
+        }
+        mRecreatePending = true;
+        if (hasBeenResumed()) {
             recreate();
         }
     }
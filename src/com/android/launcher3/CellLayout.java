@@ -39,6 +39,7 @@ import android.os.Parcelable;
 import android.util.ArrayMap;
 import android.util.AttributeSet;
 import android.util.Log;
+import android.util.LongSparseArray;
 import android.util.Property;
 import android.util.SparseArray;
 import android.util.TypedValue;
@@ -187,6 +188,20 @@ public class CellLayout extends ViewGroup {
     private final Rect mTempRect = new Rect();
     private Paint mVisualizeGridPaint = new Paint();
 
+    // Reorder search results for the current occupancy, keyed by target cell, span and direction,
+    // so that hovering over the same cell during a drag does not search again.
+    private static final int MAX_CACHED_REORDER_SOLUTIONS = 128;
+    private final LongSparseArray<ItemConfiguration> mReorderSolutionCache =
+            new LongSparseArray<>();
+    private int mReorderSolutionCacheVersion = -1;
+    private int mReorderSolutionCacheChildCount = -1;
+    private View mReorderSolutionCacheDragView;
+    private boolean mReorderSolutionCacheAllowOverlap;
+    private final ArrayList<ItemConfiguration> mItemConfigurationPool = new ArrayList<>();
+    // Scratch solutions, reused across reorder searches
+    private final ItemConfiguration mSwapSolution = new ItemConfiguration();
+    private final ItemConfiguration mNoShuffleSolution = new ItemConfiguration();
+
     private final OmegaPreferences mPrefs;
 
     public CellLayout(Context context, AttributeSet attrs, int defStyle) {
@@ -211,8 +226,8 @@ public class CellLayout extends ViewGroup {
         mDockIconTextSize = grid.iconTextSizePx;
         mCountX = grid.inv.numColumns;
         mCountY = grid.inv.numRows;
-        mOccupied = new GridOccupancy(mCountX, mCountY);
-        mTmpOccupied = new GridOccupancy(mCountX, mCountY);
+        mOccupied = GridOccupancy.newInstance(mCountX, mCountY);
+        mTmpOccupied = GridOccupancy.newInstance(mCountX, mCountY);
 
         mPreviousReorderDirection[0] = INVALID_DIRECTION;
         mPreviousReorderDirection[1] = INVALID_DIRECTION;
@@ -414,9 +429,10 @@ public class CellLayout extends ViewGroup {
     public void setGridSize(int x, int y) {
         mCountX = x;
         mCountY = y;
-        mOccupied = new GridOccupancy(mCountX, mCountY);
-        mTmpOccupied = new GridOccupancy(mCountX, mCountY);
+        mOccupied = GridOccupancy.newInstance(mCountX, mCountY);
+        mTmpOccupied = GridOccupancy.newInstance(mCountX, mCountY);
         mTempRectStack.clear();
+        clearReorderSolutionCache();
         mShortcutsAndWidgets.setCellDimensions(mCellWidth, mCellHeight, mCountX, mCountY);
         requestLayout();
     }
@@ -1140,12 +1156,8 @@ public class CellLayout extends ViewGroup {
                 int xSize = -1;
                 if (ignoreOccupied) {
                     // First, let's see if this thing fits anywhere
-                    for (int i = 0; i < minSpanX; i++) {
-                        for (int j = 0; j < minSpanY; j++) {
-                            if (mOccupied.cells[x + i][y + j]) {
-                                continue inner;
-                            }
-                        }
+                    if (!mOccupied.isRegionVacant(x, y, minSpanX, minSpanY)) {
+                        continue inner;
                     }
                     xSize = minSpanX;
                     ySize = minSpanY;
@@ -1238,16 +1250,16 @@ public class CellLayout extends ViewGroup {
      * @param spanX Horizontal span of the object.
      * @param spanY Vertical span of the object.
      * @param direction The favored direction in which the views should move from x, y
-     * @param occupied The array which represents which cells in the CellLayout are occupied
-     * @param blockOccupied The array which represents which cells in the specified block (cellX,
-     *        cellY, spanX, spanY) are occupied. This is used when try to move a group of views.
+     * @param occupied The occupancy of the cells in the CellLayout
+     * @param blockOccupied The occupancy of the cells in the specified block (cellX, cellY,
+     *        spanX, spanY), or null. This is used when try to move a group of views.
      * @param result Array in which to place the result, or null (in which case a new array will
      *        be allocated)
      * @return The X, Y cell of a vacant area that can contain this object,
      *         nearest the requested location.
      */
     private int[] findNearestArea(int cellX, int cellY, int spanX, int spanY, int[] direction,
-            boolean[][] occupied, boolean blockOccupied[][], int[] result) {
+            GridOccupancy occupied, GridOccupancy blockOccupied, int[] result) {
         // Keep track of best-scoring drop area
         final int[] bestXY = result != null ? result : new int[2];
         float bestDistance = Float.MAX_VALUE;
@@ -1257,15 +1269,10 @@ public class CellLayout extends ViewGroup {
         final int countY = mCountY;
 
         for (int y = 0; y < countY - (spanY - 1); y++) {
-            inner:
             for (int x = 0; x < countX - (spanX - 1); x++) {
                 // First, let's see if this thing fits anywhere
-                for (int i = 0; i < spanX; i++) {
-                    for (int j = 0; j < spanY; j++) {
-                        if (occupied[x + i][y + j] && (blockOccupied == null || blockOccupied[i][j])) {
-                            continue inner;
-                        }
-                    }
+                if (!occupied.isRegionVacant(x, y, spanX, spanY, blockOccupied)) {
+                    continue;
                 }
 
                 float distance = (float) Math.hypot(x - cellX, y - cellY);
@@ -1302,7 +1309,7 @@ public class CellLayout extends ViewGroup {
         mTmpOccupied.markCells(rectOccupiedByPotentialDrop, true);
 
         findNearestArea(c.cellX, c.cellY, c.spanX, c.spanY, direction,
-                mTmpOccupied.cells, null, mTempLocation);
+                mTmpOccupied, null, mTempLocation);
 
         if (mTempLocation[0] >= 0 && mTempLocation[1] >= 0) {
             c.cellX = mTempLocation[0];
@@ -1608,7 +1615,8 @@ public class CellLayout extends ViewGroup {
             mTmpOccupied.markCells(c, false);
         }
 
-        GridOccupancy blockOccupied = new GridOccupancy(boundingRect.width(), boundingRect.height());
+        GridOccupancy blockOccupied = GridOccupancy.newInstance(
+                boundingRect.width(), boundingRect.height());
         int top = boundingRect.top;
         int left = boundingRect.left;
         // We mark more precisely which parts of the bounding rect are truly occupied, allowing
@@ -1622,7 +1630,7 @@ public class CellLayout extends ViewGroup {
 
         findNearestArea(boundingRect.left, boundingRect.top, boundingRect.width(),
                 boundingRect.height(), direction,
-                mTmpOccupied.cells, blockOccupied.cells, mTempLocation);
+                mTmpOccupied, blockOccupied, mTempLocation);
 
         // If we successfuly found a location by pushing the block of views, we commit it
         if (mTempLocation[0] >= 0 && mTempLocation[1] >= 0) {
@@ -1824,9 +1832,6 @@ public class CellLayout extends ViewGroup {
             ItemConfiguration solution) {
         // Copy the current state into the solution. This solution will be manipulated as necessary.
         copyCurrentStateToSolution(solution, false);
-        // Copy the current occupied array into the temporary occupied array. This array will be
-        // manipulated as necessary to find a solution.
-        mOccupied.copyTo(mTmpOccupied);
 
         // We find the nearest cell into which we would place the dragged item, assuming there's
         // nothing in its way.
@@ -1834,10 +1839,27 @@ public class CellLayout extends ViewGroup {
         result = findNearestArea(pixelX, pixelY, spanX, spanY, result);
 
         boolean success;
-        // First we try the exact nearest position of the item being dragged,
-        // we will then want to try to move this around to other neighbouring positions
-        success = rearrangementExists(result[0], result[1], spanX, spanY, direction, dragView,
-                solution);
+        long cacheKey = getReorderSolutionKey(result[0], result[1], spanX, spanY, direction);
+        ItemConfiguration cachedSolution = cacheKey < 0
+                ? null : getCachedReorderSolution(cacheKey, dragView);
+        if (cachedSolution != null) {
+            success = cachedSolution.isSolution;
+            if (success) {
+                cachedSolution.copyPlacementTo(solution);
+            }
+        } else {
+            // Copy the current occupied array into the temporary occupied array. This array will
+            // be manipulated as necessary to find a solution.
+            mOccupied.copyTo(mTmpOccupied);
+
+            // First we try the exact nearest position of the item being dragged,
+            // we will then want to try to move this around to other neighbouring positions
+            success = rearrangementExists(result[0], result[1], spanX, spanY, direction, dragView,
+                    solution);
+            if (cacheKey >= 0) {
+                cacheReorderSolution(cacheKey, solution, success);
+            }
+        }
 
         if (!success) {
             // We try shrinking the widget down to size in an alternating pattern, shrink 1 in
@@ -1861,18 +1883,84 @@ public class CellLayout extends ViewGroup {
     }
 
     private void copyCurrentStateToSolution(ItemConfiguration solution, boolean temp) {
+        // The solution may be reused, drop the views which were removed since
+        for (int i = solution.map.size() - 1; i >= 0; i--) {
+            if (solution.map.keyAt(i).getParent() != mShortcutsAndWidgets) {
+                solution.remove(solution.map.keyAt(i));
+            }
+        }
         int childCount = mShortcutsAndWidgets.getChildCount();
         for (int i = 0; i < childCount; i++) {
             View child = mShortcutsAndWidgets.getChildAt(i);
             LayoutParams lp = (LayoutParams) child.getLayoutParams();
-            CellAndSpan c;
-            if (temp) {
-                c = new CellAndSpan(lp.tmpCellX, lp.tmpCellY, lp.cellHSpan, lp.cellVSpan);
-            } else {
-                c = new CellAndSpan(lp.cellX, lp.cellY, lp.cellHSpan, lp.cellVSpan);
+            CellAndSpan c = solution.map.get(child);
+            if (c == null) {
+                c = new CellAndSpan();
+                solution.add(child, c);
             }
-            solution.add(child, c);
+            c.cellX = temp ? lp.tmpCellX : lp.cellX;
+            c.cellY = temp ? lp.tmpCellY : lp.cellY;
+            c.spanX = lp.cellHSpan;
+            c.spanY = lp.cellVSpan;
+        }
+        solution.intersectingViews = null;
+    }
+
+    /**
+     * Returns the key of a reorder search result, or -1 if the search should not be cached.
+     */
+    private static long getReorderSolutionKey(int cellX, int cellY, int spanX, int spanY,
+            int[] direction) {
+        if (cellX < 0 || cellY < 0 || Math.abs(direction[0]) > 1 || Math.abs(direction[1]) > 1) {
+            return -1;
+        }
+        return ((long) cellX << 40) | ((long) cellY << 28) | ((long) spanX << 16) | (spanY << 4)
+                | ((direction[0] + 1) << 2) | (direction[1] + 1);
+    }
+
+    private ItemConfiguration getCachedReorderSolution(long key, View dragView) {
+        int version = mOccupied.getVersion();
+        int childCount = mShortcutsAndWidgets.getChildCount();
+        boolean allowOverlap = mPrefs.getAllowOverlap();
+        if (version != mReorderSolutionCacheVersion
+                || childCount != mReorderSolutionCacheChildCount
+                || dragView != mReorderSolutionCacheDragView
+                || allowOverlap != mReorderSolutionCacheAllowOverlap) {
+            clearReorderSolutionCache();
+            mReorderSolutionCacheVersion = version;
+            mReorderSolutionCacheChildCount = childCount;
+            mReorderSolutionCacheDragView = dragView;
+            mReorderSolutionCacheAllowOverlap = allowOverlap;
+            return null;
+        }
+        return mReorderSolutionCache.get(key);
+    }
+
+    private void cacheReorderSolution(long key, ItemConfiguration solution, boolean isSolution) {
+        if (mReorderSolutionCache.size() >= MAX_CACHED_REORDER_SOLUTIONS) {
+            recycleCachedReorderSolutions();
+        }
+        ItemConfiguration cached = mItemConfigurationPool.isEmpty()
+                ? new ItemConfiguration()
+                : mItemConfigurationPool.remove(mItemConfigurationPool.size() - 1);
+        cached.isSolution = isSolution;
+        if (isSolution) {
+            solution.copyPlacementTo(cached);
         }
+        mReorderSolutionCache.put(key, cached);
+    }
+
+    private void recycleCachedReorderSolutions() {
+        for (int i = mReorderSolutionCache.size() - 1; i >= 0; i--) {
+            mItemConfigurationPool.add(mReorderSolutionCache.valueAt(i));
+        }
+        mReorderSolutionCache.clear();
+    }
+
+    private void clearReorderSolutionCache() {
+        recycleCachedReorderSolutions();
+        mReorderSolutionCacheDragView = null;
+        mReorderSolutionCacheVersion = -1;
     }
 
     private void copySolutionToTempState(ItemConfiguration solution, View dragView) {
@@ -1992,7 +2080,7 @@ public class CellLayout extends ViewGroup {
 
         // First we determine if things have moved enough to cause a different layout
         ItemConfiguration swapSolution = findReorderSolution(pixelXY[0], pixelXY[1], spanX, spanY,
-                 spanX,  spanY, direction, dragView,  true,  new ItemConfiguration());
+                 spanX,  spanY, direction, dragView,  true,  mSwapSolution);
 
         setUseTempCoords(true);
         if (swapSolution != null && swapSolution.isSolution) {
@@ -2108,11 +2196,11 @@ public class CellLayout extends ViewGroup {
 
         // Find a solution involving pushing / displacing any items in the way
         ItemConfiguration swapSolution = findReorderSolution(pixelX, pixelY, minSpanX, minSpanY,
-                 spanX,  spanY, mDirectionVector, dragView,  true,  new ItemConfiguration());
+                 spanX,  spanY, mDirectionVector, dragView,  true,  mSwapSolution);
 
         // We attempt the approach which doesn't shuffle views at all
         ItemConfiguration noShuffleSolution = findConfigurationNoShuffle(pixelX, pixelY, minSpanX,
-                minSpanY, spanX, spanY, dragView, new ItemConfiguration());
+                minSpanY, spanX, spanY, dragView, mNoShuffleSolution);
 
         ItemConfiguration finalSolution = null;
 
@@ -2247,7 +2335,7 @@ public class CellLayout extends ViewGroup {
         int[] cellPoint = new int[2];
         int[] directionVector = new int[]{0, -1};
         cellToPoint(0, mCountY, cellPoint);
-        ItemConfiguration configuration = new ItemConfiguration();
+        ItemConfiguration configuration = mSwapSolution;
         if (findReorderSolution(cellPoint[0], cellPoint[1], mCountX, 1, mCountX, 1,
                 directionVector, null, false, configuration).isSolution) {
             if (commitConfig) {
@@ -2296,6 +2384,41 @@ public class CellLayout extends ViewGroup {
             sortedViews.add(v);
         }
 
+        void remove(View v) {
+            map.remove(v);
+            savedMap.remove(v);
+            sortedViews.remove(v);
+        }
+
+        /**
+         * Copies the position of each view into {@param dest}, which should contain the same
+         * views.
+         */
+        void copyPlacementTo(ItemConfiguration dest) {
+            for (int i = map.size() - 1; i >= 0; i--) {
+                View v = map.keyAt(i);
+                CellAndSpan c = dest.map.get(v);
+                if (c == null) {
+                    c = new CellAndSpan();
+                    dest.add(v, c);
+                }
+                c.copyFrom(map.valueAt(i));
+            }
+            for (int i = dest.map.size() - 1; i >= 0; i--) {
+                if (!map.containsKey(dest.map.keyAt(i))) {
+                    dest.remove(dest.map.keyAt(i));
+                }
+            }
+            if (intersectingViews == null) {
+                dest.intersectingViews = null;
+            } else if (dest.intersectingViews == null) {
+                dest.intersectingViews = new ArrayList<>(intersectingViews);
+            } else {
+                dest.intersectingViews.clear();
+                dest.intersectingViews.addAll(intersectingViews);
+            }
+        }
+
         int area() {
             return spanX * spanY;
         }
@@ -2380,6 +2503,7 @@ public class CellLayout extends ViewGroup {
         mDragOutlineCurrent = (mDragOutlineCurrent + 1) % mDragOutlineAnims.length;
         revertTempState();
         setIsDragOverlapping(false);
+        clearReorderSolutionCache();
     }
 
     /**
@@ -2446,7 +2570,7 @@ public class CellLayout extends ViewGroup {
      * returns a copy of cell layout's grid occupancy
      */
     public GridOccupancy cloneGridOccupancy() {
-        GridOccupancy occupancy = new GridOccupancy(mCountX, mCountY);
+        GridOccupancy occupancy = GridOccupancy.newInstance(mCountX, mCountY);
         mOccupied.copyTo(occupancy);
         return occupancy;
     }
@@ -2642,7 +2766,7 @@ public class CellLayout extends ViewGroup {
                 cellToPoint(cellX, cellY, cellPoint);
                 if (findReorderSolution(cellPoint[0], cellPoint[1], itemInfo.minSpanX,
                         itemInfo.minSpanY, itemInfo.spanX, itemInfo.spanY, mDirectionVector, null,
-                        true, new ItemConfiguration()).isSolution) {
+                        true, mSwapSolution).isSolution) {
                     return true;
                 }
             }
@@ -53,6 +53,10 @@ public class FastBitmapDrawable extends Drawable {
     protected final Paint mPaint = new Paint(Paint.FILTER_BITMAP_FLAG | Paint.ANTI_ALIAS_FLAG);
     protected Bitmap mBitmap;
     protected final int mIconColor;
+    // The info the bitmap comes from, to draw the variant of the size of the bounds
+    private BitmapInfo mBitmapInfo;
+    // Whether a variant of the size of the bounds is drawn when ready, rather than mBitmap
+    private boolean mDrawsSizeVariant;
 
     private boolean mIsPressed;
     private boolean mIsDisabled;
@@ -83,6 +87,7 @@ public class FastBitmapDrawable extends Drawable {
 
     public FastBitmapDrawable(BitmapInfo info) {
         this(info.icon, info.color);
+        mBitmapInfo = info;
     }
 
     protected FastBitmapDrawable(Bitmap b, int iconColor) {
@@ -110,7 +115,17 @@ public class FastBitmapDrawable extends Drawable {
     }
 
     protected void drawInternal(Canvas canvas, Rect bounds) {
-        canvas.drawBitmap(mBitmap, null, bounds, mPaint);
+        Bitmap bitmap = mDrawsSizeVariant ? mBitmapInfo.getIcon(bounds.width()) : mBitmap;
+        canvas.drawBitmap(bitmap, null, bounds, mPaint);
+    }
+
+    @Override
+    protected void onBoundsChange(Rect bounds) {
+        super.onBoundsChange(bounds);
+        // The variants are rendered in the background, so the one to draw is looked up while
+        // drawing, and mBitmap is drawn until it is ready
+        mDrawsSizeVariant = mBitmapInfo != null && mBitmapInfo.icon == mBitmap
+                && bounds.width() == bounds.height();
     }
 
     @Override
@@ -80,6 +80,8 @@ public class InvariantDeviceProfile {
 
     public static final int CHANGE_FLAG_GRID = 1 << 0;
     public static final int CHANGE_FLAG_ICON_PARAMS = 1 << 1;
+    // Only the sizes icons are shown at changed, the icon bitmaps stay the same
+    public static final int CHANGE_FLAG_ICON_SIZES = 1 << 2;
 
     public static final String KEY_ICON_PATH_REF = "pref_icon_shape_path";
 
@@ -385,6 +387,15 @@ public class InvariantDeviceProfile {
         MAIN_EXECUTOR.execute(() -> onConfigChanged(appContext));
     }
 
+    /**
+     * Applies a new icon shape or icon scale. Icons cached for other shapes are kept, and the
+     * loaded icons are only drawn at other sizes as long as they fit in the icon bitmap size.
+     */
+    public void onIconAppearanceChanged(Context context) {
+        Context appContext = context.getApplicationContext();
+        MAIN_EXECUTOR.execute(() -> onConfigChanged(appContext));
+    }
+
     @VisibleForTesting
     static DisplayOption invDistWeightedInterpolate(float width, float height,
                                                     ArrayList<DisplayOption> points) {
@@ -507,7 +518,10 @@ public class InvariantDeviceProfile {
         } else {
             landscapeHotseatIconSize = landscapeIconSize;
         }
-        iconBitmapSize = ResourceUtils.pxFromDp(max(iconSize, max(hotseatIconSize, allAppsIconSize)), displayInfo.metrics);
+        // Icons are never rendered below the default size, so that making them smaller only
+        // needs smaller variants of the same bitmaps rather than new icons
+        iconBitmapSize = ResourceUtils.pxFromDp(max(displayOption.iconSize,
+                max(iconSize, max(hotseatIconSize, allAppsIconSize))), displayInfo.metrics);
         iconTextSize = displayOption.iconTextSize * prefs.getDesktopTextScale();
         allAppsIconTextSize = displayOption.iconTextSize * prefs.getAllAppsTextScale();
         fillResIconDpi = getLauncherIconDensity(iconBitmapSize);
@@ -560,20 +574,39 @@ public class InvariantDeviceProfile {
             changeFlags |= CHANGE_FLAG_GRID;
         }
 
-        if (iconSize != oldProfile.iconSize
-                || allAppsIconSize != oldProfile.allAppsIconSize
-                || hotseatIconSize != oldProfile.hotseatIconSize
-                || iconBitmapSize != oldProfile.iconBitmapSize
+        if (iconBitmapSize != oldProfile.iconBitmapSize
                 || !iconShapePath.equals(oldProfile.iconShapePath)) {
             changeFlags |= CHANGE_FLAG_ICON_PARAMS;
+        } else if (iconSize != oldProfile.iconSize
+                || allAppsIconSize != oldProfile.allAppsIconSize
+                || hotseatIconSize != oldProfile.hotseatIconSize) {
+            changeFlags |= CHANGE_FLAG_ICON_SIZES;
         }
         if (!iconShapePath.equals(oldProfile.iconShapePath)) {
             IconShape.init(context);
+            getDevicePrefs(context).edit().putString(KEY_ICON_PATH_REF, iconShapePath).apply();
         }
 
         apply(context, changeFlags);
     }
 
+    /**
+     * Returns the distinct sizes, in pixels, the icons are drawn at on the workspace, the hotseat
+     * and all apps, in both orientations.
+     */
+    public int[] getIconDrawSizes() {
+        IntArray sizes = new IntArray();
+        for (DeviceProfile profile : new DeviceProfile[] {portraitProfile, landscapeProfile}) {
+            for (int size : new int[] {profile.iconSizePx, profile.hotseatIconSizePx,
+                    profile.allAppsIconSizePx}) {
+                if (!sizes.contains(size)) {
+                    sizes.add(size);
+                }
+            }
+        }
+        return sizes.toArray();
+    }
+
     public DeviceProfile getDeviceProfile(Context context) {
         return context.getResources().getConfiguration().orientation
                 == Configuration.ORIENTATION_LANDSCAPE ? landscapeProfile : portraitProfile;
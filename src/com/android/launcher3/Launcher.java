@@ -114,6 +114,7 @@ import com.android.launcher3.dragndrop.DragView;
 import com.android.launcher3.folder.Folder;
 import com.android.launcher3.folder.FolderGridOrganizer;
 import com.android.launcher3.folder.FolderIcon;
+import com.android.launcher3.icons.BitmapPool;
 import com.android.launcher3.icons.IconCache;
 import com.android.launcher3.keyboard.CustomActionsPopup;
 import com.android.launcher3.keyboard.ViewGroupFocusHelper;
@@ -912,6 +913,8 @@ public class Launcher extends StatefulActivity<LauncherState> implements Launche
         logStopAndResume(Action.Command.STOP);
         mAppWidgetHost.setListenIfResumed(false);
         NotificationListener.removeNotificationsChangedListener();
+        // Frames are not drawn once stopped, so the dots would stay stale until the next start
+        mPopupDataProvider.flushNotificationDots();
     }
 
     @Override
@@ -1908,10 +1911,9 @@ public class Launcher extends StatefulActivity<LauncherState> implements Launche
             // The widget preview db can result in holding onto over
             // 3MB of memory for caching which isn't necessary.
             SQLiteDatabase.releaseMemory();
-
-            // This clears all widget bitmaps from the widget tray
-            // TODO(hyunyoungs)
         }
+        // This clears the pooled widget preview and icon bitmaps
+        BitmapPool.getInstance().onTrimMemory(level);
     }
 
     @Override
@@ -17,6 +17,7 @@
 package com.android.launcher3;
 
 import static com.android.launcher3.InvariantDeviceProfile.CHANGE_FLAG_ICON_PARAMS;
+import static com.android.launcher3.InvariantDeviceProfile.CHANGE_FLAG_ICON_SIZES;
 import static com.android.launcher3.util.Executors.MODEL_EXECUTOR;
 import static com.android.launcher3.util.SecureSettingsObserver.newNotificationSettingsObserver;
 
@@ -148,9 +149,15 @@ public class LauncherAppState {
 
         if ((changeFlags & CHANGE_FLAG_ICON_PARAMS) != 0) {
             LauncherIcons.clearPool();
-            mIconCache.updateIconParams(idp.fillResIconDpi, idp.iconBitmapSize);
+            mIconCache.updateIconParams(idp.fillResIconDpi, idp.iconBitmapSize,
+                    idp.iconShapePath);
             mWidgetCache.refresh();
         }
+        mIconCache.updateIconDrawSizes(idp.getIconDrawSizes());
+        if (changeFlags == CHANGE_FLAG_ICON_SIZES) {
+            // The loaded icons are kept, only their copies for the new sizes are rendered
+            return;
+        }
 
         mModel.forceReload();
     }
@@ -54,6 +54,8 @@ public class ShortcutAndWidgetContainer extends ViewGroup implements OmegaPrefer
 
     private OmegaPreferences mPrefs;
 
+    private ItemViewListener mItemViewListener;
+
     public ShortcutAndWidgetContainer(Context context, @ContainerType int containerType) {
         super(context);
         mActivity = ActivityContext.lookupContext(context);
@@ -81,6 +83,39 @@ public class ShortcutAndWidgetContainer extends ViewGroup implements OmegaPrefer
         mPrefs.removeOnPreferenceChangeListener(SettingsActivity.ALLOW_OVERLAP_PREF, this);
     }
 
+    /**
+     * Sets a listener notified when item views are added, removed or changed
+     */
+    public void setItemViewListener(ItemViewListener listener) {
+        mItemViewListener = listener;
+    }
+
+    @Override
+    public void onViewAdded(View child) {
+        super.onViewAdded(child);
+        if (mItemViewListener != null) {
+            mItemViewListener.onItemViewAdded(child);
+        }
+    }
+
+    @Override
+    public void onViewRemoved(View child) {
+        super.onViewRemoved(child);
+        if (mItemViewListener != null) {
+            mItemViewListener.onItemViewRemoved(child);
+        }
+    }
+
+    /**
+     * Notifies that the item represented by {@param child} changed, e.g. the contents of a
+     * folder.
+     */
+    public void onItemViewChanged(View child) {
+        if (mItemViewListener != null) {
+            mItemViewListener.onItemViewChanged(child);
+        }
+    }
+
     public void setCellDimensions(int cellWidth, int cellHeight, int countX, int countY) {
         mCellWidth = cellWidth;
         mCellHeight = cellHeight;
@@ -247,4 +282,16 @@ public class ShortcutAndWidgetContainer extends ViewGroup implements OmegaPrefer
             child.cancelLongPress();
         }
     }
+
+    /**
+     * Listener for the item views of a container
+     */
+    public interface ItemViewListener {
+
+        void onItemViewAdded(View view);
+
+        void onItemViewRemoved(View view);
+
+        void onItemViewChanged(View view);
+    }
 }
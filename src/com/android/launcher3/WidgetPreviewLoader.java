@@ -37,6 +37,7 @@ import android.util.Pair;
 import androidx.annotation.Nullable;
 import androidx.annotation.UiThread;
 
+import com.android.launcher3.icons.BitmapPool;
 import com.android.launcher3.icons.GraphicsUtils;
 import com.android.launcher3.icons.IconCache;
 import com.android.launcher3.icons.LauncherIcons;
@@ -54,11 +55,8 @@ import com.android.launcher3.widget.WidgetCell;
 import com.android.launcher3.widget.WidgetManagerHelper;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Set;
-import java.util.WeakHashMap;
 import java.util.concurrent.ExecutionException;
 
 public class WidgetPreviewLoader {
@@ -69,13 +67,11 @@ public class WidgetPreviewLoader {
     private final HashMap<String, long[]> mPackageVersions = new HashMap<>();
 
     /**
-     * Weak reference objects, do not prevent their referents from being made finalizable,
-     * finalized, and then reclaimed.
-     * Note: synchronized block used for this variable is expensive and the block should always
-     * be posted to a background thread.
+     * Pool of preview bitmaps which are no longer bound to a {@link WidgetCell}, shared with
+     * other bitmap consumers and trimmed on memory pressure.
      */
     @Thunk
-    final Set<Bitmap> mUnusedBitmaps = Collections.newSetFromMap(new WeakHashMap<>());
+    final BitmapPool mUnusedBitmaps = BitmapPool.getInstance();
 
     private final Context mContext;
     private final IconCache mIconCache;
@@ -437,7 +433,7 @@ public class WidgetPreviewLoader {
         // If a bitmap is passed in, we use it; otherwise, we create a bitmap of the right size
         final Canvas c = new Canvas();
         if (preview == null) {
-            preview = Bitmap.createBitmap(previewWidth, previewHeight, Config.ARGB_8888);
+            preview = mUnusedBitmaps.obtain(previewWidth, previewHeight, Config.ARGB_8888);
             c.setBitmap(preview);
         } else {
             // We use the preview bitmap height to determine where the badge will be drawn in the
@@ -530,7 +526,7 @@ public class WidgetPreviewLoader {
         }
         final Canvas c = new Canvas();
         if (preview == null || preview.getWidth() < size || preview.getHeight() < size) {
-            preview = Bitmap.createBitmap(size, size, Config.ARGB_8888);
+            preview = mUnusedBitmaps.obtain(size, size, Config.ARGB_8888);
             c.setBitmap(preview);
         } else {
             if (preview.getWidth() > size || preview.getHeight() > size) {
@@ -630,23 +626,8 @@ public class WidgetPreviewLoader {
             if (isCancelled()) {
                 return null;
             }
-            synchronized (mUnusedBitmaps) {
-                // Check if we can re-use a bitmap
-                for (Bitmap candidate : mUnusedBitmaps) {
-                    if (candidate != null && candidate.isMutable() &&
-                            candidate.getWidth() == mPreviewWidth &&
-                            candidate.getHeight() == mPreviewHeight) {
-                        unusedBitmap = candidate;
-                        mUnusedBitmaps.remove(unusedBitmap);
-                        break;
-                    }
-                }
-            }
-
-            // creating a bitmap is expensive. Do not do this inside synchronized block.
-            if (unusedBitmap == null) {
-                unusedBitmap = Bitmap.createBitmap(mPreviewWidth, mPreviewHeight, Config.ARGB_8888);
-            }
+            // Re-use a bitmap if possible
+            unusedBitmap = mUnusedBitmaps.obtain(mPreviewWidth, mPreviewHeight, Config.ARGB_8888);
             // If cancelled now, don't bother reading the preview from the DB
             if (isCancelled()) {
                 return unusedBitmap;
@@ -668,6 +649,12 @@ public class WidgetPreviewLoader {
                 preview = pair.first;
                 this.mSaveToDB = pair.second;
             }
+            if (preview == null) {
+                // Let onCancelled return the bitmap to the pool
+                return unusedBitmap;
+            } else if (preview != unusedBitmap) {
+                mUnusedBitmaps.recycle(unusedBitmap);
+            }
             return preview;
         }
 
@@ -688,9 +675,7 @@ public class WidgetPreviewLoader {
                         } else {
                             // If we've already cancelled, then skip writing the bitmap to the DB
                             // and manually add the bitmap back to the recycled set
-                            synchronized (mUnusedBitmaps) {
-                                mUnusedBitmaps.add(preview);
-                            }
+                            mUnusedBitmaps.recycle(preview);
                         }
                     }
                 });
@@ -707,14 +692,7 @@ public class WidgetPreviewLoader {
             // recycled set immediately. Otherwise, it will be recycled after the preview is written
             // to disk.
             if (preview != null) {
-                MODEL_EXECUTOR.post(new Runnable() {
-                    @Override
-                    public void run() {
-                        synchronized (mUnusedBitmaps) {
-                            mUnusedBitmaps.add(preview);
-                        }
-                    }
-                });
+                MODEL_EXECUTOR.post(() -> mUnusedBitmaps.recycle(preview));
             }
         }
 
@@ -731,9 +709,7 @@ public class WidgetPreviewLoader {
                 MODEL_EXECUTOR.post(new Runnable() {
                     @Override
                     public void run() {
-                        synchronized (mUnusedBitmaps) {
-                            mUnusedBitmaps.add(mBitmapToRecycle);
-                        }
+                        mUnusedBitmaps.recycle(mBitmapToRecycle);
                         mBitmapToRecycle = null;
                     }
                 });
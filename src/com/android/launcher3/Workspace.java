@@ -120,6 +120,7 @@ import com.saggitt.omega.settings.WorkspaceBlur;
 import com.saggitt.omega.views.OmegaBackgroundView;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.function.Predicate;
 
@@ -186,6 +187,9 @@ public class Workspace extends PagedView<WorkspacePageIndicator>
     @Thunk final Launcher mLauncher;
     @Thunk DragController mDragController;
 
+    // Index of the bound item views, used to update only the views affected by a change
+    private final WorkspaceItemIndex mItemIndex = new WorkspaceItemIndex();
+
     private final Rect mTempRect = new Rect();
     private final int[] mTempXY = new int[2];
     private final float[] mTempFXY = new float[2];
@@ -500,9 +504,24 @@ public class Workspace extends PagedView<WorkspacePageIndicator>
         CellLayout cl = ((CellLayout) child);
         cl.setOnInterceptTouchListener(this);
         cl.setImportantForAccessibility(IMPORTANT_FOR_ACCESSIBILITY_NO);
+        registerItemIndex(cl);
         super.onViewAdded(child);
     }
 
+    @Override
+    public void onViewRemoved(View child) {
+        ShortcutAndWidgetContainer container = ((CellLayout) child).getShortcutsAndWidgets();
+        container.setItemViewListener(null);
+        mItemIndex.removeAll(container);
+        super.onViewRemoved(child);
+    }
+
+    private void registerItemIndex(CellLayout layout) {
+        ShortcutAndWidgetContainer container = layout.getShortcutsAndWidgets();
+        container.setItemViewListener(mItemIndex);
+        mItemIndex.addAll(container);
+    }
+
     /**
      * Initializes and binds the first page
      * @param qsb an existing qsb to recycle or null.
@@ -2829,6 +2848,9 @@ public class Workspace extends PagedView<WorkspacePageIndicator>
     void setup(DragController dragController) {
         mSpringLoadedDragController = new SpringLoadedDragController(mLauncher);
         mDragController = dragController;
+        if (mLauncher.getHotseat() != null) {
+            registerItemIndex(mLauncher.getHotseat());
+        }
 
         // hardware layers on children are enabled on startup, but should be disabled until
         // needed
@@ -2879,7 +2901,10 @@ public class Workspace extends PagedView<WorkspacePageIndicator>
             return false;
         };
 
-        mapOverItems(op);
+        // Only the views of the updated packages, or the folders containing them, can change
+        ArrayList<View> views = new ArrayList<>();
+        mItemIndex.getViewsForPackages(updatedDots, views);
+        mapOverViews(views, op);
         Folder folder = Folder.getOpen(mLauncher);
         if (folder != null) {
             folder.iterateOverItems(op);
@@ -2892,16 +2917,10 @@ public class Workspace extends PagedView<WorkspacePageIndicator>
      * @param appWidgetId
      */
     public void removeWidget(int appWidgetId) {
-        mapOverItems((info, view) -> {
-            if (info instanceof LauncherAppWidgetInfo) {
-                LauncherAppWidgetInfo appWidgetInfo = (LauncherAppWidgetInfo) info;
-                if (appWidgetInfo.appWidgetId == appWidgetId) {
-                    mLauncher.removeItem(view, appWidgetInfo, true);
-                    return true;
-                }
-            }
-            return false;
-        });
+        View view = mItemIndex.getViewForAppWidgetId(appWidgetId);
+        if (view != null) {
+            mLauncher.removeItem(view, (ItemInfo) view.getTag(), true);
+        }
     }
 
     /**
@@ -3049,13 +3068,11 @@ public class Workspace extends PagedView<WorkspacePageIndicator>
     }
 
     public View getHomescreenIconByItemId(final int id) {
-        return getFirstMatch((info, v) -> info != null && info.id == id);
+        return mItemIndex.getViewForItemId(id);
     }
 
     public LauncherAppWidgetHostView getWidgetForAppWidgetId(final int appWidgetId) {
-        return (LauncherAppWidgetHostView) getFirstMatch((info, v) ->
-                (info instanceof LauncherAppWidgetInfo) &&
-                        ((LauncherAppWidgetInfo) info).appWidgetId == appWidgetId);
+        return (LauncherAppWidgetHostView) mItemIndex.getViewForAppWidgetId(appWidgetId);
     }
 
     public View getFirstMatch(final ItemOperator operator) {
@@ -3192,6 +3209,31 @@ public class Workspace extends PagedView<WorkspacePageIndicator>
         }
     }
 
+    /**
+     * Adds the views bound to {@param items}, or the folder icons containing them, to
+     * {@param out}.
+     */
+    private void getViewsForItems(Collection<? extends ItemInfo> items, ArrayList<View> out) {
+        for (ItemInfo item : items) {
+            View view = mItemIndex.getViewForItemId(item.id);
+            if (view == null) {
+                view = mItemIndex.getFolderIconForItemId(item.id);
+            }
+            if (view != null && !out.contains(view)) {
+                out.add(view);
+            }
+        }
+    }
+
+    private static void mapOverViews(ArrayList<View> views, ItemOperator op) {
+        for (int i = 0; i < views.size(); i++) {
+            View view = views.get(i);
+            if (op.evaluate((ItemInfo) view.getTag(), view)) {
+                return;
+            }
+        }
+    }
+
     private boolean mapOverCellLayout(CellLayout layout, ItemOperator op) {
         // TODO(b/128460496) Potential race condition where layout is not yet loaded
         if (layout == null) {
@@ -3227,7 +3269,9 @@ public class Workspace extends PagedView<WorkspacePageIndicator>
             return false;
         };
 
-        mapOverItems(op);
+        ArrayList<View> views = new ArrayList<>();
+        getViewsForItems(shortcuts, views);
+        mapOverViews(views, op);
         Folder openFolder = Folder.getOpen(mLauncher);
         if (openFolder != null) {
             openFolder.iterateOverItems(op);
@@ -3254,7 +3298,9 @@ public class Workspace extends PagedView<WorkspacePageIndicator>
             } else {
                 // widgetRefresh will automatically run when the packages are updated.
                 // For now just update the progress bars
-                mapOverItems(new ItemOperator() {
+                ArrayList<View> views = new ArrayList<>();
+                getViewsForItems(changedInfo, views);
+                mapOverViews(views, new ItemOperator() {
                     @Override
                     public boolean evaluate(ItemInfo info, View view) {
                         if (view instanceof PendingAppWidgetHostView
@@ -3293,7 +3339,9 @@ public class Workspace extends PagedView<WorkspacePageIndicator>
             // process all the shortcuts
             return false;
         };
-        mapOverItems(op);
+        ArrayList<View> views = new ArrayList<>();
+        getViewsForItems(updates, views);
+        mapOverViews(views, op);
         Folder folder = Folder.getOpen(mLauncher);
         if (folder != null) {
             folder.iterateOverItems(op);
@@ -3440,7 +3488,9 @@ public class Workspace extends PagedView<WorkspacePageIndicator>
             mRefreshPending = false;
 
             ArrayList<PendingAppWidgetHostView> views = new ArrayList<>(mInfos.size());
-            mapOverItems((info, view) -> {
+            ArrayList<View> candidates = new ArrayList<>(mInfos.size());
+            getViewsForItems(mInfos, candidates);
+            mapOverViews(candidates, (info, view) -> {
                 if (view instanceof PendingAppWidgetHostView && mInfos.contains(info)) {
                     views.add((PendingAppWidgetHostView) view);
                 }
@@ -0,0 +1,197 @@
+package com.android.launcher3;
+
+import android.content.ComponentName;
+import android.util.ArrayMap;
+import android.view.View;
+
+import com.android.launcher3.folder.FolderIcon;
+import com.android.launcher3.model.data.FolderInfo;
+import com.android.launcher3.model.data.ItemInfo;
+import com.android.launcher3.model.data.LauncherAppWidgetInfo;
+import com.android.launcher3.model.data.WorkspaceItemInfo;
+import com.android.launcher3.util.IntArray;
+import com.android.launcher3.util.IntSparseArrayMap;
+import com.android.launcher3.util.PackageUserKey;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Index of the item views bound in the workspace and hotseat, by item id, app widget id and
+ * package, so that updates for a few items do not need to go over every view.
+ *
+ * The index is kept up to date by the {@link ShortcutAndWidgetContainer}s it is registered on.
+ * Folders are indexed under the packages and ids of their contents.
+ */
+class WorkspaceItemIndex implements ShortcutAndWidgetContainer.ItemViewListener {
+
+    private final IntSparseArrayMap<View> mViewsById = new IntSparseArrayMap<>();
+    private final IntSparseArrayMap<View> mViewsByAppWidgetId = new IntSparseArrayMap<>();
+    private final IntSparseArrayMap<FolderIcon> mFolderIconsByContentId =
+            new IntSparseArrayMap<>();
+    private final HashMap<PackageUserKey, ArrayList<View>> mViewsByPackage = new HashMap<>();
+
+    // What each view was indexed with, as the item info may change while it is bound
+    private final ArrayMap<View, Entry> mEntries = new ArrayMap<>();
+
+    @Override
+    public void onItemViewAdded(View view) {
+        if (!(view.getTag() instanceof ItemInfo)) {
+            return;
+        }
+        ItemInfo info = (ItemInfo) view.getTag();
+        if (mEntries.containsKey(view)) {
+            onItemViewRemoved(view);
+        }
+        Entry entry = new Entry(info.id);
+        mEntries.put(view, entry);
+        mViewsById.put(info.id, view);
+
+        if (info instanceof LauncherAppWidgetInfo
+                && ((LauncherAppWidgetInfo) info).appWidgetId != LauncherAppWidgetInfo.NO_ID) {
+            entry.appWidgetId = ((LauncherAppWidgetInfo) info).appWidgetId;
+            mViewsByAppWidgetId.put(entry.appWidgetId, view);
+        }
+        if (info instanceof FolderInfo && view instanceof FolderIcon) {
+            for (WorkspaceItemInfo item : ((FolderInfo) info).contents) {
+                entry.contentIds.add(item.id);
+                mFolderIconsByContentId.put(item.id, (FolderIcon) view);
+                addPackageKey(item, view, entry);
+            }
+        } else {
+            addPackageKey(info, view, entry);
+        }
+    }
+
+    @Override
+    public void onItemViewRemoved(View view) {
+        Entry entry = mEntries.remove(view);
+        if (entry == null) {
+            return;
+        }
+        if (mViewsById.get(entry.id) == view) {
+            mViewsById.remove(entry.id);
+        }
+        if (entry.appWidgetId != LauncherAppWidgetInfo.NO_ID
+                && mViewsByAppWidgetId.get(entry.appWidgetId) == view) {
+            mViewsByAppWidgetId.remove(entry.appWidgetId);
+        }
+        for (int i = 0; i < entry.contentIds.size(); i++) {
+            int contentId = entry.contentIds.get(i);
+            if (mFolderIconsByContentId.get(contentId) == view) {
+                mFolderIconsByContentId.remove(contentId);
+            }
+        }
+        for (PackageUserKey key : entry.packageKeys) {
+            ArrayList<View> views = mViewsByPackage.get(key);
+            if (views != null) {
+                views.remove(view);
+                if (views.isEmpty()) {
+                    mViewsByPackage.remove(key);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onItemViewChanged(View view) {
+        if (mEntries.containsKey(view)) {
+            onItemViewRemoved(view);
+            onItemViewAdded(view);
+        }
+    }
+
+    /**
+     * Removes all the views of {@param container} from the index.
+     */
+    void removeAll(ShortcutAndWidgetContainer container) {
+        for (int i = container.getChildCount() - 1; i >= 0; i--) {
+            onItemViewRemoved(container.getChildAt(i));
+        }
+    }
+
+    /**
+     * Adds all the views of {@param container} to the index.
+     */
+    void addAll(ShortcutAndWidgetContainer container) {
+        int count = container.getChildCount();
+        for (int i = 0; i < count; i++) {
+            onItemViewAdded(container.getChildAt(i));
+        }
+    }
+
+    /**
+     * Returns the view bound to the item with the provided id, if it is still bound to it.
+     */
+    View getViewForItemId(int id) {
+        View view = mViewsById.get(id);
+        return view != null && view.getTag() instanceof ItemInfo
+                && ((ItemInfo) view.getTag()).id == id ? view : null;
+    }
+
+    /**
+     * Returns the folder icon containing the item with the provided id.
+     */
+    FolderIcon getFolderIconForItemId(int id) {
+        return mFolderIconsByContentId.get(id);
+    }
+
+    /**
+     * Returns the view bound to the widget with the provided app widget id, if it is still bound
+     * to it.
+     */
+    View getViewForAppWidgetId(int appWidgetId) {
+        View view = mViewsByAppWidgetId.get(appWidgetId);
+        return view != null && view.getTag() instanceof LauncherAppWidgetInfo
+                && ((LauncherAppWidgetInfo) view.getTag()).appWidgetId == appWidgetId
+                ? view : null;
+    }
+
+    /**
+     * Adds the views for the packages matching {@param packages} into {@param out}, including
+     * the folders containing an item of those packages.
+     */
+    void getViewsForPackages(Predicate<PackageUserKey> packages, Collection<View> out) {
+        for (Map.Entry<PackageUserKey, ArrayList<View>> e : mViewsByPackage.entrySet()) {
+            if (packages.test(e.getKey())) {
+                for (View view : e.getValue()) {
+                    if (!out.contains(view)) {
+                        out.add(view);
+                    }
+                }
+            }
+        }
+    }
+
+    private void addPackageKey(ItemInfo info, View view, Entry entry) {
+        ComponentName cn = info.getTargetComponent();
+        if (cn == null || info.user == null) {
+            return;
+        }
+        PackageUserKey key = new PackageUserKey(cn.getPackageName(), info.user);
+        if (entry.packageKeys.contains(key)) {
+            return;
+        }
+        entry.packageKeys.add(key);
+        ArrayList<View> views = mViewsByPackage.get(key);
+        if (views == null) {
+            views = new ArrayList<>(1);
+            mViewsByPackage.put(key, views);
+        }
+        views.add(view);
+    }
+
+    private static class Entry {
+        final int id;
+        int appWidgetId = LauncherAppWidgetInfo.NO_ID;
+        final IntArray contentIds = new IntArray(0);
+        final ArrayList<PackageUserKey> packageKeys = new ArrayList<>(1);
+
+        Entry(int id) {
+            this.id = id;
+        }
+    }
+}
@@ -65,6 +65,9 @@ import com.google.android.apps.nexuslauncher.qsb.AllAppsQsbLayout;
 import com.saggitt.omega.OmegaPreferences;
 import com.saggitt.omega.allapps.AllAppsTabs;
 import com.saggitt.omega.allapps.AllAppsTabsController;
+import com.saggitt.omega.theme.ThemeManager;
+import com.saggitt.omega.theme.ThemeManager.ThemeColors;
+import com.saggitt.omega.theme.ThemeManager.ThemeableView;
 import com.saggitt.omega.util.OmegaUtilsKt;
 
 import java.util.ArrayList;
@@ -80,7 +83,7 @@ import static com.android.launcher3.model.BgDataModel.Callbacks.FLAG_QUIET_MODE_
  * The all apps view container.
  */
 public class AllAppsContainerView extends SpringRelativeLayout implements DragSource,
-        Insettable, OnDeviceProfileChangeListener {
+        Insettable, OnDeviceProfileChangeListener, ThemeableView {
 
     private static final float FLING_VELOCITY_MULTIPLIER = 135f;
     // Starts the springs after at least 55% of the animation has passed.
@@ -92,6 +95,7 @@ public class AllAppsContainerView extends SpringRelativeLayout implements DragSo
     private final ItemInfoMatcher mPersonalMatcher = ItemInfoMatcher.ofUser(Process.myUserHandle());
     private final ItemInfoMatcher mWorkMatcher = ItemInfoMatcher.not(mPersonalMatcher);
     private final AllAppsStore mAllAppsStore = new AllAppsStore();
+    private final SortedAppsList mSortedApps;
 
     private final Paint mNavBarScrimPaint;
     private int mNavBarScrimHeight = 0;
@@ -130,6 +134,7 @@ public class AllAppsContainerView extends SpringRelativeLayout implements DragSo
         mSearchQueryBuilder = new SpannableStringBuilder();
         Selection.setSelection(mSearchQueryBuilder, 0);
 
+        mSortedApps = new SortedAppsList(mLauncher, mAllAppsStore);
         AllAppsTabs allAppsTabs = new AllAppsTabs(context);
         mTabsController = new AllAppsTabsController(allAppsTabs, this);
         createHolders();
@@ -327,6 +332,32 @@ public class AllAppsContainerView extends SpringRelativeLayout implements DragSo
         mSearchUiManager.resetSearch();
     }
 
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        ThemeManager.Companion.getInstance(getContext()).addThemeableView(this);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        ThemeManager.Companion.getInstance(getContext()).removeThemeableView(this);
+    }
+
+    @Override
+    public int[] getThemeAttrs() {
+        return new int[0];
+    }
+
+    @Override
+    public void onThemeChanged(ThemeColors colors) {
+        for (AdapterHolder holder : mAH) {
+            if (holder.recyclerView != null) {
+                holder.recyclerView.setScrollbarColor(colors.getAccentColor());
+            }
+        }
+    }
+
     @Override
     protected void onFinishInflate() {
         super.onFinishInflate();
@@ -694,7 +725,7 @@ public class AllAppsContainerView extends SpringRelativeLayout implements DragSo
 
         AdapterHolder(boolean isWork) {
             mIsWork = isWork;
-            appsList = new AlphabeticalAppsList(mLauncher, mAllAppsStore, isWork);
+            appsList = new AlphabeticalAppsList(mLauncher, mAllAppsStore, mSortedApps, isWork);
             adapter = new AllAppsGridAdapter(mLauncher, getLayoutInflater(), appsList);
             appsList.setAdapter(adapter);
             layoutManager = adapter.getLayoutManager();
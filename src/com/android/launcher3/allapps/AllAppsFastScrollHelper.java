@@ -18,8 +18,6 @@ package com.android.launcher3.allapps;
 import androidx.recyclerview.widget.LinearSmoothScroller;
 import androidx.recyclerview.widget.RecyclerView.ViewHolder;
 
-import com.android.launcher3.allapps.AlphabeticalAppsList.FastScrollSectionInfo;
-
 public class AllAppsFastScrollHelper {
 
     private static final int NO_POSITION = -1;
@@ -36,13 +34,13 @@ public class AllAppsFastScrollHelper {
     }
 
     /**
-     * Smooth scrolls the recycler view to the given section.
+     * Smooth scrolls the recycler view to the given adapter position, the start of a section.
      */
-    public void smoothScrollToSection(FastScrollSectionInfo info) {
-        if (mTargetFastScrollPosition == info.fastScrollToItem.position) {
+    public void smoothScrollToPosition(int position) {
+        if (mTargetFastScrollPosition == position) {
             return;
         }
-        mTargetFastScrollPosition = info.fastScrollToItem.position;
+        mTargetFastScrollPosition = position;
         mRv.getLayoutManager().startSmoothScroll(new MyScroller(mTargetFastScrollPosition));
     }
 
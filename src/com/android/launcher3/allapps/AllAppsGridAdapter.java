@@ -36,6 +36,7 @@ import androidx.annotation.Nullable;
 import androidx.core.view.accessibility.AccessibilityEventCompat;
 import androidx.core.view.accessibility.AccessibilityNodeInfoCompat;
 import androidx.core.view.accessibility.AccessibilityRecordCompat;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -275,6 +276,32 @@ public class AllAppsGridAdapter extends RecyclerView.Adapter<AllAppsGridAdapter.
         Resources res = mLauncher.getResources();
         mEmptySearchMessage = res.getString(R.string.all_apps_no_search_results, query);
         mMarketSearchIntent = PackageManagerHelper.getMarketSearchIntent(mLauncher, query);
+        notifySearchItemsChanged();
+    }
+
+    /**
+     * Rebinds the items depending on the last search query. They are always at the end of the
+     * list, after the apps.
+     */
+    private void notifySearchItemsChanged() {
+        List<AdapterItem> items = mApps.getAdapterItems();
+        for (int i = items.size() - 1; i >= 0; i--) {
+            int viewType = items.get(i).viewType;
+            if (viewType == VIEW_TYPE_EMPTY_SEARCH || viewType == VIEW_TYPE_SEARCH_MARKET) {
+                notifyItemChanged(i);
+            } else if (isIconViewType(viewType)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Notifies the changes from {@param oldItems} to the current adapter items, so that only the
+     * items which actually changed are rebound.
+     */
+    public void applyItemsDiff(List<AdapterItem> oldItems) {
+        DiffUtil.calculateDiff(new AdapterItemDiffCallback(oldItems, mApps.getAdapterItems()),
+                false).dispatchUpdatesTo(this);
     }
 
     /**
@@ -391,4 +418,52 @@ public class AllAppsGridAdapter extends RecyclerView.Adapter<AllAppsGridAdapter.
     private SearchProvider getSearchProvider() {
         return SearchProviderController.Companion.getInstance(mLauncher).getSearchProvider();
     }
+
+    private static class AdapterItemDiffCallback extends DiffUtil.Callback {
+
+        private final List<AdapterItem> mOldItems;
+        private final List<AdapterItem> mNewItems;
+
+        AdapterItemDiffCallback(List<AdapterItem> oldItems, List<AdapterItem> newItems) {
+            mOldItems = oldItems;
+            mNewItems = newItems;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return mOldItems.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return mNewItems.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            AdapterItem oldItem = mOldItems.get(oldItemPosition);
+            AdapterItem newItem = mNewItems.get(newItemPosition);
+            if (oldItem.viewType != newItem.viewType) {
+                return false;
+            }
+            switch (oldItem.viewType) {
+                case VIEW_TYPE_ICON:
+                    return oldItem.appInfo.componentName.equals(newItem.appInfo.componentName)
+                            && oldItem.appInfo.user.equals(newItem.appInfo.user);
+                case VIEW_TYPE_SEARCH_SUGGESTION:
+                    return oldItem.suggestion.equals(newItem.suggestion);
+                case VIEW_TYPE_FOLDER:
+                    return oldItem.folderItem == newItem.folderItem;
+                default:
+                    return true;
+            }
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            // Items of the same app are only bound differently if the app was updated
+            return mOldItems.get(oldItemPosition).appInfo
+                    == mNewItems.get(newItemPosition).appInfo;
+        }
+    }
 }
@@ -225,19 +225,14 @@ public class AllAppsRecyclerView extends BaseRecyclerView implements LogContaine
         }
 
         // Find the fastscroll section that maps to this touch fraction
-        List<AlphabeticalAppsList.FastScrollSectionInfo> fastScrollSections =
-                mApps.getFastScrollerSections();
-        AlphabeticalAppsList.FastScrollSectionInfo lastInfo = fastScrollSections.get(0);
-        for (int i = 1; i < fastScrollSections.size(); i++) {
-            AlphabeticalAppsList.FastScrollSectionInfo info = fastScrollSections.get(i);
-            if (info.touchFraction > touchFraction) {
-                break;
-            }
-            lastInfo = info;
+        FastScrollSectionIndex sections = mApps.getFastScrollSections();
+        if (sections.getSectionCount() == 0) {
+            return "";
         }
+        int section = sections.getSectionForTouchFraction(touchFraction);
 
-        mFastScrollHelper.smoothScrollToSection(lastInfo);
-        return lastInfo.sectionName;
+        mFastScrollHelper.smoothScrollToPosition(sections.getPositionForSection(section));
+        return sections.getSectionName(section);
     }
 
     @Override
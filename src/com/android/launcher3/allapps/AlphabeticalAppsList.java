@@ -19,47 +19,26 @@ package com.android.launcher3.allapps;
 import android.content.Context;
 import android.content.pm.LauncherActivityInfo;
 import android.content.pm.LauncherApps;
-import android.content.pm.PackageManager;
 import android.graphics.Color;
 import android.os.UserHandle;
 import android.os.UserManager;
 
-import androidx.core.graphics.ColorUtils;
-
 import com.android.launcher3.BaseDraggingActivity;
 import com.android.launcher3.LauncherAppState;
-import com.android.launcher3.LauncherModel;
 import com.android.launcher3.Utilities;
-import com.android.launcher3.compat.AlphabeticIndexCompat;
-import com.android.launcher3.icons.IconCache;
-import com.android.launcher3.model.ModelWriter;
 import com.android.launcher3.model.data.AppInfo;
 import com.android.launcher3.util.ComponentKey;
 import com.android.launcher3.util.ItemInfoMatcher;
-import com.android.launcher3.util.LabelComparator;
 import com.saggitt.omega.OmegaPreferences;
-import com.saggitt.omega.allapps.AppColorComparator;
-import com.saggitt.omega.allapps.InstallTimeComparator;
-import com.saggitt.omega.allapps.MostUsedComparator;
-import com.saggitt.omega.groups.DrawerFolderInfo;
 import com.saggitt.omega.groups.DrawerFolderItem;
-import com.saggitt.omega.model.AppCountInfo;
-import com.saggitt.omega.util.DbHelper;
+import com.saggitt.omega.groups.DrawerFolderModel;
 
-import java.text.Collator;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
-import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
 
-import static com.saggitt.omega.util.Config.SORT_AZ;
 import static com.saggitt.omega.util.Config.SORT_BY_COLOR;
-import static com.saggitt.omega.util.Config.SORT_LAST_INSTALLED;
-import static com.saggitt.omega.util.Config.SORT_MOST_USED;
-import static com.saggitt.omega.util.Config.SORT_ZA;
 
 /**
  * The alphabetically sorted list of applications.
@@ -75,40 +54,44 @@ public class AlphabeticalAppsList implements AllAppsStore.OnUpdateListener {
 
     private final BaseDraggingActivity mLauncher;
 
-    private AppColorComparator mAppColorComparator;
-
     public void updateItemFilter(ItemInfoMatcher itemFilter) {
         this.mItemFilter = itemFilter;
-        onAppsUpdated();
+        updateBaseList();
+        updateAdapterItems();
     }
 
     // The set of apps from the system
     private final List<AppInfo> mApps = new ArrayList<>();
     private final AllAppsStore mAllAppsStore;
+    // All the apps from the store, sorted and indexed by key, shared with the other lists
+    private final SortedAppsList mSortedApps;
+    // The drawer folders, updated along with the sorted apps
+    private final DrawerFolderModel mDrawerFolders;
+    // Search results which are not in the store, loaded on demand
+    private final HashMap<ComponentKey, AppInfo> mSearchOnlyApps = new HashMap<>();
+    // The generation of mSortedApps mApps was built from
+    private int mBaseGeneration = -1;
 
     // The set of filtered apps with the current filter
     private final List<AppInfo> mFilteredApps = new ArrayList<>();
     // The current set of adapter items
     private final ArrayList<AdapterItem> mAdapterItems = new ArrayList<>();
     // The set of sections that we allow fast-scrolling to (includes non-merged sections)
-    private final List<FastScrollSectionInfo> mFastScrollerSections = new ArrayList<>();
+    private final FastScrollSectionIndex mFastScrollSections = new FastScrollSectionIndex();
     // Is it the work profile app list.
     private boolean mIsWork;
 
     // The of ordered component names as a result of a search query
     private ArrayList<ComponentKey> mSearchResults;
     private AllAppsGridAdapter mAdapter;
-    private AppInfoComparator mAppNameComparator;
-    private HashMap<AppInfo, String> mCachedSectionNames = new HashMap<>();
-    private AlphabeticIndexCompat mIndexer;
 
-    public AlphabeticalAppsList(Context context, AllAppsStore appsStore, boolean isWork) {
+    public AlphabeticalAppsList(Context context, AllAppsStore appsStore, SortedAppsList sortedApps,
+            boolean isWork) {
         mAllAppsStore = appsStore;
+        mSortedApps = sortedApps;
         mLauncher = BaseDraggingActivity.fromContext(context);
-        mIndexer = new AlphabeticIndexCompat(context);
-        mAppNameComparator = new AppInfoComparator(context);
-        mAppColorComparator = new AppColorComparator(context);
         mIsWork = isWork;
+        mDrawerFolders = new DrawerFolderModel(context);
         mNumAppsPerRow = mLauncher.getDeviceProfile().inv.numColsDrawer;
         mAllAppsStore.addUpdateListener(this);
         prefs = Utilities.getOmegaPrefs(context);
@@ -135,51 +118,18 @@ public class AlphabeticalAppsList implements AllAppsStore.OnUpdateListener {
         return mApps;
     }
 
-    private void sortApps(int sortType) {
-        switch (sortType) {
-            //SORT BY NAME AZ
-            case SORT_AZ:
-                mApps.sort(mAppNameComparator);
-                break;
-
-            //SORT BY NAME ZA
-            case SORT_ZA:
-                mApps.sort((p2, p1) -> Collator
-                        .getInstance()
-                        .compare(p1.title, p2.title));
-                break;
-
-            //SORT BY LAST INSTALLED
-            case SORT_LAST_INSTALLED:
-                PackageManager pm = mLauncher.getApplicationContext().getPackageManager();
-                InstallTimeComparator installTimeComparator = new InstallTimeComparator(pm);
-                mApps.sort(installTimeComparator);
-                break;
-
-            //SORT BY MOST USED DESC
-            case SORT_MOST_USED:
-                DbHelper db = new DbHelper(mLauncher.getApplicationContext());
-                List<AppCountInfo> appsCounter = db.getAppsCount();
-                db.close();
-                MostUsedComparator mostUsedComparator = new MostUsedComparator(appsCounter);
-                mApps.sort(mostUsedComparator);
-                break;
-
-            case SORT_BY_COLOR:
-                mApps.sort(mAppColorComparator);
-                break;
-            default:
-                mApps.sort(mAppNameComparator);
-                break;
-
-        }
+    /**
+     * Returns all the apps which can show up in search results, regardless of the item filter.
+     */
+    public List<AppInfo> getSearchableApps() {
+        return mSortedApps.getApps();
     }
 
     /**
      * Returns fast scroller sections of all the current filtered applications.
      */
-    public List<FastScrollSectionInfo> getFastScrollerSections() {
-        return mFastScrollerSections;
+    public FastScrollSectionIndex getFastScrollSections() {
+        return mFastScrollSections;
     }
 
     /**
@@ -234,8 +184,11 @@ public class AlphabeticalAppsList implements AllAppsStore.OnUpdateListener {
     public boolean setOrderedFilter(ArrayList<ComponentKey> f) {
         if (mSearchResults != f) {
             boolean same = mSearchResults != null && mSearchResults.equals(f);
+            boolean wasSearching = hasFilter();
             mSearchResults = f;
-            onAppsUpdated();
+            if (!same) {
+                updateSearchItems(wasSearching && hasFilter());
+            }
             return !same;
         }
         return false;
@@ -245,7 +198,9 @@ public class AlphabeticalAppsList implements AllAppsStore.OnUpdateListener {
         if (mSearchSuggestions != suggestions) {
             boolean same = mSearchSuggestions != null && mSearchSuggestions.equals(suggestions);
             mSearchSuggestions = suggestions;
-            onAppsUpdated();
+            if (!same) {
+                updateSearchItems(hasFilter());
+            }
             return !same;
         }
         return false;
@@ -256,61 +211,47 @@ public class AlphabeticalAppsList implements AllAppsStore.OnUpdateListener {
      */
     @Override
     public void onAppsUpdated() {
-        // Sort the list of apps
-        mApps.clear();
+        mSearchOnlyApps.clear();
+        updateBaseList();
 
-        for (AppInfo app : mAllAppsStore.getApps()) {
-            if (mItemFilter == null || mItemFilter.matches(app, null) || hasFilter()) {
-                mApps.add(app);
-            }
-        }
-
-        //Collections.sort(mApps, mAppNameComparator);
-        Context context = mLauncher.getApplicationContext();
-        OmegaPreferences prefs = Utilities.getOmegaPrefs(context);
-        sortApps(prefs.getSortMode());
-
-        // As a special case for some languages (currently only Simplified Chinese), we may need to
-        // coalesce sections
-        Locale curLocale = mLauncher.getResources().getConfiguration().locale;
-        boolean localeRequiresSectionSorting = curLocale.equals(Locale.SIMPLIFIED_CHINESE);
-        if (localeRequiresSectionSorting) {
-            // Compute the section headers. We use a TreeMap with the section name comparator to
-            // ensure that the sections are ordered when we iterate over it later
-            TreeMap<String, ArrayList<AppInfo>> sectionMap = new TreeMap<>(new LabelComparator());
-            for (AppInfo info : mApps) {
-                // Add the section to the cache
-                String sectionName = info.sectionName;
-
-                // Add it to the mapping
-                ArrayList<AppInfo> sectionApps = sectionMap.get(sectionName);
-                if (sectionApps == null) {
-                    sectionApps = new ArrayList<>();
-                    sectionMap.put(sectionName, sectionApps);
-                }
-                sectionApps.add(info);
-            }
+        // Recompose the set of adapter items from the current set of apps
+        updateAdapterItems();
+    }
 
-            // Add each of the section apps to the list in order
-            mApps.clear();
-            for (Map.Entry<String, ArrayList<AppInfo>> entry : sectionMap.entrySet()) {
-                mApps.addAll(entry.getValue());
-            }
+    /**
+     * Updates the adapter items after the search results or suggestions changed. The sorted list
+     * of apps is kept as it is, unless the sort mode changed in the meantime.
+     *
+     * @param diff whether the adapter should only be notified of the items which changed, rather
+     *             than of a whole new data set
+     */
+    private void updateSearchItems(boolean diff) {
+        mSortedApps.update();
+        if (mBaseGeneration != mSortedApps.getGeneration()) {
+            mSearchOnlyApps.clear();
+            updateBaseList();
+            updateAdapterItems();
+        } else if (diff && mAdapter != null) {
+            List<AdapterItem> oldItems = new ArrayList<>(mAdapterItems);
+            refillAdapterItems();
+            mAdapter.applyItemsDiff(oldItems);
         } else {
-            // Just compute the section headers for use below
-            for (AppInfo info : mApps) {
-                // Add the section to the cache
-                getAndUpdateCachedSectionName(info);
-            }
+            updateAdapterItems();
         }
+    }
 
-        // Recompose the set of adapter items from the current set of apps
-        updateAdapterItems();
+    /**
+     * Rebuilds the list of apps matching the item filter, from the shared sorted list.
+     */
+    private void updateBaseList() {
+        mSortedApps.update();
+        mBaseGeneration = mSortedApps.getGeneration();
+        mApps.clear();
+        mSortedApps.getFilteredApps(mItemFilter, mApps);
     }
 
     /**
-     * Updates the set of filtered apps with the current filter.  At this point, we expect
-     * mCachedSectionNames to have been calculated for the set of all apps in mApps.
+     * Updates the set of filtered apps with the current filter.
      */
     private void updateAdapterItems() {
         refillAdapterItems();
@@ -325,52 +266,48 @@ public class AlphabeticalAppsList implements AllAppsStore.OnUpdateListener {
 
     private void refillAdapterItems() {
         String lastSectionName = null;
-        FastScrollSectionInfo lastFastScrollerSectionInfo = null;
+        int section = FastScrollSectionIndex.NO_SECTION;
         int position = 0;
         int appIndex = 0;
-        int folderIndex = 0;
 
         // Prepare to update the list of sections, filtered apps, etc.
         mFilteredApps.clear();
-        mFastScrollerSections.clear();
+        mFastScrollSections.clear();
         mAdapterItems.clear();
 
         // Search suggestions should be all the way to the top
         if (hasFilter() && hasSuggestions()) {
             for (String suggestion : mSearchSuggestions) {
-                mAdapterItems.add(AdapterItem.asSearchSuggestion(position++, suggestion));
+                addAdapterItem(AdapterItem.asSearchSuggestion(position++, suggestion),
+                        FastScrollSectionIndex.NO_SECTION);
             }
         }
 
         // Drawer folders are arranged before all the apps
         if (!hasFilter()) {
-            for (DrawerFolderInfo info : getFolderInfos()) {
+            for (DrawerFolderItem folderItem : mDrawerFolders.getFolderItems(mSortedApps, mItemFilter)) {
                 String sectionName = "#";
 
                 // Create a new section if the section names do not match
                 if (!sectionName.equals(lastSectionName)) {
                     lastSectionName = sectionName;
-                    lastFastScrollerSectionInfo = new FastScrollSectionInfo(sectionName, Color.WHITE);
-                    mFastScrollerSections.add(lastFastScrollerSectionInfo);
+                    section = mFastScrollSections.addSection(sectionName, Color.WHITE);
                 }
 
-                info.setAppsStore(mAllAppsStore);
+                folderItem.getInfo().setAppsStore(mAllAppsStore);
                 // Create an folder item
-                AdapterItem appItem = AdapterItem
-                        .asFolder(position++, sectionName, info, folderIndex++);
-                if (lastFastScrollerSectionInfo.fastScrollToItem == null) {
-                    lastFastScrollerSectionInfo.fastScrollToItem = appItem;
-                }
-                mAdapterItems.add(appItem);
+                addAdapterItem(AdapterItem.asFolder(position++, sectionName, folderItem), section);
             }
         }
 
-        Set<ComponentKey> folderFilters = getFolderFilteredApps();
+        Set<ComponentKey> folderFilters = mDrawerFolders.getHiddenComponents();
+        boolean hideFolderApps = !hasFilter() && !folderFilters.isEmpty();
+        boolean sortByColor = prefs.getSortMode() == SORT_BY_COLOR;
 
         // Recreate the filtered and sectioned apps (for convenience for the grid layout) from the
         // ordered set of sections
         for (AppInfo info : getFiltersAppInfos()) {
-            if (!hasFilter() && folderFilters.contains(info.toComponentKey())) {
+            if (hideFolderApps && folderFilters.contains(info.toComponentKey())) {
                 continue;
             }
 
@@ -379,31 +316,26 @@ public class AlphabeticalAppsList implements AllAppsStore.OnUpdateListener {
             // Create a new section if the section names do not match
             if (!sectionName.equals(lastSectionName)) {
                 lastSectionName = sectionName;
-                int color = 0;
-                if (prefs.getSortMode() == SORT_BY_COLOR) {
-                    color = info.bitmap.color;
-                }
-                lastFastScrollerSectionInfo = new FastScrollSectionInfo(sectionName, color);
-                mFastScrollerSections.add(lastFastScrollerSectionInfo);
+                int color = sortByColor ? info.bitmap.color : 0;
+                section = mFastScrollSections.addSection(sectionName, color);
             }
 
             // Create an app item
-            AdapterItem appItem = AdapterItem.asApp(position++, sectionName, info, appIndex++);
-            if (lastFastScrollerSectionInfo.fastScrollToItem == null) {
-                lastFastScrollerSectionInfo.fastScrollToItem = appItem;
-            }
-            mAdapterItems.add(appItem);
+            addAdapterItem(AdapterItem.asApp(position++, sectionName, info, appIndex++), section);
             mFilteredApps.add(info);
         }
 
         if (hasFilter()) {
             // Append the search market item
             if (hasNoFilteredResults()) {
-                mAdapterItems.add(AdapterItem.asEmptySearch(position++));
+                addAdapterItem(AdapterItem.asEmptySearch(position++),
+                        FastScrollSectionIndex.NO_SECTION);
             } else {
-                mAdapterItems.add(AdapterItem.asAllAppsDivider(position++));
+                addAdapterItem(AdapterItem.asAllAppsDivider(position++),
+                        FastScrollSectionIndex.NO_SECTION);
             }
-            mAdapterItems.add(AdapterItem.asMarketSearch(position++));
+            addAdapterItem(AdapterItem.asMarketSearch(position++),
+                    FastScrollSectionIndex.NO_SECTION);
         }
 
         if (mNumAppsPerRow != 0) {
@@ -430,30 +362,32 @@ public class AlphabeticalAppsList implements AllAppsStore.OnUpdateListener {
             mNumAppRowsInAdapter = rowIndex + 1;
 
             // Pre-calculate all the fast scroller fractions
+            int sectionCount = mFastScrollSections.getSectionCount();
             switch (mFastScrollDistributionMode) {
                 case FAST_SCROLL_FRACTION_DISTRIBUTE_BY_ROWS_FRACTION:
                     float rowFraction = 1f / mNumAppRowsInAdapter;
-                    for (FastScrollSectionInfo info : mFastScrollerSections) {
-                        AdapterItem item = info.fastScrollToItem;
+                    for (int i = 0; i < sectionCount; i++) {
+                        AdapterItem item = mAdapterItems.get(
+                                mFastScrollSections.getPositionForSection(i));
                         if (!AllAppsGridAdapter.isIconViewType(item.viewType)) {
-                            info.touchFraction = 0f;
                             continue;
                         }
 
                         float subRowFraction = item.rowAppIndex * (rowFraction / mNumAppsPerRow);
-                        info.touchFraction = item.rowIndex * rowFraction + subRowFraction;
+                        mFastScrollSections.setTouchFraction(i,
+                                item.rowIndex * rowFraction + subRowFraction);
                     }
                     break;
                 case FAST_SCROLL_FRACTION_DISTRIBUTE_BY_NUM_SECTIONS:
-                    float perSectionTouchFraction = 1f / mFastScrollerSections.size();
+                    float perSectionTouchFraction = 1f / sectionCount;
                     float cumulativeTouchFraction = 0f;
-                    for (FastScrollSectionInfo info : mFastScrollerSections) {
-                        AdapterItem item = info.fastScrollToItem;
+                    for (int i = 0; i < sectionCount; i++) {
+                        AdapterItem item = mAdapterItems.get(
+                                mFastScrollSections.getPositionForSection(i));
                         if (!AllAppsGridAdapter.isIconViewType(item.viewType)) {
-                            info.touchFraction = 0f;
                             continue;
                         }
-                        info.touchFraction = cumulativeTouchFraction;
+                        mFastScrollSections.setTouchFraction(i, cumulativeTouchFraction);
                         cumulativeTouchFraction += perSectionTouchFraction;
                     }
                     break;
@@ -461,96 +395,58 @@ public class AlphabeticalAppsList implements AllAppsStore.OnUpdateListener {
         }
     }
 
+    private void addAdapterItem(AdapterItem item, int section) {
+        mAdapterItems.add(item);
+        mFastScrollSections.addItem(section);
+    }
+
     private List<AppInfo> getFiltersAppInfos() {
         if (mSearchResults == null) {
             return mApps;
         }
 
-        final LauncherApps launcherApps = mLauncher.getSystemService(LauncherApps.class);
-        final UserHandle user = android.os.Process.myUserHandle();
-        final IconCache iconCache = LauncherAppState.getInstance(mLauncher).getIconCache();
-        boolean quietMode = mLauncher.getSystemService(UserManager.class).isQuietModeEnabled(user);
-        ArrayList<AppInfo> result = new ArrayList<>();
+        ArrayList<AppInfo> result = new ArrayList<>(mSearchResults.size());
         for (ComponentKey key : mSearchResults) {
-            AppInfo match = mAllAppsStore.getApp(key);
+            AppInfo match = mSortedApps.getApp(key);
+            if (match == null) {
+                match = mSearchOnlyApps.get(key);
+            }
+            if (match == null) {
+                match = loadSearchOnlyApp(key);
+            }
             if (match != null) {
                 result.add(match);
-            } else {
-                for (LauncherActivityInfo info : launcherApps
-                        .getActivityList(key.componentName.getPackageName(), user)) {
-                    if (info.getComponentName().equals(key.componentName)) {
-                        final AppInfo appInfo = new AppInfo(info, user, quietMode);
-                        iconCache.getTitleAndIcon(appInfo, false);
-                        result.add(appInfo);
-                        break;
-                    }
-                }
             }
         }
         return result;
     }
 
     /**
-     * Returns the cached section name for the given title, recomputing and updating the cache if
-     * the title has no cached section name.
+     * Loads an app which is not in the store, like a hidden app, and keeps it until the apps are
+     * updated so that it is only loaded once per search.
      */
-    private String getAndUpdateCachedSectionName(AppInfo info) {
-        String sectionName = mCachedSectionNames.get(info);
-        if (sectionName == null) {
-            if (prefs.getSortMode() == SORT_BY_COLOR) {
-                float[] hsl = new float[3];
-                ColorUtils.colorToHSL(info.iconColor, hsl);
-                sectionName = String.format("%d:%d:%d", AppColorComparator.remapHue(hsl[0]), AppColorComparator.remap(hsl[2]), AppColorComparator.remap(hsl[1]));
-            } else {
-                sectionName = mIndexer.computeSectionName(info.title);
+    private AppInfo loadSearchOnlyApp(ComponentKey key) {
+        final LauncherApps launcherApps = mLauncher.getSystemService(LauncherApps.class);
+        final UserHandle user = android.os.Process.myUserHandle();
+        for (LauncherActivityInfo info : launcherApps
+                .getActivityList(key.componentName.getPackageName(), user)) {
+            if (info.getComponentName().equals(key.componentName)) {
+                boolean quietMode = mLauncher.getSystemService(UserManager.class)
+                        .isQuietModeEnabled(user);
+                final AppInfo appInfo = new AppInfo(info, user, quietMode);
+                LauncherAppState.getInstance(mLauncher).getIconCache()
+                        .getTitleAndIcon(appInfo, false);
+                mSearchOnlyApps.put(key, appInfo);
+                return appInfo;
             }
-            mCachedSectionNames.put(info, sectionName);
         }
-        return sectionName;
+        return null;
     }
 
     public void setIsWork(boolean isWork) {
         mIsWork = isWork;
     }
 
-    private List<DrawerFolderInfo> getFolderInfos() {
-        LauncherAppState app = LauncherAppState.getInstance(mLauncher);
-        LauncherModel model = app.getModel();
-        ModelWriter modelWriter = model.getWriter(false, true);
-        return Utilities.getOmegaPrefs(mLauncher)
-                .getAppGroupsManager()
-                .getDrawerFolders()
-                .getFolderInfos(this, modelWriter);
-    }
-
-    private Set<ComponentKey> getFolderFilteredApps() {
-
-        return Utilities.getOmegaPrefs(mLauncher)
-                .getAppGroupsManager()
-                .getDrawerFolders()
-                .getHiddenComponents();
-    }
-
-    /**
-     * Info about a fast scroller section, depending if sections are merged, the fast scroller
-     * sections will not be the same set as the section headers.
-     */
-    public static class FastScrollSectionInfo {
-        // The section name
-        public String sectionName;
-        // The AdapterItem to scroll to for this section
-        public AdapterItem fastScrollToItem;
-        // The touch fraction that should map to this fast scroll section info
-        public float touchFraction;
-        // The color of this fast scroll section
-        public int color;
-
-        public FastScrollSectionInfo(String sectionName, int color) {
-            this.sectionName = sectionName;
-            this.color = color;
-        }
-    }
-
     /**
      * Info about a particular adapter item (can be either section or app)
      */
@@ -618,12 +514,12 @@ public class AlphabeticalAppsList implements AllAppsStore.OnUpdateListener {
         }
 
         public static AdapterItem asFolder(int pos, String sectionName,
-                                           DrawerFolderInfo folderInfo, int folderIndex) {
+                                           DrawerFolderItem folderItem) {
             AdapterItem item = new AdapterItem();
             item.viewType = AllAppsGridAdapter.VIEW_TYPE_FOLDER;
             item.position = pos;
             item.sectionName = sectionName;
-            item.folderItem = new DrawerFolderItem(folderInfo, folderIndex);
+            item.folderItem = folderItem;
             return item;
         }
 
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.allapps;
+
+import java.util.Arrays;
+
+/**
+ * The fast scroller sections of the adapter items of an {@link AlphabeticalAppsList}.
+ *
+ * Sections and items are kept in parallel arrays, which are reused every time the index is
+ * rebuilt. Looking up the section of an adapter position, or the position of a section, is a
+ * single array access, and dragging the fast scroller doesn't allocate anything.
+ */
+public class FastScrollSectionIndex {
+
+    public static final int NO_SECTION = -1;
+
+    private static final int INITIAL_SECTIONS = 32;
+    private static final int INITIAL_ITEMS = 256;
+
+    // Properties of each section
+    private String[] mNames = new String[INITIAL_SECTIONS];
+    private int[] mColors = new int[INITIAL_SECTIONS];
+    // The adapter position to scroll to for each section
+    private int[] mPositions = new int[INITIAL_SECTIONS];
+    // The touch fraction mapping to each section
+    private float[] mTouchFractions = new float[INITIAL_SECTIONS];
+    private int mSectionCount;
+
+    // The section of each adapter position
+    private int[] mItemSections = new int[INITIAL_ITEMS];
+    private int mItemCount;
+
+    /**
+     * Removes all the sections and items, keeping the arrays for the next build.
+     */
+    void clear() {
+        Arrays.fill(mNames, 0, mSectionCount, null);
+        mSectionCount = 0;
+        mItemCount = 0;
+    }
+
+    /**
+     * Adds a section starting at the next item, and returns its index.
+     */
+    int addSection(String name, int color) {
+        if (mSectionCount == mNames.length) {
+            int capacity = mSectionCount * 2;
+            mNames = Arrays.copyOf(mNames, capacity);
+            mColors = Arrays.copyOf(mColors, capacity);
+            mPositions = Arrays.copyOf(mPositions, capacity);
+            mTouchFractions = Arrays.copyOf(mTouchFractions, capacity);
+        }
+        int section = mSectionCount++;
+        mNames[section] = name;
+        mColors[section] = color;
+        mPositions[section] = mItemCount;
+        mTouchFractions[section] = 0;
+        return section;
+    }
+
+    /**
+     * Adds the next adapter item, which belongs to {@param section}, or to no section if
+     * {@link #NO_SECTION}.
+     */
+    void addItem(int section) {
+        if (mItemCount == mItemSections.length) {
+            mItemSections = Arrays.copyOf(mItemSections, mItemCount * 2);
+        }
+        mItemSections[mItemCount++] = section;
+    }
+
+    void setTouchFraction(int section, float touchFraction) {
+        mTouchFractions[section] = touchFraction;
+    }
+
+    public int getSectionCount() {
+        return mSectionCount;
+    }
+
+    public String getSectionName(int section) {
+        return mNames[section];
+    }
+
+    public int getSectionColor(int section) {
+        return mColors[section];
+    }
+
+    public float getTouchFraction(int section) {
+        return mTouchFractions[section];
+    }
+
+    /**
+     * Returns the adapter position to scroll to for {@param section}.
+     */
+    public int getPositionForSection(int section) {
+        return mPositions[section];
+    }
+
+    /**
+     * Returns the section of the item at adapter {@param position}, or {@link #NO_SECTION}.
+     */
+    public int getSectionForPosition(int position) {
+        return position >= 0 && position < mItemCount ? mItemSections[position] : NO_SECTION;
+    }
+
+    /**
+     * Returns the last section whose touch fraction is at most {@param touchFraction}, or the
+     * first section if there is none. Expects at least one section.
+     */
+    public int getSectionForTouchFraction(float touchFraction) {
+        // Touch fractions never decrease along the sections
+        int low = 1;
+        int high = mSectionCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (mTouchFractions[mid] > touchFraction) {
+                high = mid - 1;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low - 1;
+    }
+}
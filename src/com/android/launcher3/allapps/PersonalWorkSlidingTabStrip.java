@@ -37,12 +37,16 @@ import com.android.launcher3.pageindicators.PageIndicator;
 import com.android.launcher3.util.Themes;
 import com.saggitt.omega.allapps.AllAppsTabs;
 import com.saggitt.omega.preferences.DrawerTabEditBottomSheet;
+import com.saggitt.omega.theme.ThemeManager;
+import com.saggitt.omega.theme.ThemeManager.ThemeColors;
+import com.saggitt.omega.theme.ThemeManager.ThemeableView;
 import com.saggitt.omega.views.ColoredButton;
 
 /**
  * Supports two indicator colors, dedicated for personal and work tabs.
  */
-public class PersonalWorkSlidingTabStrip extends LinearLayout implements PageIndicator {
+public class PersonalWorkSlidingTabStrip extends LinearLayout implements PageIndicator,
+        ThemeableView {
     private static final int POSITION_PERSONAL = 0;
     private static final int POSITION_WORK = 1;
 
@@ -64,6 +68,7 @@ public class PersonalWorkSlidingTabStrip extends LinearLayout implements PageInd
 
     private ArgbEvaluator mArgbEvaluator = new ArgbEvaluator();
     private Path mIndicatorPath = new Path();
+    private AllAppsTabs mTabs;
 
     public PersonalWorkSlidingTabStrip(@NonNull Context context, @Nullable AttributeSet attrs) {
         super(context, attrs);
@@ -86,6 +91,32 @@ public class PersonalWorkSlidingTabStrip extends LinearLayout implements PageInd
         mIsRtl = Utilities.isRtl(getResources());
     }
 
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        ThemeManager.Companion.getInstance(getContext()).addThemeableView(this);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        ThemeManager.Companion.getInstance(getContext()).removeThemeableView(this);
+    }
+
+    @Override
+    public int[] getThemeAttrs() {
+        return new int[0];
+    }
+
+    @Override
+    public void onThemeChanged(ThemeColors colors) {
+        if (mTabs != null) {
+            updateTabColors(colors.getAccentColor());
+            updateIndicatorPosition();
+            invalidate();
+        }
+    }
+
     /**
      * Highlights tab with index pos
      */
@@ -307,11 +338,11 @@ public class PersonalWorkSlidingTabStrip extends LinearLayout implements PageInd
         while (getChildCount() > count) {
             removeViewAt(0);
         }
+        mTabs = tabs;
+        updateTabColors(Utilities.getOmegaPrefs(getContext()).getAccentColor());
         for (int i = 0; i < tabs.getCount(); i++) {
             AllAppsTabs.Tab tab = tabs.get(i);
             ColoredButton button = (ColoredButton) getChildAt(i);
-            button.setColor(tab.getDrawerTab().getColor().value());
-            button.refreshTextColor();
             button.setText(tab.getName());
             button.setOnLongClickListener(v -> {
                 DrawerTabEditBottomSheet.Companion
@@ -322,4 +353,13 @@ public class PersonalWorkSlidingTabStrip extends LinearLayout implements PageInd
         updateIndicatorPosition();
         invalidate();
     }
+
+    private void updateTabColors(int accentColor) {
+        for (int i = 0; i < mTabs.getCount(); i++) {
+            // Tabs without a color of their own follow the accent color
+            Integer color = mTabs.get(i).getDrawerTab().getColor().getValue();
+            ColoredButton button = (ColoredButton) getChildAt(i);
+            button.setColor(color != null ? color : accentColor);
+        }
+    }
 }
@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.allapps;
+
+import static com.saggitt.omega.util.Config.SORT_AZ;
+import static com.saggitt.omega.util.Config.SORT_BY_COLOR;
+import static com.saggitt.omega.util.Config.SORT_LAST_INSTALLED;
+import static com.saggitt.omega.util.Config.SORT_MOST_USED;
+import static com.saggitt.omega.util.Config.SORT_ZA;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+
+import com.android.launcher3.Utilities;
+import com.android.launcher3.model.data.AppInfo;
+import com.android.launcher3.util.ComponentKey;
+import com.android.launcher3.util.ComponentKeyMatcher;
+import com.android.launcher3.util.ItemInfoMatcher;
+import com.android.launcher3.util.LabelComparator;
+import com.saggitt.omega.OmegaPreferences;
+import com.saggitt.omega.allapps.AppColorComparator;
+import com.saggitt.omega.allapps.InstallTimeComparator;
+import com.saggitt.omega.allapps.MostUsedComparator;
+import com.saggitt.omega.model.AppCountInfo;
+import com.saggitt.omega.util.DbHelper;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.WeakHashMap;
+
+/**
+ * The sorted list of all the apps in an {@link AllAppsStore}, shared by all the
+ * {@link AlphabeticalAppsList}s of the drawer.
+ *
+ * The apps are sorted once per update of the store, and the apps matching the filter of each
+ * list are computed once as a {@link BitSet} over the sorted apps. Each list is then only a
+ * projection of this one.
+ */
+public class SortedAppsList {
+
+    private final Context mContext;
+    private final AllAppsStore mAllAppsStore;
+    private final OmegaPreferences mPrefs;
+    private final AppInfoComparator mAppNameComparator;
+    private final AppColorComparator mAppColorComparator;
+    private final Comparator<AppInfo> mSectionComparator;
+
+    private final ArrayList<AppInfo> mApps = new ArrayList<>();
+    // The keys of mApps, in the same order
+    private final ArrayList<ComponentKey> mKeys = new ArrayList<>();
+    private final HashMap<ComponentKey, AppInfo> mAppsByKey = new HashMap<>();
+    // Matchers are compared by identity, and dropped along with the lists using them
+    private final WeakHashMap<ItemInfoMatcher, BitSet> mMemberships = new WeakHashMap<>();
+
+    // The store apps and the sort mode mApps was built from
+    private AppInfo[] mSourceApps;
+    private int mSortMode = -1;
+    private int mGeneration;
+
+    public SortedAppsList(Context context, AllAppsStore appsStore) {
+        mContext = context;
+        mAllAppsStore = appsStore;
+        mPrefs = Utilities.getOmegaPrefs(context);
+        mAppNameComparator = new AppInfoComparator(context);
+        mAppColorComparator = new AppColorComparator(context);
+        LabelComparator labelComparator = new LabelComparator();
+        mSectionComparator = (a, b) -> labelComparator.compare(a.sectionName, b.sectionName);
+    }
+
+    /**
+     * Rebuilds the list if the apps in the store or the sort mode changed since the last update.
+     * Lists sharing this one can all call it on every store update, only the first call sorts.
+     */
+    public void update() {
+        AppInfo[] apps = mAllAppsStore.getApps();
+        int sortMode = mPrefs.getSortMode();
+        if (apps == mSourceApps && sortMode == mSortMode) {
+            return;
+        }
+        mSourceApps = apps;
+        mSortMode = sortMode;
+        mGeneration++;
+
+        mApps.clear();
+        mAppsByKey.clear();
+        mMemberships.clear();
+        for (AppInfo app : apps) {
+            mApps.add(app);
+        }
+        sortApps(sortMode);
+
+        // As a special case for some languages (currently only Simplified Chinese), we may need to
+        // coalesce sections
+        Locale curLocale = mContext.getResources().getConfiguration().locale;
+        boolean localeRequiresSectionSorting = curLocale.equals(Locale.SIMPLIFIED_CHINESE);
+        if (localeRequiresSectionSorting) {
+            // Group the apps by section, in the order of the section names. The sort is stable,
+            // so the apps keep their order within each section.
+            mApps.sort(mSectionComparator);
+        }
+
+        mKeys.clear();
+        mKeys.ensureCapacity(mApps.size());
+        for (AppInfo app : mApps) {
+            ComponentKey key = app.toComponentKey();
+            mKeys.add(key);
+            mAppsByKey.put(key, app);
+        }
+    }
+
+    /**
+     * Returns a number which changes every time the list is rebuilt.
+     */
+    public int getGeneration() {
+        return mGeneration;
+    }
+
+    /**
+     * Returns all the apps, sorted.
+     */
+    public List<AppInfo> getApps() {
+        return mApps;
+    }
+
+    /**
+     * Returns the app for {@param key}, or null if it isn't in the store.
+     */
+    public AppInfo getApp(ComponentKey key) {
+        return mAppsByKey.get(key);
+    }
+
+    /**
+     * Returns the positions in {@link #getApps()} of the apps matching {@param matcher}. The
+     * result is computed once per update for each matcher.
+     */
+    public BitSet getMembership(ItemInfoMatcher matcher) {
+        BitSet membership = mMemberships.get(matcher);
+        if (membership == null) {
+            int count = mApps.size();
+            membership = new BitSet(count);
+            for (int i = 0; i < count; i++) {
+                if (matches(matcher, mApps.get(i), mKeys.get(i))) {
+                    membership.set(i);
+                }
+            }
+            mMemberships.put(matcher, membership);
+        }
+        return membership;
+    }
+
+    /**
+     * Returns whether {@param app}, whose key is {@param key}, matches {@param matcher}. All the
+     * apps match a null matcher.
+     */
+    public static boolean matches(ItemInfoMatcher matcher, AppInfo app, ComponentKey key) {
+        if (matcher == null) {
+            return true;
+        }
+        return matcher instanceof ComponentKeyMatcher
+                ? ((ComponentKeyMatcher) matcher).matchesKey(app, key)
+                : matcher.matches(app, null);
+    }
+
+    /**
+     * Adds the apps matching {@param matcher} to {@param out}, in order. All the apps are added
+     * if {@param matcher} is null.
+     */
+    public void getFilteredApps(ItemInfoMatcher matcher, List<AppInfo> out) {
+        if (matcher == null) {
+            out.addAll(mApps);
+            return;
+        }
+        BitSet membership = getMembership(matcher);
+        for (int i = membership.nextSetBit(0); i >= 0; i = membership.nextSetBit(i + 1)) {
+            out.add(mApps.get(i));
+        }
+    }
+
+    private void sortApps(int sortType) {
+        switch (sortType) {
+            //SORT BY NAME AZ
+            case SORT_AZ:
+                mApps.sort(mAppNameComparator);
+                break;
+
+            //SORT BY NAME ZA
+            case SORT_ZA:
+                mApps.sort((p2, p1) -> p1.getLabelKey().getCollationKey()
+                        .compareTo(p2.getLabelKey().getCollationKey()));
+                break;
+
+            //SORT BY LAST INSTALLED
+            case SORT_LAST_INSTALLED:
+                PackageManager pm = mContext.getApplicationContext().getPackageManager();
+                InstallTimeComparator installTimeComparator = new InstallTimeComparator(pm);
+                mApps.sort(installTimeComparator);
+                break;
+
+            //SORT BY MOST USED DESC
+            case SORT_MOST_USED:
+                DbHelper db = new DbHelper(mContext.getApplicationContext());
+                List<AppCountInfo> appsCounter = db.getAppsCount();
+                db.close();
+                MostUsedComparator mostUsedComparator = new MostUsedComparator(appsCounter);
+                mApps.sort(mostUsedComparator);
+                break;
+
+            case SORT_BY_COLOR:
+                mApps.sort(mAppColorComparator);
+                break;
+            default:
+                mApps.sort(mAppNameComparator);
+                break;
+
+        }
+    }
+}
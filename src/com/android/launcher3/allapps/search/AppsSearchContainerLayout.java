@@ -137,7 +137,7 @@ public class AppsSearchContainerLayout extends ExtendedEditText
         mApps = appsView.getApps();
         mAppsView = appsView;
         mSearchBarController.initialize(
-                new FuzzyAppSearchAlgorithm(getContext(), mApps.getApps()), this, mLauncher, this);
+                new FuzzyAppSearchAlgorithm(getContext(), mApps.getSearchableApps()), this, mLauncher, this);
     }
 
     @Override
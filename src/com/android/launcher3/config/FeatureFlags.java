@@ -159,6 +159,9 @@ public final class FeatureFlags {
             new BooleanFlag("USER_EVENT_DISPATCHER", true);
     public static final BooleanFlag ENABLE_MINIMAL_DEVICE =
             new BooleanFlag("ENABLE_MINIMAL_DEVICE", true);
+    public static final BooleanFlag ENABLE_FOLDER_PREVIEW_CACHE = getDebugFlag(
+            "ENABLE_FOLDER_PREVIEW_CACHE", true,
+            "Replay a recorded folder icon preview instead of redrawing each preview item.");
     private static final List<DebugFlag> sDebugFlags = new ArrayList<>();
 
     private FeatureFlags() {
@@ -83,6 +83,9 @@ import com.android.launcher3.util.Thunk;
 import com.android.launcher3.views.ClipPathView;
 import com.android.launcher3.widget.PendingAddShortcutInfo;
 import com.saggitt.omega.groups.DrawerFolderInfo;
+import com.saggitt.omega.theme.ThemeManager;
+import com.saggitt.omega.theme.ThemeManager.ThemeColors;
+import com.saggitt.omega.theme.ThemeManager.ThemeableView;
 import com.saggitt.omega.views.CustomBottomSheet;
 
 import java.util.ArrayList;
@@ -109,7 +112,8 @@ import static com.android.launcher3.logging.StatsLogManager.LauncherEvent.LAUNCH
  */
 public class Folder extends AbstractFloatingView implements ClipPathView, DragSource,
         View.OnLongClickListener, DropTarget, FolderListener, TextView.OnEditorActionListener,
-        View.OnFocusChangeListener, DragListener, ExtendedEditText.OnBackKeyListener {
+        View.OnFocusChangeListener, DragListener, ExtendedEditText.OnBackKeyListener,
+        ThemeableView {
     private static final String TAG = "Launcher.Folder";
     private static final boolean DEBUG = false;
 
@@ -420,6 +424,24 @@ public class Folder extends AbstractFloatingView implements ClipPathView, DragSo
         if (mFolderIcon != null && mFolderIcon.isCustomIcon && Utilities.getOmegaPrefs(getContext()).getFolderBgColored()) {
             setBackgroundTintList(ColorStateList.valueOf(mFolderIcon.getFolderName().getDotColor()));
         }
+        ThemeManager.Companion.getInstance(getContext()).addThemeableView(this);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        ThemeManager.Companion.getInstance(getContext()).removeThemeableView(this);
+    }
+
+    @Override
+    public int[] getThemeAttrs() {
+        return new int[0];
+    }
+
+    @Override
+    public void onThemeChanged(ThemeColors colors) {
+        ImageView settingsButton = findViewById(R.id.settings_button);
+        settingsButton.setColorFilter(colors.getAccentColor(), android.graphics.PorterDuff.Mode.SRC_IN);
     }
 
     @Override
@@ -46,6 +46,7 @@ import com.android.launcher3.LauncherSettings;
 import com.android.launcher3.OnAlarmListener;
 import com.android.launcher3.R;
 import com.android.launcher3.Reorderable;
+import com.android.launcher3.ShortcutAndWidgetContainer;
 import com.android.launcher3.Utilities;
 import com.android.launcher3.Workspace;
 import com.android.launcher3.allapps.AllAppsContainerView;
@@ -672,6 +673,7 @@ public class FolderIcon extends FrameLayout implements FolderListener, IconLabel
 
     public void setFolderBackground(PreviewBackground bg) {
         mBackground = bg;
+        mPreviewItemManager.invalidatePreviewCache();
         mBackground.setInvalidateDelegate(this);
     }
 
@@ -759,13 +761,29 @@ public class FolderIcon extends FrameLayout implements FolderListener, IconLabel
         return mPreviewItemManager.verifyDrawable(who) || super.verifyDrawable(who);
     }
 
+    @Override
+    public void invalidateDrawable(@NonNull Drawable drawable) {
+        if (mPreviewItemManager.verifyDrawable(drawable)) {
+            // A preview item changed (e.g. install progress), the recorded preview is stale.
+            mPreviewItemManager.invalidatePreviewCache();
+        }
+        super.invalidateDrawable(drawable);
+    }
+
     @Override
     public void onItemsChanged(boolean animate) {
         updatePreviewItems(animate);
+        notifyContentsChanged();
         invalidate();
         requestLayout();
     }
 
+    private void notifyContentsChanged() {
+        if (getParent() instanceof ShortcutAndWidgetContainer) {
+            ((ShortcutAndWidgetContainer) getParent()).onItemViewChanged(this);
+        }
+    }
+
     private void updatePreviewItems(boolean animate) {
         mPreviewItemManager.updatePreviewItems(animate);
         mCurrentPreviewItems.clear();
@@ -786,6 +804,7 @@ public class FolderIcon extends FrameLayout implements FolderListener, IconLabel
         boolean isDotted = mDotInfo.hasDot();
         updateDotScale(wasDotted, isDotted);
         setContentDescription(getAccessiblityTitle(mInfo.title));
+        notifyContentsChanged();
         invalidate();
         requestLayout();
     }
@@ -797,6 +816,7 @@ public class FolderIcon extends FrameLayout implements FolderListener, IconLabel
         boolean isDotted = mDotInfo.hasDot();
         updateDotScale(wasDotted, isDotted);
         setContentDescription(getAccessiblityTitle(mInfo.title));
+        notifyContentsChanged();
         invalidate();
         requestLayout();
     }
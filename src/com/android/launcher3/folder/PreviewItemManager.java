@@ -27,10 +27,13 @@ import android.animation.Animator;
 import android.animation.AnimatorListenerAdapter;
 import android.animation.ObjectAnimator;
 import android.animation.ValueAnimator;
+import android.annotation.TargetApi;
 import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Rect;
+import android.graphics.RenderNode;
 import android.graphics.drawable.Drawable;
+import android.os.Build;
 import android.util.FloatProperty;
 import android.view.View;
 import android.widget.TextView;
@@ -38,6 +41,7 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 
 import com.android.launcher3.Utilities;
+import com.android.launcher3.config.FeatureFlags;
 import com.android.launcher3.graphics.PreloadIconDrawable;
 import com.android.launcher3.model.data.WorkspaceItemInfo;
 import com.android.launcher3.views.ActivityContext;
@@ -84,6 +88,11 @@ public class PreviewItemManager {
     private float mCurrentPageItemsTransX = 0;
     private boolean mShouldSlideInFirstPage;
 
+    // Recording of the first page preview items, replayed until the preview changes. Animations
+    // and software rendering always draw the items directly.
+    private RenderNode mPreviewRenderNode;
+    private boolean mPreviewRenderNodeValid;
+
     static final int INITIAL_ITEM_ANIMATION_DURATION = 350;
     private static final int FINAL_ITEM_ANIMATION_DURATION = 200;
 
@@ -180,18 +189,66 @@ public class PreviewItemManager {
         PreviewBackground bg = mIcon.getFolderBackground();
         canvas.translate(bg.basePreviewOffsetX, bg.basePreviewOffsetY);
 
-        float firstPageItemsTransX = 0;
-        if (mShouldSlideInFirstPage) {
-            drawParams(canvas, mCurrentPageParams, mCurrentPageItemsTransX);
+        if (canDrawCachedPreview(canvas)) {
+            drawCachedPreview(canvas, bg.previewSize);
+        } else {
+            float firstPageItemsTransX = 0;
+            if (mShouldSlideInFirstPage) {
+                drawParams(canvas, mCurrentPageParams, mCurrentPageItemsTransX);
 
-            firstPageItemsTransX = -ITEM_SLIDE_IN_OUT_DISTANCE_PX + mCurrentPageItemsTransX;
-        }
+                firstPageItemsTransX = -ITEM_SLIDE_IN_OUT_DISTANCE_PX + mCurrentPageItemsTransX;
+            }
 
-        drawParams(canvas, mFirstPageParams, firstPageItemsTransX);
+            drawParams(canvas, mFirstPageParams, firstPageItemsTransX);
+        }
         canvas.translate(-bg.basePreviewOffsetX, -bg.basePreviewOffsetY);
     }
 
+    private boolean canDrawCachedPreview(Canvas canvas) {
+        if (!Utilities.ATLEAST_Q || !FeatureFlags.ENABLE_FOLDER_PREVIEW_CACHE.get()
+                || !canvas.isHardwareAccelerated() || mShouldSlideInFirstPage
+                || mIcon.mAnimating) {
+            return false;
+        }
+        for (int i = mFirstPageParams.size() - 1; i >= 0; i--) {
+            if (mFirstPageParams.get(i).anim != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @TargetApi(Build.VERSION_CODES.Q)
+    private void drawCachedPreview(Canvas canvas, int previewSize) {
+        if (mPreviewRenderNode == null) {
+            mPreviewRenderNode = new RenderNode("FolderIconPreview");
+            // Items being dropped can be drawn outside of the preview, the clip is applied by
+            // the FolderIcon.
+            mPreviewRenderNode.setClipToBounds(false);
+        }
+        if (!mPreviewRenderNodeValid || !mPreviewRenderNode.hasDisplayList()) {
+            int size = Math.max(previewSize, 1);
+            mPreviewRenderNode.setPosition(0, 0, size, size);
+            Canvas recordingCanvas = mPreviewRenderNode.beginRecording(size, size);
+            try {
+                drawParams(recordingCanvas, mFirstPageParams, 0);
+            } finally {
+                mPreviewRenderNode.endRecording();
+            }
+            mPreviewRenderNodeValid = true;
+        }
+        canvas.drawRenderNode(mPreviewRenderNode);
+    }
+
+    /**
+     * Marks the recorded preview as stale, so that it is recorded again on the next draw.
+     */
+    void invalidatePreviewCache() {
+        mPreviewRenderNodeValid = false;
+    }
+
     public void onParamsChanged() {
+        invalidatePreviewCache();
         mIcon.invalidate();
     }
 
@@ -222,10 +279,12 @@ public class PreviewItemManager {
                 mFirstPageParams.get(index) : null;
         if (params != null) {
             params.hidden = hidden;
+            invalidatePreviewCache();
         }
     }
 
     void buildParamsForPage(int page, ArrayList<PreviewItemDrawingParams> params, boolean animate) {
+        invalidatePreviewCache();
         List<WorkspaceItemInfo> items = mIcon.getPreviewItemsOnPage(page);
         int prevNumItems = params.size();
 
@@ -306,6 +365,7 @@ public class PreviewItemManager {
             }
         }
         if (modified) {
+            invalidatePreviewCache();
             mIcon.invalidate();
         }
     }
@@ -91,7 +91,8 @@ public class IconCache extends BaseIconCache {
 
     public IconCache(Context context, InvariantDeviceProfile idp, String dbFileName) {
         super(context, dbFileName, MODEL_EXECUTOR.getLooper(),
-                idp.fillResIconDpi, idp.iconBitmapSize, true /* inMemoryCache */);
+                idp.fillResIconDpi, idp.iconBitmapSize, idp.iconShapePath,
+                true /* inMemoryCache */);
         mComponentWithLabelCachingLogic = new ComponentCachingLogic(context, false);
         mLauncherActivityInfoCachingLogic = LauncherActivityCachingLogic.newInstance(context);
         mShortcutCachingLogic = new ShortcutCachingLogic();
@@ -100,6 +101,7 @@ public class IconCache extends BaseIconCache {
         mInstantAppResolver = InstantAppResolver.newInstance(mContext);
 
         mIconProvider = IconProvider.INSTANCE.get(context);
+        updateIconDrawSizes(idp.getIconDrawSizes());
     }
 
     @Override
@@ -324,6 +326,7 @@ public class IconCache extends BaseIconCache {
         info.title = Utilities.trim(entry.title);
         info.contentDescription = entry.contentDescription;
         info.bitmap = (entry.bitmap == null) ? getDefaultIcon(info.user) : entry.bitmap;
+        prepareSizeVariants(info.bitmap);
     }
 
     @RequiresApi(api = Build.VERSION_CODES.O)
@@ -33,6 +33,7 @@ import androidx.annotation.VisibleForTesting;
 import com.android.launcher3.LauncherSettings;
 import com.android.launcher3.Utilities;
 import com.android.launcher3.util.ComponentKey;
+import com.android.launcher3.util.LabelKey;
 import com.android.launcher3.util.PackageManagerHelper;
 
 import java.util.Comparator;
@@ -58,6 +59,9 @@ public class AppInfo extends ItemInfoWithIcon {
     // Section name used for indexing.
     public String sectionName = "";
 
+    // Collation key of the title, see getLabelKey()
+    private LabelKey mLabelKey;
+
     public AppInfo() {
         itemType = LauncherSettings.Favorites.ITEM_TYPE_APPLICATION;
     }
@@ -88,6 +92,7 @@ public class AppInfo extends ItemInfoWithIcon {
         intent = new Intent(info.intent);
         user = info.user;
         runtimeStatusFlags = info.runtimeStatusFlags;
+        mLabelKey = info.mLabelKey;
     }
 
     @VisibleForTesting
@@ -142,6 +147,19 @@ public class AppInfo extends ItemInfoWithIcon {
         return new WorkspaceItemInfo(this);
     }
 
+    /**
+     * Returns the collation key of the title in the current locale. It is only computed again
+     * once the title or the locale changed.
+     */
+    public LabelKey getLabelKey() {
+        LabelKey key = mLabelKey;
+        if (key == null || !key.isValidFor(title)) {
+            key = LabelKey.create(title);
+            mLabelKey = key;
+        }
+        return key;
+    }
+
     public ComponentKey toComponentKey() {
         return new ComponentKey(componentName, user);
     }
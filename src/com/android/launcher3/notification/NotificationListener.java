@@ -44,6 +44,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -80,6 +81,12 @@ public class NotificationListener extends NotificationListenerService {
     /** Maps keys to their corresponding current group key */
     private final Map<String, String> mNotificationGroupKeyMap = new HashMap<>();
 
+    /** All the active notifications by key, maintained on the worker thread */
+    private final Map<String, StatusBarNotification> mActiveNotifications = new LinkedHashMap<>();
+    /** Copy of {@link #mActiveNotifications} which can be read from any thread */
+    private volatile List<StatusBarNotification> mActiveNotificationsSnapshot =
+            Collections.emptyList();
+
     /** The last notification key that was dismissed from launcher UI */
     private String mLastKeyDismissedByLauncher;
 
@@ -122,6 +129,8 @@ public class NotificationListener extends NotificationListenerService {
         switch (message.what) {
             case MSG_NOTIFICATION_POSTED: {
                 StatusBarNotification sbn = (StatusBarNotification) message.obj;
+                mActiveNotifications.put(sbn.getKey(), sbn);
+                updateActiveNotificationsSnapshot();
                 mUiHandler.obtainMessage(notificationIsValidForUI(sbn)
                                 ? MSG_NOTIFICATION_POSTED : MSG_NOTIFICATION_REMOVED,
                         toKeyPair(sbn)).sendToTarget();
@@ -129,6 +138,9 @@ public class NotificationListener extends NotificationListenerService {
             }
             case MSG_NOTIFICATION_REMOVED: {
                 StatusBarNotification sbn = (StatusBarNotification) message.obj;
+                if (mActiveNotifications.remove(sbn.getKey()) != null) {
+                    updateActiveNotificationsSnapshot();
+                }
                 mUiHandler.obtainMessage(MSG_NOTIFICATION_REMOVED,
                         toKeyPair(sbn)).sendToTarget();
 
@@ -152,9 +164,14 @@ public class NotificationListener extends NotificationListenerService {
             }
             case MSG_NOTIFICATION_FULL_REFRESH:
                 List<StatusBarNotification> activeNotifications = null;
+                mActiveNotifications.clear();
                 if (sIsConnected) {
                     try {
-                        activeNotifications = Arrays.stream(getActiveNotifications())
+                        StatusBarNotification[] allNotifications = getActiveNotifications();
+                        for (StatusBarNotification sbn : allNotifications) {
+                            mActiveNotifications.put(sbn.getKey(), sbn);
+                        }
+                        activeNotifications = Arrays.stream(allNotifications)
                                 .filter(this::notificationIsValidForUI)
                                 .collect(Collectors.toList());
                     } catch (SecurityException ex) {
@@ -164,6 +181,7 @@ public class NotificationListener extends NotificationListenerService {
                 } else {
                     activeNotifications = new ArrayList<>();
                 }
+                updateActiveNotificationsSnapshot();
 
                 mUiHandler.obtainMessage(message.what, activeNotifications).sendToTarget();
                 return true;
@@ -301,6 +319,22 @@ public class NotificationListener extends NotificationListenerService {
         }
     }
 
+    @WorkerThread
+    private void updateActiveNotificationsSnapshot() {
+        mActiveNotificationsSnapshot = Collections.unmodifiableList(
+                new ArrayList<>(mActiveNotifications.values()));
+    }
+
+    /**
+     * Returns the active notifications as last seen by this listener, including the ones which
+     * are not shown in the UI. Unlike {@link #getActiveNotifications()}, this does not make a
+     * binder call and can be used on the main thread.
+     */
+    @AnyThread
+    public List<StatusBarNotification> getActiveNotificationsSnapshot() {
+        return mActiveNotificationsSnapshot;
+    }
+
     /**
      * This makes a potentially expensive binder call and should be run on a background thread.
      */
@@ -38,12 +38,15 @@ import android.view.animation.OvershootInterpolator;
 import com.android.launcher3.R;
 import com.android.launcher3.Utilities;
 import com.android.launcher3.util.Themes;
+import com.saggitt.omega.theme.ThemeManager;
+import com.saggitt.omega.theme.ThemeManager.ThemeColors;
+import com.saggitt.omega.theme.ThemeManager.ThemeableView;
 
 /**
  * {@link PageIndicator} which shows dots per page. The active page is shown with the current
  * accent color.
  */
-public class PageIndicatorDots extends View implements PageIndicator {
+public class PageIndicatorDots extends View implements PageIndicator, ThemeableView {
 
     private static final float SHIFT_PER_ANIMATION = 0.5f;
     private static final float SHIFT_THRESHOLD = 0.1f;
@@ -73,10 +76,12 @@ public class PageIndicatorDots extends View implements PageIndicator {
         }
     };
 
+    private static final int[] THEME_ATTRS = {android.R.attr.colorControlHighlight};
+
     private final Paint mCirclePaint;
     private final float mDotRadius;
-    private final int mActiveColor;
-    private final int mInActiveColor;
+    private int mActiveColor;
+    private int mInActiveColor;
     private final boolean mIsRtl;
 
     private int mNumPages;
@@ -119,6 +124,30 @@ public class PageIndicatorDots extends View implements PageIndicator {
         mIsRtl = Utilities.isRtl(getResources());
     }
 
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        ThemeManager.Companion.getInstance(getContext()).addThemeableView(this);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        ThemeManager.Companion.getInstance(getContext()).removeThemeableView(this);
+    }
+
+    @Override
+    public int[] getThemeAttrs() {
+        return THEME_ATTRS;
+    }
+
+    @Override
+    public void onThemeChanged(ThemeColors colors) {
+        mActiveColor = colors.getAccentColor();
+        mInActiveColor = colors.getAttrColor(android.R.attr.colorControlHighlight);
+        invalidate();
+    }
+
     @Override
     public void setScroll(int currentScroll, int totalScroll) {
         if (mNumPages > 1) {
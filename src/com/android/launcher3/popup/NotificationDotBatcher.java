@@ -0,0 +1,89 @@
+package com.android.launcher3.popup;
+
+import android.util.ArraySet;
+import android.view.Choreographer;
+
+import androidx.annotation.UiThread;
+
+import com.android.launcher3.util.PackageUserKey;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Merges the notification dot changes received within a frame, so that a burst of posted or
+ * removed notifications refreshes the dots once per frame instead of once per notification.
+ */
+@UiThread
+public class NotificationDotBatcher implements Choreographer.FrameCallback {
+
+    private final Consumer<Predicate<PackageUserKey>> mApplyCallback;
+
+    private ArraySet<PackageUserKey> mPendingKeys = new ArraySet<>();
+    // Set swapped with mPendingKeys while applying, so that keys added during the callback are
+    // kept for the next frame.
+    private ArraySet<PackageUserKey> mApplyingKeys = new ArraySet<>();
+    private boolean mFrameScheduled;
+
+    public NotificationDotBatcher(Consumer<Predicate<PackageUserKey>> applyCallback) {
+        mApplyCallback = applyCallback;
+    }
+
+    /**
+     * Marks the dot for {@param key} as changed, to be applied on the next frame.
+     */
+    public void add(PackageUserKey key) {
+        mPendingKeys.add(key);
+        scheduleFrame();
+    }
+
+    /**
+     * Marks the dots for all the {@param keys} as changed, to be applied on the next frame.
+     */
+    public void addAll(Collection<PackageUserKey> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        mPendingKeys.addAll(keys);
+        scheduleFrame();
+    }
+
+    /**
+     * Applies the pending changes immediately instead of waiting for the next frame.
+     */
+    public void flush() {
+        if (mFrameScheduled) {
+            Choreographer.getInstance().removeFrameCallback(this);
+            mFrameScheduled = false;
+        }
+        applyPendingKeys();
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        mFrameScheduled = false;
+        applyPendingKeys();
+    }
+
+    private void scheduleFrame() {
+        if (!mFrameScheduled) {
+            mFrameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    private void applyPendingKeys() {
+        if (mPendingKeys.isEmpty()) {
+            return;
+        }
+        ArraySet<PackageUserKey> keys = mPendingKeys;
+        mPendingKeys = mApplyingKeys;
+        mApplyingKeys = keys;
+        try {
+            mApplyCallback.accept(keys::contains);
+        } finally {
+            keys.clear();
+        }
+    }
+}
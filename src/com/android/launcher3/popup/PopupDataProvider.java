@@ -54,6 +54,9 @@ public class PopupDataProvider implements NotificationListener.NotificationsChan
     private static final String TAG = "PopupDataProvider";
 
     private final Consumer<Predicate<PackageUserKey>> mNotificationDotsChangeListener;
+    // Dot changes are applied once per frame, as notifications are often posted in bursts
+    private final NotificationDotBatcher mDotBatcher =
+            new NotificationDotBatcher(this::applyNotificationDots);
 
     /**
      * Maps launcher activity components to a count of how many shortcuts they have.
@@ -96,7 +99,7 @@ public class PopupDataProvider implements NotificationListener.NotificationsChan
         }).collect(Collectors.toList());
     }
 
-    private void updateNotificationDots(Predicate<PackageUserKey> updatedDots) {
+    private void applyNotificationDots(Predicate<PackageUserKey> updatedDots) {
         mNotificationDotsChangeListener.accept(updatedDots);
         mChangeListener.onNotificationDotsUpdated(updatedDots);
     }
@@ -110,7 +113,7 @@ public class PopupDataProvider implements NotificationListener.NotificationsChan
             mPackageUserToDotInfos.put(postedPackageUserKey, dotInfo);
         }
         if (dotInfo.addOrUpdateNotificationKey(notificationKey)) {
-            updateNotificationDots(postedPackageUserKey::equals);
+            mDotBatcher.add(postedPackageUserKey);
         }
     }
 
@@ -145,9 +148,7 @@ public class PopupDataProvider implements NotificationListener.NotificationsChan
             }
         }
 
-        if (!updatedDots.isEmpty()) {
-            updateNotificationDots(updatedDots::containsKey);
-        }
+        mDotBatcher.addAll(updatedDots.keySet());
         trimNotifications(updatedDots);
     }
 
@@ -197,7 +198,7 @@ public class PopupDataProvider implements NotificationListener.NotificationsChan
             if (oldDotInfo.getNotificationKeys().size() == 0) {
                 mPackageUserToDotInfos.remove(removedPackageUserKey);
             }
-            updateNotificationDots(removedPackageUserKey::equals);
+            mDotBatcher.add(removedPackageUserKey);
             trimNotifications(mPackageUserToDotInfos);
         }
     }
@@ -215,7 +216,17 @@ public class PopupDataProvider implements NotificationListener.NotificationsChan
         mChangeListener.onWidgetsBound();
     }
 
+    /**
+     * Applies the pending notification dot changes right away, rather than on the next frame.
+     */
+    public void flushNotificationDots() {
+        mDotBatcher.flush();
+    }
+
     public void setChangeListener(PopupDataChangeListener listener) {
+        // The pending changes belong to the current listener, and a new popup reads the dots
+        // as they are when it opens
+        mDotBatcher.flush();
         mChangeListener = listener == null ? PopupDataChangeListener.INSTANCE : listener;
     }
 
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.util;
+
+import android.content.ComponentName;
+
+import androidx.annotation.Nullable;
+
+import com.android.launcher3.model.data.ItemInfo;
+
+import java.util.Set;
+
+/**
+ * An {@link ItemInfoMatcher} checking the {@link ComponentKey} of the items against a set of keys,
+ * on top of an optional base matcher.
+ *
+ * Lists which already have the keys of their items can use
+ * {@link #matchesKey(ItemInfo, ComponentKey)} to avoid creating a key for every check.
+ */
+public class ComponentKeyMatcher implements ItemInfoMatcher {
+
+    private final Set<ComponentKey> mKeys;
+    private final boolean mExclude;
+    @Nullable
+    private final ItemInfoMatcher mBase;
+
+    /**
+     * @param keys    the keys to look up, expected to have a fast {@link Set#contains}
+     * @param exclude whether to match the items which are not in {@param keys} instead
+     * @param base    matcher the items also have to match, if any
+     */
+    public ComponentKeyMatcher(Set<ComponentKey> keys, boolean exclude,
+            @Nullable ItemInfoMatcher base) {
+        mKeys = keys;
+        mExclude = exclude;
+        mBase = base;
+    }
+
+    @Override
+    public boolean matches(ItemInfo info, ComponentName cn) {
+        if (mBase != null && !mBase.matches(info, cn)) {
+            return false;
+        }
+        return mKeys.contains(new ComponentKey(info.getTargetComponent(), info.user)) != mExclude;
+    }
+
+    /**
+     * Same as {@link #matches(ItemInfo, ComponentName)}, with the key of {@param info} already
+     * known.
+     */
+    public boolean matchesKey(ItemInfo info, ComponentKey key) {
+        if (mBase != null && !mBase.matches(info, key.componentName)) {
+            return false;
+        }
+        return mKeys.contains(key) != mExclude;
+    }
+}
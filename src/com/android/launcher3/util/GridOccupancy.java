@@ -2,6 +2,8 @@ package com.android.launcher3.util;
 
 import android.graphics.Rect;
 
+import androidx.annotation.Nullable;
+
 import com.android.launcher3.model.data.ItemInfo;
 
 /**
@@ -9,17 +11,33 @@ import com.android.launcher3.model.data.ItemInfo;
  */
 public class GridOccupancy {
 
-    private final int mCountX;
-    private final int mCountY;
+    protected final int mCountX;
+    protected final int mCountY;
 
+    /**
+     * Occupancy of each cell, indexed by [x][y]. When modified directly instead of through
+     * {@link #markCells}, {@link #onCellsChanged()} should be called afterwards.
+     */
     public final boolean[][] cells;
 
+    // Incremented whenever the occupancy changes
+    int mVersion;
+
     public GridOccupancy(int countX, int countY) {
         mCountX = countX;
         mCountY = countY;
         cells = new boolean[countX][countY];
     }
 
+    /**
+     * Returns the fastest occupancy implementation supporting the given grid size.
+     */
+    public static GridOccupancy newInstance(int countX, int countY) {
+        return countX <= RowMaskGridOccupancy.MAX_COLUMNS
+                ? new RowMaskGridOccupancy(countX, countY)
+                : new GridOccupancy(countX, countY);
+    }
+
     /**
      * Find the first vacant cell, if there is one.
      *
@@ -56,6 +74,22 @@ public class GridOccupancy {
                 dest.cells[i][j] = cells[i][j];
             }
         }
+        dest.onCellsChanged();
+    }
+
+    /**
+     * Notifies that {@link #cells} was modified directly.
+     */
+    public void onCellsChanged() {
+        mVersion++;
+    }
+
+    /**
+     * Returns a value which changes whenever the occupancy is modified, so that results computed
+     * against this occupancy can be cached.
+     */
+    public int getVersion() {
+        return mVersion;
     }
 
     public boolean isRegionVacant(int x, int y, int spanX, int spanY) {
@@ -74,8 +108,56 @@ public class GridOccupancy {
         return true;
     }
 
+    /**
+     * Returns whether the region can be placed at x, y, only considering the cells which are
+     * occupied in {@param regionMask}, in region coordinates. A null mask covers the full region.
+     */
+    public boolean isRegionVacant(int x, int y, int spanX, int spanY,
+            @Nullable GridOccupancy regionMask) {
+        if (regionMask == null) {
+            return isRegionVacant(x, y, spanX, spanY);
+        }
+        int x2 = x + spanX - 1;
+        int y2 = y + spanY - 1;
+        if (x < 0 || y < 0 || x2 >= mCountX || y2 >= mCountY) {
+            return false;
+        }
+        for (int i = 0; i < spanX; i++) {
+            for (int j = 0; j < spanY; j++) {
+                if (cells[x + i][y + j] && regionMask.cells[i][j]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the vacant region whose top-left cell is nearest (by euclidean distance) to
+     * cellX, cellY.
+     *
+     * @param result Holds the x and y coordinate of the vacant region
+     * @return true if a vacant region was found
+     */
+    public boolean findNearestVacantArea(int cellX, int cellY, int spanX, int spanY,
+            int[] result) {
+        int bestDistance = Integer.MAX_VALUE;
+        for (int y = 0; (y + spanY) <= mCountY; y++) {
+            for (int x = 0; (x + spanX) <= mCountX; x++) {
+                int distance = (x - cellX) * (x - cellX) + (y - cellY) * (y - cellY);
+                if (distance < bestDistance && isRegionVacant(x, y, spanX, spanY)) {
+                    bestDistance = distance;
+                    result[0] = x;
+                    result[1] = y;
+                }
+            }
+        }
+        return bestDistance != Integer.MAX_VALUE;
+    }
+
     public void markCells(int cellX, int cellY, int spanX, int spanY, boolean value) {
         if (cellX < 0 || cellY < 0) return;
+        mVersion++;
         for (int x = cellX; x < cellX + spanX && x < mCountX; x++) {
             for (int y = cellY; y < cellY + spanY && y < mCountY; y++) {
                 cells[x][y] = value;
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.util;
+
+import android.text.TextUtils;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.Locale;
+
+/**
+ * A label along with its {@link CollationKey} in the locale it was created in, so that labels
+ * can be sorted any number of times while being collated only once.
+ *
+ * Keys are ordered like {@link LabelComparator}: labels which don't start with a letter or digit
+ * come last.
+ */
+public class LabelKey implements Comparable<LabelKey> {
+
+    // Collator for the locale of the last key, only accessed while holding the class lock
+    private static Collator sCollator;
+    private static Locale sCollatorLocale;
+
+    private final String mLabel;
+    private final Locale mLocale;
+    private final CollationKey mCollationKey;
+    private final boolean mStartsWithLetterOrDigit;
+
+    private LabelKey(String label, Locale locale) {
+        mLabel = label;
+        mLocale = locale;
+        mCollationKey = getCollationKey(label, locale);
+        mStartsWithLetterOrDigit = label.length() > 0
+                && Character.isLetterOrDigit(label.codePointAt(0));
+    }
+
+    /**
+     * Creates the key of {@param label} in the current locale.
+     */
+    public static LabelKey create(CharSequence label) {
+        return new LabelKey(label == null ? "" : label.toString(), Locale.getDefault());
+    }
+
+    private static synchronized CollationKey getCollationKey(String label, Locale locale) {
+        if (sCollator == null || !locale.equals(sCollatorLocale)) {
+            sCollator = Collator.getInstance(locale);
+            sCollatorLocale = locale;
+        }
+        return sCollator.getCollationKey(label);
+    }
+
+    /**
+     * Returns whether this key can still be used for {@param label}, that is if the label and
+     * the locale didn't change since it was created.
+     */
+    public boolean isValidFor(CharSequence label) {
+        return TextUtils.equals(mLabel, label == null ? "" : label)
+                && mLocale.equals(Locale.getDefault());
+    }
+
+    public String getLabel() {
+        return mLabel;
+    }
+
+    /**
+     * Returns the collation key alone, without the special ordering of labels which don't start
+     * with a letter or digit.
+     */
+    public CollationKey getCollationKey() {
+        return mCollationKey;
+    }
+
+    @Override
+    public int compareTo(LabelKey other) {
+        if (mStartsWithLetterOrDigit != other.mStartsWithLetterOrDigit) {
+            return mStartsWithLetterOrDigit ? -1 : 1;
+        }
+        return mCollationKey.compareTo(other.mCollationKey);
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.util;
+
+import androidx.annotation.Nullable;
+
+/**
+ * {@link GridOccupancy} which keeps the occupancy of each row as a bit mask, so that span checks
+ * are done with a few mask operations instead of scanning every cell. {@link #cells} is kept in
+ * sync for callers reading it directly.
+ */
+public class RowMaskGridOccupancy extends GridOccupancy {
+
+    public static final int MAX_COLUMNS = Long.SIZE;
+
+    // Bit x of mRows[y] is set if the cell x, y is occupied
+    private final long[] mRows;
+
+    // Summed-area table of the occupied cells, with a stride of mCountX + 1. Built lazily, as it
+    // only pays off when queried many times without the occupancy changing.
+    private int[] mAreaTable;
+    private boolean mAreaTableValid;
+
+    public RowMaskGridOccupancy(int countX, int countY) {
+        super(countX, countY);
+        if (countX > MAX_COLUMNS) {
+            throw new IllegalArgumentException("Grid is too wide: " + countX);
+        }
+        mRows = new long[countY];
+    }
+
+    @Override
+    public boolean findVacantCell(int[] vacantOut, int spanX, int spanY) {
+        if (spanX <= 0 || spanY <= 0 || spanX > mCountX || spanY > mCountY) {
+            return false;
+        }
+        // Bit x is set if the span can start at column x
+        long validStarts = spanMask(0, mCountX - spanX + 1);
+        for (int y = 0; (y + spanY) <= mCountY; y++) {
+            long occupied = 0;
+            for (int j = y; j < y + spanY; j++) {
+                occupied |= mRows[j];
+            }
+            long starts = ~occupied;
+            for (int i = 1; i < spanX; i++) {
+                starts &= ~occupied >>> i;
+            }
+            starts &= validStarts;
+            if (starts != 0) {
+                vacantOut[0] = Long.numberOfTrailingZeros(starts);
+                vacantOut[1] = y;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void copyTo(GridOccupancy dest) {
+        if (dest instanceof RowMaskGridOccupancy && dest.mCountX == mCountX
+                && dest.mCountY == mCountY) {
+            for (int i = 0; i < mCountX; i++) {
+                System.arraycopy(cells[i], 0, dest.cells[i], 0, mCountY);
+            }
+            RowMaskGridOccupancy maskDest = (RowMaskGridOccupancy) dest;
+            System.arraycopy(mRows, 0, maskDest.mRows, 0, mCountY);
+            maskDest.mAreaTableValid = false;
+            maskDest.mVersion++;
+        } else {
+            super.copyTo(dest);
+        }
+    }
+
+    @Override
+    public void onCellsChanged() {
+        for (int y = 0; y < mCountY; y++) {
+            long row = 0;
+            for (int x = 0; x < mCountX; x++) {
+                if (cells[x][y]) {
+                    row |= 1L << x;
+                }
+            }
+            mRows[y] = row;
+        }
+        mAreaTableValid = false;
+        super.onCellsChanged();
+    }
+
+    @Override
+    public boolean isRegionVacant(int x, int y, int spanX, int spanY) {
+        int x2 = x + spanX - 1;
+        int y2 = y + spanY - 1;
+        if (x < 0 || y < 0 || x2 >= mCountX || y2 >= mCountY) {
+            return false;
+        }
+        if (mAreaTableValid) {
+            return getOccupiedCountUnchecked(x, y, spanX, spanY) == 0;
+        }
+        long mask = spanMask(x, spanX);
+        for (int j = y; j <= y2; j++) {
+            if ((mRows[j] & mask) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isRegionVacant(int x, int y, int spanX, int spanY,
+            @Nullable GridOccupancy regionMask) {
+        if (regionMask == null) {
+            return isRegionVacant(x, y, spanX, spanY);
+        }
+        if (!(regionMask instanceof RowMaskGridOccupancy)) {
+            return super.isRegionVacant(x, y, spanX, spanY, regionMask);
+        }
+        int x2 = x + spanX - 1;
+        int y2 = y + spanY - 1;
+        if (x < 0 || y < 0 || x2 >= mCountX || y2 >= mCountY) {
+            return false;
+        }
+        long[] regionRows = ((RowMaskGridOccupancy) regionMask).mRows;
+        long spanMask = spanMask(0, spanX);
+        for (int j = 0; j < spanY; j++) {
+            if (((mRows[y + j] >>> x) & regionRows[j] & spanMask) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean findNearestVacantArea(int cellX, int cellY, int spanX, int spanY,
+            int[] result) {
+        if (spanX <= 0 || spanY <= 0) {
+            return false;
+        }
+        ensureAreaTable();
+        int bestDistance = Integer.MAX_VALUE;
+        for (int y = 0; (y + spanY) <= mCountY; y++) {
+            int dy = (y - cellY) * (y - cellY);
+            for (int x = 0; (x + spanX) <= mCountX; x++) {
+                int distance = (x - cellX) * (x - cellX) + dy;
+                if (distance < bestDistance
+                        && getOccupiedCountUnchecked(x, y, spanX, spanY) == 0) {
+                    bestDistance = distance;
+                    result[0] = x;
+                    result[1] = y;
+                }
+            }
+        }
+        return bestDistance != Integer.MAX_VALUE;
+    }
+
+    /**
+     * Returns the number of occupied cells in the region.
+     */
+    public int getOccupiedCount(int x, int y, int spanX, int spanY) {
+        int x2 = Math.min(x + spanX, mCountX);
+        int y2 = Math.min(y + spanY, mCountY);
+        x = Math.max(x, 0);
+        y = Math.max(y, 0);
+        if (x >= x2 || y >= y2) {
+            return 0;
+        }
+        ensureAreaTable();
+        return getOccupiedCountUnchecked(x, y, x2 - x, y2 - y);
+    }
+
+    @Override
+    public void markCells(int cellX, int cellY, int spanX, int spanY, boolean value) {
+        super.markCells(cellX, cellY, spanX, spanY, value);
+        if (cellX < 0 || cellY < 0 || cellX >= mCountX) return;
+        long mask = spanMask(cellX, Math.min(spanX, mCountX - cellX));
+        for (int y = cellY; y < cellY + spanY && y < mCountY; y++) {
+            mRows[y] = value ? (mRows[y] | mask) : (mRows[y] & ~mask);
+        }
+        mAreaTableValid = false;
+    }
+
+    private int getOccupiedCountUnchecked(int x, int y, int spanX, int spanY) {
+        int stride = mCountX + 1;
+        int x2 = x + spanX;
+        int y2 = y + spanY;
+        return mAreaTable[y2 * stride + x2] - mAreaTable[y * stride + x2]
+                - mAreaTable[y2 * stride + x] + mAreaTable[y * stride + x];
+    }
+
+    private void ensureAreaTable() {
+        if (mAreaTableValid) {
+            return;
+        }
+        int stride = mCountX + 1;
+        if (mAreaTable == null) {
+            // The first row and column are always 0
+            mAreaTable = new int[stride * (mCountY + 1)];
+        }
+        for (int y = 0; y < mCountY; y++) {
+            long row = mRows[y];
+            int rowCount = 0;
+            for (int x = 0; x < mCountX; x++) {
+                rowCount += (int) ((row >>> x) & 1);
+                mAreaTable[(y + 1) * stride + x + 1] = mAreaTable[y * stride + x + 1] + rowCount;
+            }
+        }
+        mAreaTableValid = true;
+    }
+
+    /**
+     * Returns a mask with the bits [x, x + span) set.
+     */
+    private static long spanMask(int x, int span) {
+        if (span <= 0) {
+            return 0;
+        }
+        return (span >= Long.SIZE ? -1L : (1L << span) - 1) << x;
+    }
+}
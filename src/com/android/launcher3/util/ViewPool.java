@@ -15,8 +15,11 @@
  */
 package com.android.launcher3.util;
 
+import static com.android.launcher3.util.Executors.THREAD_POOL_EXECUTOR;
+
 import android.content.Context;
 import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -40,6 +43,12 @@ public class ViewPool<T extends View & Reusable> {
     private final int mLayoutId;
 
     private int mCurrentSize = 0;
+    // Number of views being inflated in the background to be added to the pool
+    private int mPendingSize = 0;
+    // Whether a warm up refill is queued or inflating. Only one runs at a time, and the size
+    // requested in the meantime is refilled once it is done.
+    private boolean mRefilling;
+    private int mRefillTarget;
 
     public ViewPool(Context context, @Nullable ViewGroup parent,
             int layoutId, int maxSize, int initialSize) {
@@ -56,6 +65,47 @@ public class ViewPool<T extends View & Reusable> {
     @UiThread
     private void initPool(int initialSize) {
         Preconditions.assertUIThread();
+        mPendingSize += initialSize;
+        inflateInBackground(initialSize, null);
+    }
+
+    /**
+     * Refills the pool up to {@param targetSize} views, once the main thread is idle, so that
+     * views taken from the pool do not need to be inflated when they are needed.
+     */
+    @UiThread
+    public void warmUp(int targetSize) {
+        Preconditions.assertUIThread();
+        mRefillTarget = Math.max(mRefillTarget, Math.min(targetSize, mPool.length));
+        if (!mRefilling) {
+            refill();
+        }
+    }
+
+    @UiThread
+    private void refill() {
+        int count = mRefillTarget - mCurrentSize - mPendingSize;
+        mRefillTarget = 0;
+        if (count <= 0) {
+            return;
+        }
+        mRefilling = true;
+        mPendingSize += count;
+        Looper.myQueue().addIdleHandler(() -> {
+            inflateInBackground(count, () -> {
+                mRefilling = false;
+                refill();
+            });
+            return false;
+        });
+    }
+
+    /**
+     * Inflates {@param count} views in the background and adds them to the pool, then runs
+     * {@param onDone} on the calling thread.
+     */
+    @UiThread
+    private void inflateInBackground(int count, @Nullable Runnable onDone) {
         Handler handler = new Handler();
 
         // LayoutInflater is not thread save as it maintains a global variable 'mConstructorArgs'.
@@ -64,12 +114,18 @@ public class ViewPool<T extends View & Reusable> {
 
         // Inflate views on a non looper thread. This allows us to catch errors like calling
         // "new Handler()" in constructor easily.
-        new Thread(() -> {
-            for (int i = 0; i < initialSize; i++) {
+        THREAD_POOL_EXECUTOR.execute(() -> {
+            for (int i = 0; i < count; i++) {
                 T view = inflateNewView(inflater);
-                handler.post(() -> addToPool(view));
+                handler.post(() -> {
+                    mPendingSize--;
+                    addToPool(view);
+                });
+            }
+            if (onDone != null) {
+                handler.post(onDone);
             }
-        }, "ViewPool-init").start();
+        });
     }
 
     @UiThread
@@ -39,6 +39,9 @@ import com.android.launcher3.R;
 import com.android.launcher3.Utilities;
 import com.android.launcher3.graphics.FastScrollThumbDrawable;
 import com.android.launcher3.util.Themes;
+import com.saggitt.omega.theme.ThemeManager;
+import com.saggitt.omega.theme.ThemeManager.ThemeColors;
+import com.saggitt.omega.theme.ThemeManager.ThemeableView;
 
 import java.util.Collections;
 import java.util.List;
@@ -46,7 +49,7 @@ import java.util.List;
 /**
  * The track and scrollbar that shows when you scroll the list.
  */
-public class RecyclerViewFastScroller extends View {
+public class RecyclerViewFastScroller extends View implements ThemeableView {
 
     private static final int SCROLL_DELTA_THRESHOLD_DP = 4;
     private static final Rect sTempRect = new Rect();
@@ -66,6 +69,7 @@ public class RecyclerViewFastScroller extends View {
             };
 
     private final static int MAX_TRACK_ALPHA = 30;
+    private static final int[] THEME_ATTRS = {android.R.attr.textColorPrimary};
     private final static int SCROLL_BAR_VIS_DURATION = 150;
 
     private static final List<Rect> SYSTEM_GESTURE_EXCLUSION_RECT =
@@ -151,6 +155,34 @@ public class RecyclerViewFastScroller extends View {
         ta.recycle();
     }
 
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        ThemeManager.Companion.getInstance(getContext()).addThemeableView(this);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        ThemeManager.Companion.getInstance(getContext()).removeThemeableView(this);
+    }
+
+    @Override
+    public int[] getThemeAttrs() {
+        return THEME_ATTRS;
+    }
+
+    @Override
+    public void onThemeChanged(ThemeColors colors) {
+        mTrackPaint.setColor(colors.getAttrColor(android.R.attr.textColorPrimary));
+        mTrackPaint.setAlpha(MAX_TRACK_ALPHA);
+        mThumbPaint.setColor(colors.getAccentColor());
+        if (mPopupView != null) {
+            mPopupView.invalidate();
+        }
+        invalidate();
+    }
+
     public void setRecyclerView(BaseRecyclerView rv, TextView popupView) {
         if (mRv != null && mOnScrollListener != null) {
             mRv.removeOnScrollListener(mOnScrollListener);
@@ -70,16 +70,24 @@ public class WidgetsDiffReporter {
         WidgetListRowEntry orgRowEntry = orgIter.next();
         WidgetListRowEntry newRowEntry = newIter.next();
 
+        // Position of orgRowEntry in currentEntries. Both lists are sorted, so it only moves
+        // forward and doesn't need to be looked up for every change.
+        int index = 0;
         do {
+            if (orgRowEntry == newRowEntry) {
+                // The model reuses the row for unchanged packages, skip the comparisons.
+                index++;
+                orgRowEntry = orgIter.hasNext() ? orgIter.next() : null;
+                newRowEntry = newIter.hasNext() ? newIter.next() : null;
+                continue;
+            }
             int diff = comparePackageName(orgRowEntry, newRowEntry, comparator);
             if (DEBUG) {
                 Log.d(TAG, String.format("diff=%d orgRowEntry (%s) newRowEntry (%s)",
                         diff, orgRowEntry != null? orgRowEntry.toString() : null,
                         newRowEntry != null? newRowEntry.toString() : null));
             }
-            int index = -1;
             if (diff < 0) {
-                index = currentEntries.indexOf(orgRowEntry);
                 mListener.notifyItemRemoved(index);
                 if (DEBUG) {
                     Log.d(TAG, String.format("notifyItemRemoved called (%d)%s", index,
@@ -88,8 +96,6 @@ public class WidgetsDiffReporter {
                 currentEntries.remove(index);
                 orgRowEntry = orgIter.hasNext() ? orgIter.next() : null;
             } else if (diff > 0) {
-                index = orgRowEntry != null? currentEntries.indexOf(orgRowEntry):
-                        currentEntries.size();
                 currentEntries.add(index, newRowEntry);
                 if (DEBUG) {
                     Log.d(TAG, String.format("notifyItemInserted called (%d)%s", index,
@@ -97,14 +103,13 @@ public class WidgetsDiffReporter {
                 }
                 newRowEntry = newIter.hasNext() ? newIter.next() : null;
                 mListener.notifyItemInserted(index);
-
+                index++;
             } else {
                 // same package name but,
                 // did the icon, title, etc, change?
                 // or did the widget size and desc, span, etc change?
                 if (!isSamePackageItemInfo(orgRowEntry.pkgItem, newRowEntry.pkgItem) ||
                         !orgRowEntry.widgets.equals(newRowEntry.widgets)) {
-                    index = currentEntries.indexOf(orgRowEntry);
                     currentEntries.set(index, newRowEntry);
                     mListener.notifyItemChanged(index);
                     if (DEBUG) {
@@ -112,6 +117,7 @@ public class WidgetsDiffReporter {
                                 newRowEntry.titleSectionName));
                     }
                 }
+                index++;
                 orgRowEntry = orgIter.hasNext() ? orgIter.next() : null;
                 newRowEntry = newIter.hasNext() ? newIter.next() : null;
             }
@@ -34,7 +34,6 @@ import com.android.launcher3.model.WidgetItem;
 import com.android.launcher3.util.LabelComparator;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 
@@ -94,12 +93,11 @@ public class WidgetsListAdapter extends Adapter<WidgetsRowViewHolder> {
     }
 
     /**
-     * Update the widget list.
+     * Update the widget list. The entries are expected to be sorted using
+     * {@link WidgetListRowEntryComparator}, as published by the widgets model.
      */
     public void setWidgets(ArrayList<WidgetListRowEntry> tempEntries) {
-        WidgetListRowEntryComparator rowComparator = new WidgetListRowEntryComparator();
-        Collections.sort(tempEntries, rowComparator);
-        mDiffReporter.process(mEntries, tempEntries, rowComparator);
+        mDiffReporter.process(mEntries, tempEntries, new WidgetListRowEntryComparator());
     }
 
     @Override
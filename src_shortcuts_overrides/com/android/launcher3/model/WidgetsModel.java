@@ -32,10 +32,12 @@ import com.android.launcher3.util.Preconditions;
 import com.android.launcher3.widget.WidgetItemComparator;
 import com.android.launcher3.widget.WidgetListRowEntry;
 import com.android.launcher3.widget.WidgetManagerHelper;
+import com.android.launcher3.widget.WidgetsListAdapter.WidgetListRowEntryComparator;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -58,29 +60,64 @@ public class WidgetsModel {
     /* Map of widgets and shortcuts that are tracked per package. */
     private final MultiHashMap<PackageItemInfo, WidgetItem> mWidgetsList = new MultiHashMap<>();
 
+    /* Rows for {@link #mWidgetsList} sorted by package title, or null if all rows are stale. */
+    private ArrayList<WidgetListRowEntry> mSortedRows;
+    /* Packages whose rows have changed since the last call to {@link #getWidgetsList}. */
+    private final HashSet<PackageItemInfo> mDirtyPackages = new HashSet<>();
+
     private AppFilter mAppFilter;
+    private AlphabeticIndexCompat mIndexer;
 
     /**
-     * Returns a list of {@link WidgetListRowEntry}. All {@link WidgetItem} in a single row
-     * are sorted (based on label and user), but the overall list of {@link WidgetListRowEntry}s
-     * is not sorted. This list is sorted at the UI when using
-     * {@link com.android.launcher3.widget.WidgetsDiffReporter}
+     * Returns a list of {@link WidgetListRowEntry} sorted using
+     * {@link WidgetListRowEntryComparator}. All {@link WidgetItem} in a single row are sorted
+     * (based on label and user).
+     *
+     * Rows are only regenerated for packages which changed since the last call, all other rows
+     * are the same instances as previously returned, so that
+     * {@link com.android.launcher3.widget.WidgetsDiffReporter} can skip them.
      *
      * @see com.android.launcher3.widget.WidgetsListAdapter#setWidgets(ArrayList)
      */
     public synchronized ArrayList<WidgetListRowEntry> getWidgetsList(Context context) {
-        ArrayList<WidgetListRowEntry> result = new ArrayList<>();
-        AlphabeticIndexCompat indexer = new AlphabeticIndexCompat(context);
-
-        WidgetItemComparator widgetComparator = new WidgetItemComparator();
-        for (Map.Entry<PackageItemInfo, ArrayList<WidgetItem>> entry : mWidgetsList.entrySet()) {
-            WidgetListRowEntry row = new WidgetListRowEntry(entry.getKey(), entry.getValue());
-            row.titleSectionName = (row.pkgItem.title == null) ? "" :
-                    indexer.computeSectionName(row.pkgItem.title);
-            Collections.sort(row.widgets, widgetComparator);
-            result.add(row);
+        WidgetListRowEntryComparator rowComparator = new WidgetListRowEntryComparator();
+        if (mSortedRows == null) {
+            mIndexer = new AlphabeticIndexCompat(context);
+            mSortedRows = new ArrayList<>(mWidgetsList.size());
+            for (Map.Entry<PackageItemInfo, ArrayList<WidgetItem>> entry
+                    : mWidgetsList.entrySet()) {
+                mSortedRows.add(createRowEntry(entry.getKey(), entry.getValue()));
+            }
+            Collections.sort(mSortedRows, rowComparator);
+        } else if (!mDirtyPackages.isEmpty()) {
+            Iterator<WidgetListRowEntry> rowIterator = mSortedRows.iterator();
+            while (rowIterator.hasNext()) {
+                if (mDirtyPackages.contains(rowIterator.next().pkgItem)) {
+                    rowIterator.remove();
+                }
+            }
+            for (PackageItemInfo packageItem : mDirtyPackages) {
+                ArrayList<WidgetItem> widgets = mWidgetsList.get(packageItem);
+                if (widgets == null || widgets.isEmpty()) {
+                    continue;
+                }
+                WidgetListRowEntry row = createRowEntry(packageItem, widgets);
+                int index = Collections.binarySearch(mSortedRows, row, rowComparator);
+                mSortedRows.add(index < 0 ? -index - 1 : index, row);
+            }
         }
-        return result;
+        mDirtyPackages.clear();
+        return new ArrayList<>(mSortedRows);
+    }
+
+    private WidgetListRowEntry createRowEntry(PackageItemInfo packageItem,
+            ArrayList<WidgetItem> widgets) {
+        // Copy the widgets, so that rows which are already bound are never modified
+        WidgetListRowEntry row = new WidgetListRowEntry(packageItem, new ArrayList<>(widgets));
+        row.titleSectionName = (row.pkgItem.title == null) ? "" :
+                mIndexer.computeSectionName(row.pkgItem.title);
+        Collections.sort(row.widgets, new WidgetItemComparator());
+        return row;
     }
 
     /**
@@ -144,6 +181,8 @@ public class WidgetsModel {
         // clear the lists.
         if (packageUser == null) {
             mWidgetsList.clear();
+            mSortedRows = null;
+            mDirtyPackages.clear();
         } else {
             // Only clear the widgets for the given package/user.
             PackageItemInfo packageItem = null;
@@ -166,6 +205,11 @@ public class WidgetsModel {
                         widgetItemIterator.remove();
                     }
                 }
+                if (mWidgetsList.get(packageItem).isEmpty()) {
+                    // Drop the row if the package no longer has any widgets or shortcuts.
+                    mWidgetsList.remove(packageItem);
+                }
+                mDirtyPackages.add(packageItem);
             }
         }
 
@@ -222,12 +266,16 @@ public class WidgetsModel {
         for (PackageItemInfo p : tmpPackageItemInfos.values()) {
             iconCache.getTitleAndIconForApp(p, true /* userLowResIcon */);
         }
+        if (mSortedRows != null) {
+            mDirtyPackages.addAll(tmpPackageItemInfos.values());
+        }
     }
 
-    public void onPackageIconsUpdated(Set<String> packageNames, UserHandle user,
+    public synchronized void onPackageIconsUpdated(Set<String> packageNames, UserHandle user,
             LauncherAppState app) {
         for (Entry<PackageItemInfo, ArrayList<WidgetItem>> entry : mWidgetsList.entrySet()) {
             if (packageNames.contains(entry.getKey().packageName)) {
+                mDirtyPackages.add(entry.getKey());
                 ArrayList<WidgetItem> items = entry.getValue();
                 int count = items.size();
                 for (int i = 0; i < count; i++) {
@@ -246,7 +294,7 @@ public class WidgetsModel {
         }
     }
 
-    public WidgetItem getWidgetProviderInfoByProviderName(
+    public synchronized WidgetItem getWidgetProviderInfoByProviderName(
             ComponentName providerName) {
         ArrayList<WidgetItem> widgetsList = mWidgetsList.get(
                 new PackageItemInfo(providerName.getPackageName()));
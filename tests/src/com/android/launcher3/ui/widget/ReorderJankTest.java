@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.android.launcher3.ui.widget;
+
+import static androidx.test.InstrumentationRegistry.getTargetContext;
+
+import static com.android.launcher3.LauncherState.SPRING_LOADED;
+import static com.android.launcher3.WorkspaceLayoutManager.FIRST_SCREEN_ID;
+import static com.android.launcher3.common.WidgetUtils.createWidgetInfo;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import android.util.Log;
+import android.view.View;
+
+import androidx.test.filters.LargeTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import com.android.launcher3.CellLayout;
+import com.android.launcher3.LauncherAppWidgetProviderInfo;
+import com.android.launcher3.LauncherSettings;
+import com.android.launcher3.ShortcutAndWidgetContainer;
+import com.android.launcher3.Workspace;
+import com.android.launcher3.common.WidgetUtils;
+import com.android.launcher3.dragndrop.DragOptions;
+import com.android.launcher3.model.data.ItemInfo;
+import com.android.launcher3.model.data.LauncherAppWidgetInfo;
+import com.android.launcher3.ui.AbstractLauncherUiTest;
+import com.android.launcher3.ui.TestViewHelpers;
+import com.android.launcher3.util.rule.ShellCommandRule;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for dragging a widget over a workspace page full of widgets. The drag goes through
+ * the drag controller like a touch drag would, so every move runs the workspace drag over
+ * handling, and resting over a widget lets the reorder alarm run the reorder.
+ *
+ * The frame stats of the launcher during the drag are logged. The test fails if the 90th
+ * percentile of the drag moves doesn't fit in a frame.
+ *
+ * Note running these tests will clear the workspace on the device.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class ReorderJankTest extends AbstractLauncherUiTest {
+
+    private static final String TAG = "ReorderJankTest";
+
+    // Moves sent while resting over each widget, one per frame
+    private static final int MOVES_PER_TARGET = 10;
+    private static final long FRAME_MILLIS = 16;
+    private static final long FRAME_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(FRAME_MILLIS);
+
+    @Rule
+    public ShellCommandRule mGrantWidgetRule = ShellCommandRule.grantWidgetBind();
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+
+        // Clear all existing data
+        LauncherSettings.Settings.call(mTargetContext.getContentResolver(),
+                LauncherSettings.Settings.METHOD_CREATE_EMPTY_DB);
+        LauncherSettings.Settings.call(mTargetContext.getContentResolver(),
+                LauncherSettings.Settings.METHOD_CLEAR_EMPTY_DB_FLAG);
+    }
+
+    @Test
+    public void testDragOverReorder() throws Exception {
+        LauncherAppWidgetProviderInfo info = TestViewHelpers.findWidgetProvider(this, false);
+        int countX = getFromLauncher(l -> l.getDeviceProfile().inv.numColumns);
+        int countY = getFromLauncher(l -> l.getDeviceProfile().inv.numRows);
+
+        // Fill the first page with widgets, leaving the last row empty
+        for (int y = 0; y + info.minSpanY < countY; y += info.minSpanY) {
+            for (int x = 0; x + info.minSpanX <= countX; x += info.minSpanX) {
+                LauncherAppWidgetInfo item = createWidgetInfo(info, getTargetContext(), true);
+                item.cellX = x;
+                item.cellY = y;
+                WidgetUtils.addItemToScreen(item, mTargetContext);
+            }
+        }
+        resetLoaderState();
+        mDevice.pressHome();
+        mLauncher.waitForLauncherInitialized();
+
+        // Pick up the first widget, as a long press would
+        executeOnLauncher(launcher -> {
+            View child = getFirstPage(launcher.getWorkspace()).getChildAt(0, 0);
+            assertNotNull(child);
+            launcher.getWorkspace().startDrag(
+                    new CellLayout.CellInfo(child, (ItemInfo) child.getTag()), new DragOptions());
+        });
+        waitForState("Launcher internal state didn't switch to spring loaded",
+                () -> SPRING_LOADED);
+
+        // The centers of the other widgets, in drag layer coordinates
+        List<float[]> targets = getFromLauncher(launcher -> {
+            ShortcutAndWidgetContainer container =
+                    getFirstPage(launcher.getWorkspace()).getShortcutsAndWidgets();
+            List<float[]> centers = new ArrayList<>();
+            for (int i = 0; i < container.getChildCount(); i++) {
+                View child = container.getChildAt(i);
+                if (child.getVisibility() != View.VISIBLE) {
+                    // The dragged widget
+                    continue;
+                }
+                float[] center = {child.getWidth() / 2f, child.getHeight() / 2f};
+                launcher.getDragLayer().getDescendantCoordRelativeToSelf(child, center);
+                centers.add(center);
+            }
+            return centers;
+        });
+
+        String gfxInfo = "dumpsys gfxinfo " + mTargetContext.getPackageName();
+        mDevice.executeShellCommand(gfxInfo + " reset");
+        long[] moveTimes = new long[targets.size() * MOVES_PER_TARGET];
+        int sample = 0;
+        for (float[] target : targets) {
+            for (int i = 0; i < MOVES_PER_TARGET; i++) {
+                // Small moves around the center, like a finger resting over the widget
+                final float x = target[0] + i % 2;
+                final float y = target[1] + i % 2;
+                moveTimes[sample++] = getFromLauncher(launcher -> {
+                    long start = System.nanoTime();
+                    launcher.getDragController().onDriverDragMove(x, y);
+                    return System.nanoTime() - start;
+                });
+                Thread.sleep(FRAME_MILLIS);
+            }
+            // Rest long enough for the reorder alarm to run
+            Thread.sleep(Workspace.REORDER_TIMEOUT);
+        }
+        String frameStats = mDevice.executeShellCommand(gfxInfo);
+        executeOnLauncher(launcher -> launcher.getDragController().cancelDrag());
+
+        for (String line : frameStats.split("\n")) {
+            if (line.startsWith("Total frames rendered") || line.startsWith("Janky frames")
+                    || line.contains("percentile")) {
+                Log.d(TAG, "Frame stats: " + line.trim());
+            }
+        }
+        Arrays.sort(moveTimes);
+        long p90 = moveTimes[moveTimes.length * 9 / 10];
+        String summary = "Drag moves: " + moveTimes.length
+                + ", median: " + TimeUnit.NANOSECONDS.toMicros(moveTimes[moveTimes.length / 2])
+                + "us, 90th percentile: " + TimeUnit.NANOSECONDS.toMicros(p90)
+                + "us, max: " + TimeUnit.NANOSECONDS.toMicros(moveTimes[moveTimes.length - 1])
+                + "us";
+        Log.d(TAG, summary);
+        assertTrue(summary, p90 <= FRAME_BUDGET_NANOS);
+    }
+
+    private static CellLayout getFirstPage(Workspace workspace) {
+        CellLayout layout = workspace.getScreenWithId(FIRST_SCREEN_ID);
+        assertNotNull(layout);
+        return layout;
+    }
+}